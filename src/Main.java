@@ -3,6 +3,8 @@ import core.data.Users.AllUsers;
 import core.data.Avisos.AllAvisos;
 import core.data.Ingredientes.AllIngredientes;
 import core.data.Menus.AllMenus;
+import core.data.Pedidos.AllPedidos;
+import core.data.Persistencia.PlanificadorGuardado;
 import core.data.Productos.AllProductos;
 import core.data.Productos.AllProductosEspeciales;
 import javafx.application.Application;
@@ -11,23 +13,51 @@ import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
 public class Main extends Application {
     private static final String APP_NAME = "CAFI";
 
-    // Instancias de los Singleton utilizados para el almacenamiento de todos los datos.
-    // Se empieza cargando todo a memoria, para poderlo usar en la aplicación
-    private final AllUsers allUsers = AllUsers.getInstance();
-    private final AllIngredientes allIngredientes = AllIngredientes.getInstance();
-    private final AllProductos allProductos = AllProductos.getInstance();
-    private final AllMenus allMenus = AllMenus.getInstance();
-    private final AllProductosEspeciales allProductosEspeciales = AllProductosEspeciales.getInstance();
-    private final AllAvisos allAvisos = AllAvisos.getInstance();
+    // Hilos para la carga inicial de los repositorios (cada uno lee un archivo distinto)
+    private static final int HILOS_CARGA = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
     private final SessionManager sessionManager = SessionManager.getInstance();
 
+    /**
+     * Carga los repositorios en paralelo antes de mostrar la ventana.
+     * Solo se espera a AllUsers (lo necesita el Login); los demás siguen cargando
+     * en segundo plano y su getInstance() bloquea únicamente si se usan antes de estar listos.
+     */
+    @Override
+    public void init() {
+        AtomicInteger contador = new AtomicInteger(1);
+        ExecutorService cargador = Executors.newFixedThreadPool(HILOS_CARGA, r -> {
+            Thread t = new Thread(r, "cafi-carga-" + contador.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        });
+
+        CompletableFuture.allOf(
+                AllUsers.cargarAsync(cargador),
+                AllIngredientes.cargarAsync(cargador),
+                AllProductos.cargarAsync(cargador),
+                AllMenus.cargarAsync(cargador),
+                AllProductosEspeciales.cargarAsync(cargador),
+                AllAvisos.cargarAsync(cargador),
+                AllPedidos.cargarAsync(cargador)
+        ).whenComplete((r, e) -> {
+            cargador.shutdown();
+            if (e != null) e.printStackTrace();
+        });
+    }
 
     @Override
     public void start(Stage primaryStage) throws Exception {
         //System.out.println("🚀 Iniciando la aplicación...");
+        AllUsers.listo().join();
 
         // Carga la vista inicial (Login)
         String viewName = "sessions/Login";
@@ -52,27 +82,18 @@ public class Main extends Application {
 
         //System.out.println("✅ Ventana iniciada correctamente: " + primaryStage.getTitle());
 
-        // Hook para guardar datos al cerrar la aplicación
+        // Hook para guardar datos al cerrar la aplicación.
+        // Los repositorios guardan en segundo plano; flush() espera a que se escriba lo pendiente.
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
-            //System.out.println("Guardando usuarios e ingredientes en JSON antes de salir...");
-            allUsers.saveUsers();
-            allIngredientes.saveToFile();
-            allProductos.saveToFile();
-            allMenus.saveToFile();
-            allProductosEspeciales.saveToFile();
-            allAvisos.saveToFile();
+            //System.out.println("Guardando cambios pendientes antes de salir...");
+            PlanificadorGuardado.getInstance().flush();
             //System.out.println("Datos guardados correctamente.");
         }));
 
         // También guarda si se cierra la ventana manualmente
         primaryStage.setOnCloseRequest(event -> {
-            //System.out.println("Evento de cierre detectado. Guardando usuarios e ingredientes...");
-            allUsers.saveUsers();
-            allProductos.saveToFile();
-            allIngredientes.saveToFile();
-            allMenus.saveToFile();
-            allProductosEspeciales.saveToFile();
-            allAvisos.saveToFile();
+            //System.out.println("Evento de cierre detectado. Guardando cambios pendientes...");
+            PlanificadorGuardado.getInstance().flush();
             //System.out.println("Datos guardados correctamente.");
         });
     }
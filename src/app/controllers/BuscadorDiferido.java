@@ -0,0 +1,96 @@
+package app.controllers;
+
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.scene.control.TextInputControl;
+import javafx.util.Duration;
+
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Búsqueda mientras se escribe para los campos txtBuscar de las listas.
+ *
+ * Cada tecla reinicia una espera corta (debounce); al terminar, la consulta se
+ * ejecuta en segundo plano con el GrupoTareas de la vista y la anterior se cancela.
+ * Cada consulta lleva un número de secuencia y su resultado solo se muestra si
+ * sigue siendo la más reciente, así una búsqueda lenta ya superada nunca pisa a
+ * una más nueva. buscar corre fuera del hilo de JavaFX; mostrar y alFallar
+ * corren en él.
+ */
+public class BuscadorDiferido<R> {
+    public static final Duration ESPERA_DEFAULT = Duration.millis(250);
+
+    private final GrupoTareas tareas;
+    private final Function<String, R> buscar;
+    private final BiConsumer<String, R> mostrar;
+    private final PauseTransition pausa;
+    private Consumer<String> alFallar = consulta -> {};
+
+    // Solo se tocan desde el hilo de JavaFX
+    private long secuencia = 0;
+    private Future<?> enCurso;
+    private String pendiente = "";
+
+    public BuscadorDiferido(TextInputControl campo, GrupoTareas tareas,
+                            Function<String, R> buscar, BiConsumer<String, R> mostrar) {
+        this(campo, ESPERA_DEFAULT, tareas, buscar, mostrar);
+    }
+
+    public BuscadorDiferido(TextInputControl campo, Duration espera, GrupoTareas tareas,
+                            Function<String, R> buscar, BiConsumer<String, R> mostrar) {
+        this.tareas = tareas;
+        this.buscar = buscar;
+        this.mostrar = mostrar;
+        this.pausa = new PauseTransition(espera);
+        pausa.setOnFinished(e -> buscarAhora(pendiente));
+
+        campo.textProperty().addListener((obs, anterior, texto) -> {
+            pendiente = texto == null ? "" : texto;
+            pausa.playFromStart();
+        });
+    }
+
+    /**
+     * Se llama (en el hilo de JavaFX) si la consulta vigente lanzó una excepción
+     */
+    public void setAlFallar(Consumer<String> alFallar) {
+        this.alFallar = alFallar;
+    }
+
+    /**
+     * Ejecuta la consulta sin esperar; reemplaza a cualquier otra pendiente o en curso
+     */
+    public void buscarAhora(String consulta) {
+        pausa.stop();
+        long mia = ++secuencia;
+        if (enCurso != null) enCurso.cancel(true);
+
+        enCurso = tareas.ejecutar(() -> {
+            try {
+                R resultado = buscar.apply(consulta);
+                if (Thread.currentThread().isInterrupted()) return;
+                Platform.runLater(() -> {
+                    if (mia == secuencia) mostrar.accept(consulta, resultado);
+                });
+            } catch (Exception e) {
+                e.printStackTrace();
+                Platform.runLater(() -> {
+                    if (mia == secuencia) alFallar.accept(consulta);
+                });
+            }
+        });
+    }
+
+    /**
+     * Descarta la consulta pendiente y la que esté en curso
+     */
+    public void cancelar() {
+        pausa.stop();
+        secuencia++;
+        if (enCurso != null) enCurso.cancel(true);
+        enCurso = null;
+    }
+}
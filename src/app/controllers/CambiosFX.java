@@ -0,0 +1,131 @@
+package app.controllers;
+
+import core.data.Repositorio.Cambio;
+import javafx.application.Platform;
+import javafx.collections.ObservableList;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * Lleva los cambios de un repositorio (AllX.suscribir) al hilo de JavaFX.
+ *
+ * Los cambios llegan desde el hilo que escribió; se encolan y se entregan juntos
+ * en una sola llamada a Platform.runLater, así una ráfaga de escrituras se aplica
+ * en un solo paso de la interfaz. Va ligado al GrupoTareas de la vista: al cerrarse
+ * la vista se da de baja, y si vuelve a mostrarse se suscribe otra vez y entrega un
+ * cambio RECARGADO, porque se perdió lo que pasó mientras estaba cerrada.
+ */
+public class CambiosFX<T> {
+    private final Function<Consumer<List<Cambio<T>>>, Runnable> suscribir;
+    private final Consumer<List<Cambio<T>>> aplicar;
+    private final ConcurrentLinkedQueue<Cambio<T>> cola = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean programado = new AtomicBoolean(false);
+    private volatile Runnable baja;
+
+    public CambiosFX(GrupoTareas tareas, Function<Consumer<List<Cambio<T>>>, Runnable> suscribir,
+                     Consumer<List<Cambio<T>>> aplicar) {
+        this.suscribir = suscribir;
+        this.aplicar = aplicar;
+        this.baja = suscribir.apply(this::recibir);
+        tareas.alCerrarYVolver(this::darDeBaja, this::reanudar);
+    }
+
+    private void recibir(List<Cambio<T>> cambios) {
+        cola.addAll(cambios);
+        if (programado.compareAndSet(false, true)) {
+            Platform.runLater(this::entregar);
+        }
+    }
+
+    private void entregar() {
+        programado.set(false);
+        List<Cambio<T>> lote = new ArrayList<>();
+        Cambio<T> cambio;
+        while ((cambio = cola.poll()) != null) {
+            lote.add(cambio);
+        }
+        if (lote.isEmpty() || baja == null) return;
+        try {
+            aplicar.accept(lote);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void darDeBaja() {
+        Runnable actual = baja;
+        baja = null;
+        if (actual != null) actual.run();
+        cola.clear();
+    }
+
+    private void reanudar() {
+        if (baja != null) return;
+        baja = suscribir.apply(this::recibir);
+        aplicar.accept(List.of(Cambio.recarga()));
+    }
+
+    /**
+     * true si el lote trae un RECARGADO: la vista debe volver a leer todo
+     */
+    public static <T> boolean incluyeRecarga(List<Cambio<T>> cambios) {
+        for (Cambio<T> cambio : cambios) {
+            if (cambio.getTipo() == Cambio.Tipo.RECARGADO) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Aplica el lote sobre una lista que muestra todo el repositorio: agrega al
+     * final, reemplaza en su lugar y elimina, cada ID una sola vez con su estado
+     * final. Devuelve true si algún elemento se modificó en memoria (mismo objeto
+     * antes y después), caso en el que la tabla debe refrescar sus celdas.
+     */
+    public static <T> boolean aplicarEn(ObservableList<T> lista, List<Cambio<T>> cambios, ToIntFunction<T> clave) {
+        // Estado final por ID (null = eliminado), en orden de llegada
+        Map<Integer, T> finales = new LinkedHashMap<>();
+        boolean mismoObjeto = false;
+        for (Cambio<T> cambio : cambios) {
+            finales.put(cambio.getId(), cambio.getNuevo());
+            if (cambio.getTipo() == Cambio.Tipo.ACTUALIZADO && cambio.getAnterior() == cambio.getNuevo()) {
+                mismoObjeto = true;
+            }
+        }
+
+        Map<Integer, Integer> posiciones = new HashMap<>();
+        for (int i = 0; i < lista.size(); i++) {
+            posiciones.put(clave.applyAsInt(lista.get(i)), i);
+        }
+
+        List<T> agregados = new ArrayList<>();
+        boolean hayEliminados = false;
+        for (Map.Entry<Integer, T> entrada : finales.entrySet()) {
+            Integer posicion = posiciones.get(entrada.getKey());
+            T nuevo = entrada.getValue();
+            if (nuevo == null) {
+                hayEliminados |= posicion != null;
+            } else if (posicion != null) {
+                lista.set(posicion, nuevo);
+            } else {
+                agregados.add(nuevo);
+            }
+        }
+        if (hayEliminados) {
+            lista.removeIf(e -> {
+                int id = clave.applyAsInt(e);
+                return finales.containsKey(id) && finales.get(id) == null;
+            });
+        }
+        lista.addAll(agregados);
+        return mismoObjeto;
+    }
+}
@@ -0,0 +1,122 @@
+package app.controllers;
+
+import core.EjecutorTareas;
+import javafx.event.EventHandler;
+import javafx.scene.Node;
+import javafx.scene.Scene;
+import javafx.stage.Window;
+import javafx.stage.WindowEvent;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
+
+/**
+ * Tareas en segundo plano de un controlador, enviadas al EjecutorTareas compartido.
+ * Con cancelarAlCerrar(nodo) las tareas pendientes se cancelan cuando la vista sale
+ * de la escena (cambio de sección en el dashboard) o cuando se cierra su ventana.
+ * El grupo sigue aceptando tareas después, por si la vista se vuelve a mostrar.
+ * alCerrarYVolver permite ligar otros recursos (p. ej. CambiosFX) al mismo ciclo.
+ */
+public class GrupoTareas {
+    private final Set<Future<?>> pendientes = ConcurrentHashMap.newKeySet();
+    private final EventHandler<WindowEvent> alOcultarVentana = e -> cerrar();
+    private final List<Runnable> alCerrar = new CopyOnWriteArrayList<>();
+    private final List<Runnable> alVolver = new CopyOnWriteArrayList<>();
+    private Window ventanaVigilada;
+    private boolean cerrada = false; // solo desde el hilo de JavaFX
+
+    public Future<?> ejecutar(Runnable tarea) {
+        Future<?> futuro = EjecutorTareas.getInstance().enviar(tarea, pendientes::remove);
+        pendientes.add(futuro);
+        if (futuro.isDone()) pendientes.remove(futuro);
+        return futuro;
+    }
+
+    /**
+     * Para altas, cambios y bajas: usa el mismo executor pero no se cancela al cerrar
+     * la vista, así un guardado ya pedido no se pierde
+     */
+    public Future<?> ejecutarEscritura(Runnable tarea) {
+        return EjecutorTareas.getInstance().enviar(tarea);
+    }
+
+    /**
+     * Cancela lo que siga en cola e interrumpe lo que esté corriendo
+     */
+    public void cancelarTodo() {
+        for (Future<?> futuro : pendientes) {
+            futuro.cancel(true);
+        }
+        pendientes.clear();
+    }
+
+    /**
+     * cerrar se ejecuta cuando la vista sale de la escena o se oculta su ventana;
+     * volver, cuando la vista regresa a una escena después de haberse cerrado
+     */
+    public void alCerrarYVolver(Runnable cerrar, Runnable volver) {
+        alCerrar.add(cerrar);
+        alVolver.add(volver);
+    }
+
+    public int getPendientes() {
+        return pendientes.size();
+    }
+
+    /**
+     * Liga el grupo al ciclo de vida de la vista que contiene al nodo
+     */
+    public void cancelarAlCerrar(Node nodo) {
+        nodo.sceneProperty().addListener((obs, anterior, escena) -> {
+            if (escena == null) {
+                cerrar();
+            } else {
+                vigilarVentana(escena);
+                volver();
+            }
+        });
+        if (nodo.getScene() != null) {
+            vigilarVentana(nodo.getScene());
+        }
+    }
+
+    /**
+     * Cancela las tareas y corre las acciones de cierre. Se llama sola cuando la
+     * vista sale de la escena; llamarla a mano sirve para una vista que nunca
+     * estuvo en escena (p. ej. precargada y descartada). Llamarla dos veces no hace nada.
+     */
+    public void cerrar() {
+        cancelarTodo();
+        if (cerrada) return;
+        cerrada = true;
+        for (Runnable accion : alCerrar) accion.run();
+    }
+
+    private void volver() {
+        if (!cerrada) return;
+        cerrada = false;
+        for (Runnable accion : alVolver) accion.run();
+    }
+
+    private void vigilarVentana(Scene escena) {
+        if (escena.getWindow() != null) {
+            vigilar(escena.getWindow());
+        } else {
+            escena.windowProperty().addListener((obs, anterior, ventana) -> {
+                if (ventana != null) vigilar(ventana);
+            });
+        }
+    }
+
+    private void vigilar(Window ventana) {
+        if (ventana == ventanaVigilada) return;
+        if (ventanaVigilada != null) {
+            ventanaVigilada.removeEventHandler(WindowEvent.WINDOW_HIDDEN, alOcultarVentana);
+        }
+        ventanaVigilada = ventana;
+        ventana.addEventHandler(WindowEvent.WINDOW_HIDDEN, alOcultarVentana);
+    }
+}
@@ -0,0 +1,12 @@
+package app.controllers;
+
+/**
+ * Controlador de una vista que el dashboard guarda en su caché.
+ * Una vista precargada puede descartarse sin haber entrado nunca a la escena, y
+ * entonces su GrupoTareas no se entera solo; al sacarla de la caché (o al cerrar
+ * sesión) el dashboard llama a liberar() para cancelar sus tareas y dar de baja
+ * sus suscripciones (CambiosFX).
+ */
+public interface VistaLiberable {
+    void liberar();
+}
@@ -1,5 +1,8 @@
 package app.controllers.administradores;
 
+import app.controllers.BuscadorDiferido;
+import app.controllers.GrupoTareas;
+import app.controllers.VistaLiberable;
 import core.SessionManager;
 import core.data.Users.AllUsers;
 import core.data.Users.User;
@@ -21,7 +24,7 @@ import java.util.stream.Collectors;
 /**
  * Controlador para la gestión de administradores.
  */
-public class AdministradoresController {
+public class AdministradoresController implements VistaLiberable {
 
     @FXML private TextField txtBuscar;
     @FXML private Button btnRecargar, btnNuevo;
@@ -32,9 +35,12 @@ public class AdministradoresController {
 
     private final AllUsers allUsers = AllUsers.getInstance();
     private final SessionManager sessionManager = SessionManager.getInstance();
+    private final GrupoTareas tareas = new GrupoTareas();
+    private BuscadorDiferido<List<User>> buscador;
 
     @FXML
     public void initialize() {
+        tareas.cancelarAlCerrar(tablaAdministradores);
         // Verificar permisos de administrador
         if (!sessionManager.isAdmin()) {
             mostrarError("Acceso denegado", "Solo los administradores pueden acceder a esta función.");
@@ -42,14 +48,11 @@ public class AdministradoresController {
         }
 
         configurarTabla();
+
+        // Búsqueda con debounce: solo se muestra el resultado de la última consulta
+        buscador = new BuscadorDiferido<>(txtBuscar, tareas, this::filtrarAdministradores, this::mostrarAdministradores);
+        buscador.setAlFallar(q -> lblEstado.setText(q.isBlank() ? "❌ Error al cargar administradores." : "❌ Error en búsqueda."));
         cargarAdministradores();
-        
-        txtBuscar.textProperty().addListener((obs, o, n) -> {
-            if (n.isBlank())
-                cargarAdministradores();
-            else
-                buscarAdministradores(n);
-        });
     }
 
     private void configurarTabla() {
@@ -130,59 +133,34 @@ public class AdministradoresController {
     @FXML
     private void cargarAdministradores() {
         lblEstado.setText("Cargando administradores...");
-        tablaAdministradores.getItems().clear();
-
-        new Thread(() -> {
-            try {
-                List<User> administradores = allUsers.getUsers().stream()
-                    .filter(User::isAdmin)
-                    .collect(Collectors.toList());
-                
-                Platform.runLater(() -> {
-                    tablaAdministradores.getItems().addAll(administradores);
-                    actualizarEstadisticas(administradores);
-                });
-            } catch (Exception e) {
-                e.printStackTrace();
-                Platform.runLater(() -> lblEstado.setText("❌ Error al cargar administradores."));
-            }
-        }).start();
+        buscador.buscarAhora("");
     }
 
     /**
-     * Buscar administradores por nombre, apellidos, expediente o correo
+     * Buscar administradores por nombre, apellidos, expediente o correo (en segundo plano).
+     * Con la consulta vacía devuelve todos.
      */
-    private void buscarAdministradores(String query) {
-        lblEstado.setText("Buscando \"" + query + "\"...");
-        tablaAdministradores.getItems().clear();
-
-        new Thread(() -> {
-            try {
-                List<User> todosAdmins = allUsers.getUsers().stream()
-                    .filter(User::isAdmin)
-                    .collect(Collectors.toList());
-                
-                String queryLower = query.toLowerCase();
-                
-                List<User> resultados = todosAdmins.stream()
-                    .filter(admin -> 
-                        admin.getClave().toLowerCase().contains(queryLower) ||
-                        admin.getName().toLowerCase().contains(queryLower) ||
-                        admin.getApellidoPaterno().toLowerCase().contains(queryLower) ||
-                        (admin.getApellidoMaterno() != null && admin.getApellidoMaterno().toLowerCase().contains(queryLower)) ||
-                        admin.getEmail().toLowerCase().contains(queryLower)
-                    )
-                    .collect(Collectors.toList());
-
-                Platform.runLater(() -> {
-                    tablaAdministradores.getItems().addAll(resultados);
-                    lblEstado.setText("🔍 " + resultados.size() + " resultado(s) encontrado(s).");
-                });
-            } catch (Exception e) {
-                e.printStackTrace();
-                Platform.runLater(() -> lblEstado.setText("❌ Error en búsqueda."));
-            }
-        }).start();
+    private List<User> filtrarAdministradores(String query) {
+        String queryLower = query.toLowerCase();
+        return allUsers.getUsers().stream()
+            .filter(User::isAdmin)
+            .filter(admin -> 
+                queryLower.isBlank() ||
+                admin.getClave().toLowerCase().contains(queryLower) ||
+                admin.getName().toLowerCase().contains(queryLower) ||
+                admin.getApellidoPaterno().toLowerCase().contains(queryLower) ||
+                (admin.getApellidoMaterno() != null && admin.getApellidoMaterno().toLowerCase().contains(queryLower)) ||
+                admin.getEmail().toLowerCase().contains(queryLower)
+            )
+            .collect(Collectors.toList());
+    }
+
+    private void mostrarAdministradores(String query, List<User> resultados) {
+        tablaAdministradores.getItems().setAll(resultados);
+        if (query.isBlank())
+            actualizarEstadisticas(resultados);
+        else
+            lblEstado.setText("🔍 " + resultados.size() + " resultado(s) encontrado(s).");
     }
 
     private void actualizarEstadisticas(List<User> administradores) {
@@ -222,10 +200,9 @@ public class AdministradoresController {
         
         alert.showAndWait().ifPresent(btn -> {
             if (btn == ButtonType.OK) {
-                new Thread(() -> {
+                tareas.ejecutarEscritura(() -> {
                     try {
-                        allUsers.getUsers().remove(administrador);
-                        allUsers.saveUsers();
+                        allUsers.removeUser(administrador);
                         
                         Platform.runLater(() -> {
                             lblEstado.setText("Eliminar Administrador eliminado correctamente.");
@@ -235,7 +212,7 @@ public class AdministradoresController {
                         e.printStackTrace();
                         Platform.runLater(() -> lblEstado.setText("❌ Error al eliminar."));
                     }
-                }).start();
+                });
             }
         });
     }
@@ -294,4 +271,12 @@ public class AdministradoresController {
         alert.setContentText(mensaje);
         alert.showAndWait();
     }
-}
\ No newline at end of file
+
+    /**
+     * La llama el dashboard al descartar la vista de su caché
+     */
+    @Override
+    public void liberar() {
+        tareas.cerrar();
+    }
+}
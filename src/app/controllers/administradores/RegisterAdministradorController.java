@@ -1,8 +1,11 @@
 package app.controllers.administradores;
 
+import app.controllers.GrupoTareas;
 import core.SessionManager;
 import core.data.Users.AllUsers;
+import core.data.Users.HashNip;
 import core.data.Users.User;
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
@@ -25,6 +28,7 @@ public class RegisterAdministradorController {
 
     private final AllUsers allUsers = AllUsers.getInstance();
     private final SessionManager sessionManager = SessionManager.getInstance();
+    private final GrupoTareas tareas = new GrupoTareas();
 
     // Control de modo edición
     private boolean modoEdicion = false;
@@ -86,12 +90,7 @@ public class RegisterAdministradorController {
 
     private void registrarNuevoAdministrador(String clave, String nombre, String apellidoP, String apellidoM, 
                                            String correo, String telefono, String nip) {
-        // Verificar si ya existe el expediente
-        if (allUsers.getUserByClave(clave) != null) {
-            lblStatus.setText("⚠️ El expediente ya está registrado.");
-            lblStatus.setStyle("-fx-text-fill: red;");
-            return;
-        }
+        // El expediente repetido lo rechaza AllUsers al agregar
 
         // Verificar si ya existe el correo
         if (existeCorreo(correo)) {
@@ -113,24 +112,68 @@ public class RegisterAdministradorController {
         nuevoAdmin.setClave(clave);
         nuevoAdmin.setAdmin(true); // Siempre será administrador
 
-        // Guardar el nuevo administrador
-        allUsers.addUser(nuevoAdmin);
-
-        lblStatus.setText("✅ Administrador registrado correctamente.");
-        lblStatus.setStyle("-fx-text-fill: green;");
-
-        limpiarCampos();
+        // Guardar el nuevo administrador (el hash del NIP se calcula fuera del hilo de JavaFX)
+        btnRegistrar.setDisable(true);
+        tareas.ejecutarEscritura(() -> {
+            boolean agregado = allUsers.addUser(nuevoAdmin);
+            Platform.runLater(() -> {
+                btnRegistrar.setDisable(false);
+                if (!agregado) {
+                    lblStatus.setText("⚠️ El expediente ya está registrado.");
+                    lblStatus.setStyle("-fx-text-fill: red;");
+                    return;
+                }
+                lblStatus.setText("✅ Administrador registrado correctamente.");
+                lblStatus.setStyle("-fx-text-fill: green;");
+                limpiarCampos();
+            });
+        });
     }
 
     private void actualizarAdministrador(String clave, String nombre, String apellidoP, String apellidoM, 
                                        String correo, String telefono, String nip) {
+        // Verificar si el expediente ya pertenece a otro usuario
+        User conClave = allUsers.getUserByClave(clave);
+        if (conClave != null && conClave != administradorEditando) {
+            lblStatus.setText("⚠️ El expediente ya está registrado en otra cuenta.");
+            lblStatus.setStyle("-fx-text-fill: red;");
+            return;
+        }
+
         // Verificar si el correo ya existe en otro usuario
-        if (existeCorreo(correo) && !administradorEditando.getEmail().equalsIgnoreCase(correo)) {
+        User conCorreo = allUsers.getUserByEmail(correo);
+        if (conCorreo != null && conCorreo != administradorEditando) {
             lblStatus.setText("⚠️ El correo electrónico ya está registrado en otra cuenta.");
             lblStatus.setStyle("-fx-text-fill: red;");
             return;
         }
 
+        if (nip.isEmpty()) {
+            guardarAdministrador(clave, nombre, apellidoP, apellidoM, correo, telefono, null);
+            return;
+        }
+
+        // Hay NIP nuevo: el hash se calcula fuera del hilo de JavaFX
+        btnRegistrar.setDisable(true);
+        tareas.ejecutarEscritura(() -> {
+            String hash = HashNip.hashear(nip);
+            Platform.runLater(() -> {
+                btnRegistrar.setDisable(false);
+                guardarAdministrador(clave, nombre, apellidoP, apellidoM, correo, telefono, hash);
+            });
+        });
+    }
+
+    private void guardarAdministrador(String clave, String nombre, String apellidoP, String apellidoM,
+                                      String correo, String telefono, String hashNip) {
+        // Mientras se calculaba el hash otro registro pudo tomar el expediente
+        User conClave = allUsers.getUserByClave(clave);
+        if (conClave != null && conClave != administradorEditando) {
+            lblStatus.setText("⚠️ El expediente ya está registrado en otra cuenta.");
+            lblStatus.setStyle("-fx-text-fill: red;");
+            return;
+        }
+
         // Actualizar datos del administrador
         administradorEditando.setClave(clave);
         administradorEditando.setName(nombre);
@@ -140,13 +183,12 @@ public class RegisterAdministradorController {
         administradorEditando.setPhone(telefono);
         
         // Solo actualizar password si se proporcionó uno nuevo
-        if (!nip.isEmpty()) {
-            // En un sistema real aquí se debería hashear la contraseña
-            // Por ahora usamos el texto plano como en el sistema actual
+        if (hashNip != null) {
+            administradorEditando.setPassword(hashNip);
         }
 
-        // Guardar cambios
-        allUsers.saveUsers();
+        // Guardar cambios (reindexa expediente y correo)
+        allUsers.updateUser(administradorEditando);
 
         lblStatus.setText("✅ Administrador actualizado correctamente.");
         lblStatus.setStyle("-fx-text-fill: green;");
@@ -156,12 +198,7 @@ public class RegisterAdministradorController {
     }
 
     private boolean existeCorreo(String correo) {
-        for (User user : allUsers.getUsers()) {
-            if (user.getEmail().equalsIgnoreCase(correo)) {
-                return true;
-            }
-        }
-        return false;
+        return allUsers.getUserByEmail(correo) != null;
     }
 
     /**
@@ -1,7 +1,12 @@
 package app.controllers.avisos;
+import app.controllers.BuscadorDiferido;
+import app.controllers.CambiosFX;
+import app.controllers.GrupoTareas;
+import app.controllers.VistaLiberable;
 import core.SessionManager;
 import core.data.Avisos.AllAvisos;
 import core.data.Avisos.Aviso;
+import core.data.Repositorio.Cambio;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
@@ -21,7 +26,7 @@ import java.util.List;
 /**
  * Controlador para la gestión de avisos
  */
-public class AvisosController {
+public class AvisosController implements VistaLiberable {
 
     @FXML private TextField txtBuscar;
     @FXML private Button btnRecargar, btnNuevo;
@@ -33,9 +38,12 @@ public class AvisosController {
 
     private final AllAvisos allAvisos = AllAvisos.getInstance();
     private final SessionManager session = SessionManager.getInstance();
+    private final GrupoTareas tareas = new GrupoTareas();
+    private BuscadorDiferido<List<Aviso>> buscador;
 
     @FXML
     public void initialize() {
+        tareas.cancelarAlCerrar(tablaAvisos);
         // Verificar permisos de administrador
         if (!session.isAdmin()) {
             mostrarError("Acceso denegado", "Solo los administradores pueden acceder a esta función.");
@@ -43,14 +51,13 @@ public class AvisosController {
         }
 
         configurarTabla();
+
+        // Búsqueda con debounce: solo se muestra el resultado de la última consulta
+        buscador = new BuscadorDiferido<>(txtBuscar, tareas, this::filtrarAvisos, this::mostrarAvisos);
+        buscador.setAlFallar(q -> lblEstado.setText(q.isBlank() ? "❌ Error al cargar avisos." : "❌ Error en búsqueda."));
+        // Altas, cambios y bajas se aplican a la tabla sin recargarla
+        new CambiosFX<>(tareas, allAvisos::suscribir, this::aplicarCambios);
         cargarAvisos();
-        
-        txtBuscar.textProperty().addListener((obs, o, n) -> {
-            if (n.isBlank())
-                cargarAvisos();
-            else
-                buscarAvisos(n);
-        });
     }
 
     private void configurarTabla() {
@@ -159,53 +166,41 @@ public class AvisosController {
     @FXML
     private void cargarAvisos() {
         lblEstado.setText("Cargando avisos...");
-        tablaAvisos.getItems().clear();
-
-        new Thread(() -> {
-            try {
-                List<Aviso> avisos = allAvisos.getAll();
-                
-                Platform.runLater(() -> {
-                    tablaAvisos.getItems().addAll(avisos);
-                    actualizarEstadisticas(avisos);
-                });
-            } catch (Exception e) {
-                e.printStackTrace();
-                Platform.runLater(() -> lblEstado.setText("❌ Error al cargar avisos."));
-            }
-        }).start();
+        buscador.buscarAhora("");
     }
 
     /**
-     * Buscar avisos por título, contenido o establecimiento
+     * Buscar avisos por título, contenido o establecimiento (en segundo plano), con el índice
+     * de texto del repositorio: sin acentos, por prefijo y ordenado por relevancia.
+     * Con la consulta vacía devuelve todos.
      */
-    private void buscarAvisos(String query) {
-        lblEstado.setText("Buscando \"" + query + "\"...");
-        tablaAvisos.getItems().clear();
+    private List<Aviso> filtrarAvisos(String query) {
+        if (query.isBlank()) return allAvisos.getAll();
+        return allAvisos.buscar(query);
+    }
 
-        new Thread(() -> {
-            try {
-                List<Aviso> todos = allAvisos.getAll();
-                String queryLower = query.toLowerCase();
-                
-                List<Aviso> resultados = todos.stream()
-                    .filter(aviso -> 
-                        aviso.getTitulo().toLowerCase().contains(queryLower) ||
-                        aviso.getContenido().toLowerCase().contains(queryLower) ||
-                        aviso.getEstablecimiento().name().toLowerCase().contains(queryLower) ||
-                        aviso.getTipoAviso().name().toLowerCase().contains(queryLower)
-                    )
-                    .toList();
+    private void mostrarAvisos(String query, List<Aviso> resultados) {
+        tablaAvisos.getItems().setAll(resultados);
+        if (query.isBlank())
+            actualizarEstadisticas(resultados);
+        else
+            lblEstado.setText("🔍 " + resultados.size() + " resultado(s) encontrado(s).");
+    }
 
-                Platform.runLater(() -> {
-                    tablaAvisos.getItems().addAll(resultados);
-                    lblEstado.setText("🔍 " + resultados.size() + " resultado(s) encontrado(s).");
-                });
-            } catch (Exception e) {
-                e.printStackTrace();
-                Platform.runLater(() -> lblEstado.setText("❌ Error en búsqueda."));
-            }
-        }).start();
+    /**
+     * Con la lista completa aplica solo las diferencias; con una búsqueda activa
+     * (o tras una recarga) vuelve a ejecutar la consulta vigente
+     */
+    private void aplicarCambios(List<Cambio<Aviso>> cambios) {
+        String query = txtBuscar.getText();
+        if (!query.isBlank() || CambiosFX.incluyeRecarga(cambios)) {
+            buscador.buscarAhora(query);
+            return;
+        }
+        if (CambiosFX.aplicarEn(tablaAvisos.getItems(), cambios, Aviso::getId)) {
+            tablaAvisos.refresh();
+        }
+        actualizarEstadisticas(tablaAvisos.getItems());
     }
 
     private void actualizarEstadisticas(List<Aviso> avisos) {
@@ -269,19 +264,16 @@ public class AvisosController {
         
         confirm.showAndWait().ifPresent(btn -> {
             if (btn == ButtonType.OK) {
-                new Thread(() -> {
+                tareas.ejecutarEscritura(() -> {
                     try {
                         allAvisos.removeAviso(id);
                         
-                        Platform.runLater(() -> {
-                            lblEstado.setText("Eliminar Aviso eliminado correctamente.");
-                            cargarAvisos();
-                        });
+                        Platform.runLater(() -> lblEstado.setText("Eliminar Aviso eliminado correctamente."));
                     } catch (Exception e) {
                         e.printStackTrace();
                         Platform.runLater(() -> lblEstado.setText("❌ Error al eliminar."));
                     }
-                }).start();
+                });
             }
         });
     }
@@ -306,9 +298,7 @@ public class AvisosController {
             stage.initModality(Modality.APPLICATION_MODAL);
             stage.setResizable(false);
             
-            // Recargar cuando se cierre el formulario
-            stage.setOnHidden(e -> cargarAvisos());
-            
+            // La tabla se actualiza sola con el cambio que guarde el formulario
             stage.showAndWait();
 
         } catch (Exception e) {
@@ -327,4 +317,12 @@ public class AvisosController {
         alert.setContentText(mensaje);
         alert.showAndWait();
     }
-}
\ No newline at end of file
+
+    /**
+     * La llama el dashboard al descartar la vista de su caché
+     */
+    @Override
+    public void liberar() {
+        tareas.cerrar();
+    }
+}
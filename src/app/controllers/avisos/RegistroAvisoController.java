@@ -1,5 +1,6 @@
 package app.controllers.avisos;
 
+import app.controllers.GrupoTareas;
 import core.SessionManager;
 import core.data.Avisos.AllAvisos;
 import core.data.Avisos.Aviso;
@@ -48,6 +49,7 @@ public class RegistroAvisoController {
     
     private final AllAvisos allAvisos = AllAvisos.getInstance();
     private final SessionManager session = SessionManager.getInstance();
+    private final GrupoTareas tareas = new GrupoTareas();
 
     private boolean modoEdicion = false;
     private Aviso avisoEditando = null;
@@ -57,6 +59,7 @@ public class RegistroAvisoController {
     
     @FXML
     public void initialize() {
+        tareas.cancelarAlCerrar(txtTitulo);
         // Verificar permisos de administrador
         if (!session.isAdmin()) {
             mostrarAlerta("Acceso denegado", "Solo los administradores pueden acceder a esta función.");
@@ -171,7 +174,7 @@ public class RegistroAvisoController {
         btnGuardar.setDisable(true);
         lblStatus.setText("Guardando aviso...");
 
-        new Thread(() -> {
+        tareas.ejecutarEscritura(() -> {
             try {
                 String titulo = txtTitulo.getText().trim();
                 String contenido = txtContenido.getText().trim();
@@ -248,7 +251,7 @@ public class RegistroAvisoController {
                 });
                 e.printStackTrace();
             }
-        }).start();
+        });
     }
 
     @FXML
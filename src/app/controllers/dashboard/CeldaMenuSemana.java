@@ -0,0 +1,280 @@
+package app.controllers.dashboard;
+
+import core.data.Ingredientes.AllIngredientes;
+import core.data.Productos.MotorPrecios;
+import core.data.Productos.Producto;
+import core.data.Productos.ProductoIngrediente;
+import core.data.Productos.Sustituto;
+import core.data.Productos.TamanoProducto;
+import javafx.collections.ObservableList;
+import javafx.geometry.Pos;
+import javafx.scene.Node;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.Tooltip;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.Region;
+import javafx.scene.layout.VBox;
+
+import java.time.LocalDateTime;
+import java.util.function.Consumer;
+
+/**
+ * Celda reciclable de la lista del menú semanal. Los nodos de encabezado y de la
+ * tarjeta de producto se crean una vez por celda y solo se actualiza su contenido
+ * al cambiar de renglón. El detalle de ingredientes y sustitutos se arma solo
+ * cuando el usuario lo expande.
+ */
+class CeldaMenuSemana extends ListCell<FilaMenuSemana> {
+    private static final int[] SANGRIA = { 0, 10, 20, 30, 20 }; // por FilaMenuSemana.Tipo
+
+    private final Consumer<Producto> verDetalles;
+
+    // Encabezados y mensajes
+    private final Label lblEncabezado = new Label();
+    private final HBox encabezado = new HBox(lblEncabezado);
+
+    // Tarjeta de producto
+    private final Label lblNombre = new Label();
+    private final Label lblPrecio = new Label();
+    private final Label lblCalorias = new Label();
+    private final Label lblDescripcion = new Label();
+    private final Label lblTamanos = new Label();
+    private final Button btnIngredientes = new Button();
+    private final Button btnDetalles = new Button("Ver detalles completos");
+    private final HBox acciones = new HBox(8);
+    private final VBox detalleIngredientes = new VBox(4);
+    private final VBox tarjeta = new VBox(6);
+
+    CeldaMenuSemana(Consumer<Producto> verDetalles) {
+        this.verDetalles = verDetalles;
+        setPrefWidth(0); // que la celda siga el ancho de la lista (sin scroll horizontal)
+
+        encabezado.setAlignment(Pos.CENTER_LEFT);
+        lblEncabezado.setWrapText(true);
+
+        // Información básica del producto
+        lblNombre.setStyle("-fx-font-weight: bold; -fx-font-size: 13px; -fx-text-fill: #2c3e50;");
+        lblPrecio.setStyle("-fx-text-fill: #28a745; -fx-font-weight: bold;");
+        lblCalorias.setStyle("-fx-text-fill: #6c757d; -fx-font-size: 11px;");
+        Region spacer = new Region();
+        HBox.setHgrow(spacer, Priority.ALWAYS);
+        HBox infoBasica = new HBox(10, lblNombre, spacer, lblPrecio, lblCalorias);
+        infoBasica.setAlignment(Pos.CENTER_LEFT);
+
+        lblDescripcion.setStyle("-fx-text-fill: #495057; -fx-font-size: 12px;");
+        lblDescripcion.setWrapText(true);
+        lblTamanos.setStyle("-fx-font-size: 11px; -fx-text-fill: #6c757d;");
+
+        String estiloLink = "-fx-background-color: transparent; -fx-text-fill: #007bff; -fx-border-color: #007bff; -fx-border-width: 1; -fx-font-size: 11px;";
+        btnIngredientes.setStyle(estiloLink);
+        btnDetalles.setStyle(estiloLink);
+        btnIngredientes.setOnAction(e -> alternarIngredientes());
+        btnDetalles.setOnAction(e -> {
+            if (getItem() != null) verDetalles.accept(getItem().producto);
+        });
+
+        tarjeta.setStyle("-fx-background-color: #f8f9fa; -fx-border-color: #e9ecef; -fx-border-radius: 4; -fx-padding: 8;");
+        tarjeta.getChildren().add(infoBasica);
+    }
+
+    @Override
+    protected void updateItem(FilaMenuSemana fila, boolean empty) {
+        super.updateItem(fila, empty);
+        setText(null);
+        if (empty || fila == null) {
+            setGraphic(null);
+            return;
+        }
+
+        // Sangría según el nivel: día, horario, sección, producto
+        setStyle("-fx-background-color: transparent; -fx-padding: 2 4 2 " + SANGRIA[fila.tipo.ordinal()] + ";");
+        if (fila.tipo == FilaMenuSemana.Tipo.PRODUCTO) {
+            mostrarProducto(fila);
+            setGraphic(tarjeta);
+        } else {
+            mostrarEncabezado(fila);
+            setGraphic(encabezado);
+        }
+    }
+
+    private void mostrarEncabezado(FilaMenuSemana fila) {
+        lblEncabezado.setText(fila.texto);
+        switch (fila.tipo) {
+            case DIA:
+                encabezado.setStyle("-fx-padding: 12 0 0 0;");
+                lblEncabezado.setStyle("-fx-font-size: 16px; -fx-font-weight: bold; -fx-text-fill: #2c3e50; -fx-background-color: #e9ecef; -fx-padding: 8 12; -fx-background-radius: 6;");
+                break;
+            case HORARIO:
+                encabezado.setStyle("-fx-padding: 6 0 0 0;");
+                lblEncabezado.setStyle("-fx-font-size: 14px; -fx-font-weight: bold; -fx-text-fill: #495057;");
+                break;
+            case SECCION:
+                // Texto claro u oscuro según el color de fondo de la sección
+                String colorTexto = esColorOscuro(fila.color) ? "white" : "#2c3e50";
+                encabezado.setStyle("-fx-padding: 4 0 0 0;");
+                lblEncabezado.setStyle("-fx-font-size: 13px; -fx-font-weight: bold; -fx-text-fill: " + colorTexto +
+                        "; -fx-padding: 5 10; -fx-background-radius: 15; -fx-background-color: " + fila.color + ";");
+                break;
+            default:
+                encabezado.setStyle("-fx-padding: 4 0 4 0;");
+                lblEncabezado.setStyle("-fx-text-fill: #6c757d; -fx-font-style: italic;");
+        }
+    }
+
+    private void mostrarProducto(FilaMenuSemana fila) {
+        Producto producto = fila.producto;
+
+        lblNombre.setText(producto.getNombre());
+        // Precio vigente ahora (incluye especiales), desde las tablas del motor de precios
+        MotorPrecios precios = MotorPrecios.getInstance();
+        LocalDateTime ahora = LocalDateTime.now();
+        lblPrecio.setText(String.format("$%.2f", precioMostrado(precios, producto, 0, ahora)));
+        lblCalorias.setText(String.format("%.0f cal", producto.getCalorias()));
+
+        ObservableList<Node> hijos = tarjeta.getChildren();
+        hijos.remove(1, hijos.size());
+
+        if (producto.getDescripcion() != null && !producto.getDescripcion().isEmpty()) {
+            lblDescripcion.setText(producto.getDescripcion());
+            hijos.add(lblDescripcion);
+        }
+
+        // Tamaños disponibles, en un solo Label
+        StringBuilder tamanos = new StringBuilder();
+        for (TamanoProducto tamano : producto.getTamanos()) {
+            if (!tamano.isDisponible()) continue;
+            tamanos.append(tamanos.length() == 0 ? "📏 Tamaños disponibles:" : "")
+                    .append("\n  • ").append(tamano.getNombre())
+                    .append(" - $").append(String.format("%.2f", precioMostrado(precios, producto, tamano.getId(), ahora)));
+        }
+        if (tamanos.length() > 0) {
+            lblTamanos.setText(tamanos.toString());
+            hijos.add(lblTamanos);
+        }
+
+        acciones.getChildren().clear();
+        int numIngredientes = producto.getIngredientes().size();
+        if (numIngredientes > 0) {
+            btnIngredientes.setText((fila.expandido ? "▾ " : "▸ ") + "🥗 Ingredientes (" + numIngredientes + ")");
+            acciones.getChildren().add(btnIngredientes);
+        }
+        acciones.getChildren().add(btnDetalles);
+        hijos.add(acciones);
+
+        if (fila.expandido && numIngredientes > 0) {
+            llenarDetalleIngredientes(fila);
+            hijos.add(detalleIngredientes);
+        }
+    }
+
+    private void alternarIngredientes() {
+        FilaMenuSemana fila = getItem();
+        if (fila == null) return;
+        fila.expandido = !fila.expandido;
+        mostrarProducto(fila);
+        // La altura de la celda cambió: la lista vuelve a medir sus celdas
+        if (getListView() != null) getListView().requestLayout();
+    }
+
+    // Si el motor no conoce el producto o el tamaño (p. ej. recién eliminado), el precio guardado
+    private static double precioMostrado(MotorPrecios precios, Producto producto, int idTamano, LocalDateTime momento) {
+        double precio = precios.precio(producto.getId(), idTamano, momento);
+        if (precio >= 0) return precio;
+        if (idTamano == 0) return producto.getPrecioBase();
+        TamanoProducto tamano = producto.getTamano(idTamano);
+        return tamano != null ? tamano.getPrecio() : producto.getPrecioBase();
+    }
+
+    /**
+     * Detalle de ingredientes: opciones, alérgenos y sustitutos. Solo se arma al expandir.
+     */
+    private void llenarDetalleIngredientes(FilaMenuSemana fila) {
+        detalleIngredientes.getChildren().clear();
+        // Nombres vigentes por ID: las copias del producto pueden estar viejas
+        AllIngredientes allIngredientes = AllIngredientes.getInstance();
+
+        for (ProductoIngrediente ingrediente : fila.producto.getIngredientes()) {
+            Label lblIng = new Label("• " + allIngredientes.getNombre(
+                    ingrediente.getIdIngrediente(), ingrediente.getNombreIngrediente()));
+            lblIng.setStyle("-fx-font-size: 11px; -fx-text-fill: #2c3e50;");
+
+            // Indicadores de opciones
+            StringBuilder opciones = new StringBuilder();
+            StringBuilder ayuda = new StringBuilder();
+            if (ingrediente.isEliminable()) {
+                opciones.append("🚫 ");
+                ayuda.append("Puede eliminarse. ");
+            }
+            if (ingrediente.isSustituible()) {
+                opciones.append("🔄 ");
+                ayuda.append("Puede sustituirse. ");
+            }
+            if (fila.vista.esAlergenico(ingrediente.getIdIngrediente())) {
+                opciones.append("⚠️");
+                ayuda.append("Alergénico.");
+            }
+            Label lblOpciones = new Label(opciones.toString().trim());
+            lblOpciones.setStyle("-fx-font-size: 10px;");
+            if (ayuda.length() > 0) lblOpciones.setTooltip(new Tooltip(ayuda.toString().trim()));
+
+            Region spacerIng = new Region();
+            HBox.setHgrow(spacerIng, Priority.ALWAYS);
+            HBox ingRow = new HBox(5, lblIng, spacerIng, lblOpciones);
+            ingRow.setAlignment(Pos.CENTER_LEFT);
+            detalleIngredientes.getChildren().add(ingRow);
+
+            // Sustitutos disponibles
+            if (ingrediente.isSustituible()) {
+                for (Sustituto sustituto : ingrediente.getSustitutos()) {
+                    if (!sustituto.isDisponible()) continue;
+                    String texto = "  ↳ " + allIngredientes.getNombre(
+                            sustituto.getIdIngrediente(), sustituto.getNombreIngrediente());
+                    if (sustituto.getCostoExtra() > 0) {
+                        texto += String.format(" (+$%.2f)", sustituto.getCostoExtra());
+                    }
+                    Label lblSust = new Label(texto);
+                    lblSust.setStyle("-fx-font-size: 10px; -fx-text-fill: #6c757d; -fx-padding: 0 0 0 15;");
+                    detalleIngredientes.getChildren().add(lblSust);
+                }
+            }
+        }
+    }
+
+    /**
+     * Determina si un color hexadecimal es oscuro para ajustar el color del texto
+     */
+    static boolean esColorOscuro(String colorHex) {
+        try {
+            if (colorHex == null || colorHex.isEmpty())
+                return false;
+
+            // Asegurar que el color tenga formato #RRGGBB
+            String hex = colorHex.startsWith("#") ? colorHex.substring(1) : colorHex;
+            if (hex.length() == 3) {
+                // Expandir formato #RGB a #RRGGBB
+                hex = String.format("%c%c%c%c%c%c",
+                        hex.charAt(0), hex.charAt(0),
+                        hex.charAt(1), hex.charAt(1),
+                        hex.charAt(2), hex.charAt(2));
+            }
+
+            if (hex.length() != 6)
+                return false;
+
+            int r = Integer.parseInt(hex.substring(0, 2), 16);
+            int g = Integer.parseInt(hex.substring(2, 4), 16);
+            int b = Integer.parseInt(hex.substring(4, 6), 16);
+
+            // Luminosidad (fórmula estándar); menor a 0.5 es oscuro
+            double luminosidad = (0.299 * r + 0.587 * g + 0.114 * b) / 255;
+            return luminosidad < 0.5;
+
+        } catch (Exception e) {
+            // En caso de error, asumir que es claro
+            return false;
+        }
+    }
+}
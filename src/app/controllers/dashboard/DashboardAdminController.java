@@ -1,7 +1,9 @@
 package app.controllers.dashboard;
 
+import app.controllers.VistaLiberable;
 import core.SessionManager;
 import core.data.Users.User;
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
@@ -11,6 +13,10 @@ import javafx.scene.layout.AnchorPane;
 import javafx.stage.Stage;
 
 import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 public class DashboardAdminController {
 
@@ -35,6 +41,45 @@ public class DashboardAdminController {
 
     private final SessionManager session = SessionManager.getInstance();
 
+    // Vistas ya cargadas (FXML + controlador), por ruta, en orden de uso (LRU).
+    // Volver a una sección la muestra sin parsear el FXML ni rehacer el controlador;
+    // sus tablas se mantienen al día con CambiosFX. Una vista que sale de la caché
+    // (o todas, al cerrar sesión) se libera explícitamente: si solo se precargó,
+    // nunca estuvo en la escena y su GrupoTareas no se cerraría solo.
+    private static final int MAX_VISTAS_EN_CACHE = 4;
+    private static final boolean PRECARGAR_VISTAS = true;
+    private static final String[][] VISTAS_PRECARGA = {
+            { "Productos", "/app/views/productos/Productos.fxml" },
+            { "Ingredientes", "/app/views/ingredientes/Ingredientes.fxml" },
+            { "Avisos", "/app/views/avisos/Avisos.fxml" },
+    };
+    private final Map<String, VistaCargada> vistasCargadas = new LinkedHashMap<>(8, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, VistaCargada> eldest) {
+            if (size() <= MAX_VISTAS_EN_CACHE) return false;
+            eldest.getValue().liberar();
+            return true;
+        }
+    };
+    private final Map<String, Double> tiemposCargaMs = new LinkedHashMap<>();
+    private final Deque<String[]> precargaPendiente = new ArrayDeque<>();
+
+    private static final class VistaCargada {
+        final Parent raiz;
+        final Object controlador;
+
+        VistaCargada(Parent raiz, Object controlador) {
+            this.raiz = raiz;
+            this.controlador = controlador;
+        }
+
+        void liberar() {
+            if (controlador instanceof VistaLiberable) {
+                ((VistaLiberable) controlador).liberar();
+            }
+        }
+    }
+
     @FXML
     public void initialize() {
         try {
@@ -49,6 +94,9 @@ public class DashboardAdminController {
             // Vista por defecto al abrir el panel - comenzar con ingredientes si productos
             // no existe
             cargarVista("Menus", "/app/views/menus/Menus.fxml");
+            if (PRECARGAR_VISTAS) {
+                precargarVistas();
+            }
 
         } catch (Exception e) {
             e.printStackTrace();
@@ -90,6 +138,11 @@ public class DashboardAdminController {
     @FXML
     private void onCerrarSesionClicked() {
         session.logout();
+        // Sacar las vistas de la escena cierra sus tareas y suscripciones
+        precargaPendiente.clear();
+        contentArea.getChildren().clear();
+        for (VistaCargada vista : vistasCargadas.values()) vista.liberar();
+        vistasCargadas.clear();
         try {
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/app/views/sessions/Login.fxml"));
             Parent root = loader.load();
@@ -117,8 +170,7 @@ public class DashboardAdminController {
                 return;
             }
 
-            FXMLLoader loader = new FXMLLoader(resource);
-            Parent vista = loader.load();
+            Parent vista = obtenerVista(rutaFxml, resource);
 
             contentArea.getChildren().clear();
             contentArea.getChildren().add(vista);
@@ -147,6 +199,64 @@ public class DashboardAdminController {
         }
     }
 
+    /**
+     * Vista en caché o, si no está, recién cargada (se mide cuánto tarda)
+     */
+    private Parent obtenerVista(String rutaFxml, URL resource) throws java.io.IOException {
+        VistaCargada vista = vistasCargadas.get(rutaFxml);
+        if (vista != null) return vista.raiz;
+
+        long inicio = System.nanoTime();
+        FXMLLoader loader = new FXMLLoader(resource);
+        Parent raiz = loader.load();
+        tiemposCargaMs.put(rutaFxml, (System.nanoTime() - inicio) / 1_000_000.0);
+        vistasCargadas.put(rutaFxml, new VistaCargada(raiz, loader.getController()));
+        // Los tiempos medidos quedan a la vista del administrador
+        lblWelcome.setTooltip(new Tooltip(getEstadisticasVistas().replace(" | ", "\n")));
+        return raiz;
+    }
+
+    /**
+     * Después de mostrar el panel, carga las demás secciones frecuentes una por una
+     * en el hilo de JavaFX (cada una en su propio turno, para no congelar la ventana).
+     * Se detiene al llenar la caché para no desalojar la vista actual.
+     */
+    private void precargarVistas() {
+        for (String[] vista : VISTAS_PRECARGA) {
+            precargaPendiente.add(vista);
+        }
+        Platform.runLater(this::precargarSiguiente);
+    }
+
+    private void precargarSiguiente() {
+        String[] vista = precargaPendiente.poll();
+        if (vista == null || vistasCargadas.size() >= MAX_VISTAS_EN_CACHE) {
+            //System.out.println(getEstadisticasVistas());
+            return;
+        }
+        if (!vistasCargadas.containsKey(vista[1])) {
+            try {
+                URL resource = getClass().getResource(vista[1]);
+                if (resource != null) {
+                    obtenerVista(vista[1], resource);
+                }
+            } catch (Exception e) {
+                // Si falla se cargará (y mostrará el error) al abrir la sección
+                e.printStackTrace();
+            }
+        }
+        Platform.runLater(this::precargarSiguiente);
+    }
+
+    /**
+     * Tiempo de carga (FXML + controlador) de cada vista y cuántas hay en caché
+     */
+    public String getEstadisticasVistas() {
+        StringBuilder sb = new StringBuilder("Vistas en caché: " + vistasCargadas.size() + "/" + MAX_VISTAS_EN_CACHE);
+        tiemposCargaMs.forEach((ruta, ms) -> sb.append(String.format(" | %s: %.1f ms", ruta, ms)));
+        return sb.toString();
+    }
+
     // Muestra un mensaje cuando la vista no está disponible
     private void mostrarVistaNoDisponible(String nombreVista, String ruta) {
         Label mensaje = new Label("🚧 Vista no disponible\n\n" +
@@ -1,8 +1,8 @@
 // DashboardUserController.java
 package app.controllers.dashboard;
 
-import core.data.Ingredientes.AllIngredientes;
-import core.data.Ingredientes.Ingrediente;
+import app.controllers.CambiosFX;
+import app.controllers.GrupoTareas;
 import core.SessionManager;
 import core.data.Users.User;
 import core.data.Menus.*;
@@ -49,7 +49,7 @@ public class DashboardUserController {
     @FXML
     private Label lblSemanaActual;
     @FXML
-    private VBox vboxMenuContenido;
+    private ListView<FilaMenuSemana> listaMenu;
     @FXML
     private ComboBox<String> comboHorario;
     @FXML
@@ -70,6 +70,8 @@ public class DashboardUserController {
     private final AllAvisos allAvisos = AllAvisos.getInstance();
     private final AllProductosEspeciales allEspeciales = AllProductosEspeciales.getInstance();
     private final AllProductos allProductos = AllProductos.getInstance();
+    private final CacheMenuSemana cacheMenus = CacheMenuSemana.getInstance();
+    private final GrupoTareas tareas = new GrupoTareas();
 
     private LocalDate fechaActual = LocalDate.now();
     private int semanaActual;
@@ -77,6 +79,7 @@ public class DashboardUserController {
 
     @FXML
     public void initialize() {
+        tareas.cancelarAlCerrar(listaMenu);
         try {
             User current = session.getCurrentUser();
             if (current != null) {
@@ -85,6 +88,7 @@ public class DashboardUserController {
 
             configurarInterfaz();
             cargarDatosIniciales();
+            escucharCambios();
 
         } catch (Exception e) {
             e.printStackTrace();
@@ -98,6 +102,12 @@ public class DashboardUserController {
         comboHorario.setValue("Todos");
         comboHorario.setOnAction(e -> cargarMenuSemanal());
 
+        // Lista virtualizada del menú: celdas reciclables, detalle bajo demanda
+        listaMenu.setCellFactory(lista -> new CeldaMenuSemana(this::mostrarDetallesProducto));
+        Label lblSinMenu = new Label("No hay menú disponible para esta semana");
+        lblSinMenu.setStyle("-fx-text-fill: #7f8c8d; -fx-font-style: italic; -fx-padding: 20;");
+        listaMenu.setPlaceholder(lblSinMenu);
+
         // Configurar combo de filtros para avisos
         comboFiltroAvisos.getItems().addAll("Todos", "Cafetería", "Cafecito", "Importantes");
         comboFiltroAvisos.setValue("Todos");
@@ -115,6 +125,25 @@ public class DashboardUserController {
         cargarProductosEspeciales();
     }
 
+    /**
+     * Los cambios llegan en lotes al hilo de JavaFX. El menú solo se vuelve a
+     * armar si la caché descartó la semana que se está viendo.
+     */
+    private void escucharCambios() {
+        new CambiosFX<>(tareas, allMenus::suscribirMenus, c -> recargarMenuSiCambio());
+        new CambiosFX<>(tareas, allMenus::suscribirSecciones, c -> recargarMenuSiCambio());
+        new CambiosFX<>(tareas, allProductos::suscribir, c -> recargarMenuSiCambio());
+        new CambiosFX<>(tareas, AllIngredientes.getInstance()::suscribir, c -> recargarMenuSiCambio());
+        new CambiosFX<>(tareas, allAvisos::suscribir, c -> cargarAvisos());
+        new CambiosFX<>(tareas, allEspeciales::suscribir, c -> cargarProductosEspeciales());
+    }
+
+    private void recargarMenuSiCambio() {
+        if (!cacheMenus.estaEnCache(semanaActual, anioActual)) {
+            cargarMenuSemanal();
+        }
+    }
+
     
     // 📅 SECCIÓN DE MENÚ SEMANAL
     
@@ -124,6 +153,7 @@ public class DashboardUserController {
         fechaActual = fechaActual.minusWeeks(1);
         actualizarSemana();
         cargarMenuSemanal();
+        listaMenu.scrollTo(0);
     }
 
     @FXML
@@ -131,6 +161,7 @@ public class DashboardUserController {
         fechaActual = fechaActual.plusWeeks(1);
         actualizarSemana();
         cargarMenuSemanal();
+        listaMenu.scrollTo(0);
     }
 
     private void actualizarSemana() {
@@ -140,307 +171,64 @@ public class DashboardUserController {
     }
 
     private void cargarMenuSemanal() {
-        vboxMenuContenido.getChildren().clear();
         lblSemanaActual.setText("📅 Semana " + semanaActual + " del " + anioActual);
 
         try {
-            List<Menu> menusSemana = allMenus.getMenusBySemana(semanaActual, anioActual);
+            // La semana ya viene resuelta (secciones, productos, alérgenos) desde la caché
+            VistaMenuSemana vista = cacheMenus.obtener(semanaActual, anioActual);
             String horarioFiltro = comboHorario.getValue();
 
-            if (menusSemana.isEmpty()) {
-                Label lblVacio = new Label("No hay menú disponible para esta semana");
-                lblVacio.setStyle("-fx-text-fill: #7f8c8d; -fx-font-style: italic; -fx-padding: 20;");
-                vboxMenuContenido.getChildren().add(lblVacio);
-                return;
+            // Aplanar en renglones; la lista solo crea las celdas visibles
+            List<FilaMenuSemana> filas = new ArrayList<>();
+            for (VistaMenuSemana.Dia dia : vista.getDias()) {
+                boolean diaAgregado = false;
+                for (VistaMenuSemana.Horario horario : dia.getHorarios()) {
+                    if (!horarioFiltro.equals("Todos") && !horario.getHorario().equalsIgnoreCase(horarioFiltro))
+                        continue;
+                    if (!diaAgregado) {
+                        filas.add(FilaMenuSemana.dia(dia.getFecha()));
+                        diaAgregado = true;
+                    }
+                    agregarFilasHorario(filas, horario, vista);
+                }
             }
+            listaMenu.getItems().setAll(filas);
 
-            // Agrupar por día y ORDENAR DE LUNES A VIERNES
-            Map<LocalDate, List<Menu>> menusPorDia = menusSemana.stream()
-                    .filter(menu -> horarioFiltro.equals("Todos") || menu.getHorario().equalsIgnoreCase(horarioFiltro))
-                    .collect(Collectors.groupingBy(Menu::getFecha));
-
-            // Ordenar los días de lunes a viernes
-            List<LocalDate> diasOrdenados = menusPorDia.keySet().stream()
-                    .sorted()
-                    .collect(Collectors.toList());
-
-            // Mostrar en orden
-            diasOrdenados.forEach(fecha -> {
-                List<Menu> menusDia = menusPorDia.get(fecha);
-                VBox diaCard = crearCardDia(fecha, menusDia);
-                vboxMenuContenido.getChildren().add(diaCard);
-            });
+            // Semanas vecinas listas para anterior/siguiente
+            precargarSemana(fechaActual.minusWeeks(1));
+            precargarSemana(fechaActual.plusWeeks(1));
 
         } catch (Exception e) {
             e.printStackTrace();
+            listaMenu.getItems().clear();
             mostrarError("Error", "No se pudo cargar el menú: " + e.getMessage());
         }
     }
 
-    private VBox crearCardDia(LocalDate fecha, List<Menu> menusDia) {
-        VBox card = new VBox(10);
-        card.setStyle("-fx-background-color: white; -fx-border-color: #ddd; -fx-border-radius: 8; -fx-padding: 15;");
-        card.setPrefWidth(Region.USE_COMPUTED_SIZE);
-
-        // Formatear día de la semana en español
-        String[] diasSemana = { "LUNES", "MARTES", "MIÉRCOLES", "JUEVES", "VIERNES", "SÁBADO", "DOMINGO" };
-        int diaSemana = fecha.getDayOfWeek().getValue() - 1; // Lunes = 0, Domingo = 6
-        String nombreDia = diasSemana[diaSemana];
-
-        // Header del día - USAR COLOR OSCURO
-        Label lblDia = new Label(nombreDia + " - " + fecha.format(DateTimeFormatter.ofPattern("d 'de' MMMM")));
-        lblDia.setStyle(
-                "-fx-font-size: 16px; -fx-font-weight: bold; -fx-text-fill: #2c3e50; -fx-background-color: #e9ecef; -fx-padding: 8 12; -fx-background-radius: 6;");
-
-        HBox header = new HBox(lblDia);
-        header.setAlignment(Pos.CENTER_LEFT);
-        card.getChildren().add(header);
-
-        // Contenido por horario
-        menusDia.forEach(menu -> {
-            VBox horarioSection = crearSeccionHorario(menu);
-            card.getChildren().add(horarioSection);
-        });
-
-        return card;
-    }
-
-    private VBox crearSeccionHorario(Menu menu) {
-        VBox section = new VBox(8);
-        section.setStyle(
-                "-fx-background-color: #f8f9fa; -fx-border-color: #e9ecef; -fx-border-radius: 6; -fx-padding: 12;");
-
-        // Header del horario
-        Label lblHorario = new Label(menu.getHorario().equalsIgnoreCase("Desayuno") ? "🥚DESAYUNO" :"🍕COMIDA");
-        lblHorario.setStyle("-fx-font-size: 14px; -fx-font-weight: bold; -fx-text-fill: #495057;");
-
-        HBox header = new HBox(lblHorario);
-        header.setAlignment(Pos.CENTER_LEFT);
-        section.getChildren().add(header);
-
-        // Secciones del menú
-        List<MenuSeccion> secciones = menu.getSecciones();
-        if (secciones.isEmpty()) {
-            Label lblVacio = new Label("No hay platillos asignados para este horario");
-            lblVacio.setStyle("-fx-text-fill: #6c757d; -fx-font-style: italic;");
-            section.getChildren().add(lblVacio);
-        } else {
-            secciones.forEach(menuSeccion -> {
-                VBox seccionCard = crearCardSeccion(menuSeccion);
-                section.getChildren().add(seccionCard);
-            });
-        }
-
-        return section;
-    }
-
-    private VBox crearCardSeccion(MenuSeccion menuSeccion) {
-        VBox card = new VBox(8);
-        card.setStyle("-fx-background-color: white; -fx-border-color: #dee2e6; -fx-border-radius: 4; -fx-padding: 10;");
-
-        // Obtener la sección completa
-        SeccionMenu seccion = allMenus.getSeccionById(menuSeccion.getIdSeccion());
-        if (seccion == null)
-            return card;
+    private void agregarFilasHorario(List<FilaMenuSemana> filas, VistaMenuSemana.Horario horario, VistaMenuSemana vista) {
+        filas.add(FilaMenuSemana.horario(horario.getHorario()));
 
-        // Determinar si el color de fondo es oscuro para ajustar el texto
-        String colorFondo = seccion.getColor();
-        String colorTexto = esColorOscuro(colorFondo) ? "white" : "#2c3e50";
-
-        // Header de la sección con color - TEXTO AJUSTADO AUTOMÁTICAMENTE
-        Label lblSeccion = new Label("✔️" + seccion.getNombre());
-        lblSeccion.setStyle(
-                "-fx-font-size: 13px; -fx-font-weight: bold; -fx-text-fill: " + colorTexto +
-                        "; -fx-padding: 5 10; -fx-background-radius: 15;");
-        lblSeccion.setStyle(lblSeccion.getStyle() + "-fx-background-color: " + colorFondo + ";");
-
-        card.getChildren().add(lblSeccion);
-
-        // Productos de la sección
-        List<SeccionProducto> productosSeccion = seccion.getProductos();
-        if (productosSeccion.isEmpty()) {
-            Label lblVacio = new Label("No hay productos en esta sección");
-            lblVacio.setStyle("-fx-text-fill: #6c757d; -fx-font-style: italic;");
-            card.getChildren().add(lblVacio);
-        } else {
-            productosSeccion.forEach(seccionProducto -> {
-                VBox productoCard = crearCardProducto(seccionProducto);
-                card.getChildren().add(productoCard);
-            });
+        if (horario.getSecciones().isEmpty()) {
+            filas.add(FilaMenuSemana.vacio("No hay platillos asignados para este horario"));
+            return;
         }
 
-        return card;
-    }
+        for (VistaMenuSemana.Seccion seccion : horario.getSecciones()) {
+            filas.add(FilaMenuSemana.seccion(seccion.getNombre(), seccion.getColor()));
 
-    /**
-     * Determina si un color hexadecimal es oscuro para ajustar el color del texto
-     */
-    private boolean esColorOscuro(String colorHex) {
-        try {
-            if (colorHex == null || colorHex.isEmpty())
-                return false;
-
-            // Asegurar que el color tenga formato #RRGGBB
-            String hex = colorHex.startsWith("#") ? colorHex.substring(1) : colorHex;
-            if (hex.length() == 3) {
-                // Expandir formato #RGB a #RRGGBB
-                hex = String.format("%c%c%c%c%c%c",
-                        hex.charAt(0), hex.charAt(0),
-                        hex.charAt(1), hex.charAt(1),
-                        hex.charAt(2), hex.charAt(2));
+            if (seccion.getProductos().isEmpty()) {
+                filas.add(FilaMenuSemana.vacio("No hay productos en esta sección"));
+                continue;
+            }
+            for (Producto producto : seccion.getProductos()) {
+                filas.add(FilaMenuSemana.producto(producto, vista));
             }
-
-            if (hex.length() != 6)
-                return false;
-
-            // Convertir a componentes RGB
-            int r = Integer.parseInt(hex.substring(0, 2), 16);
-            int g = Integer.parseInt(hex.substring(2, 4), 16);
-            int b = Integer.parseInt(hex.substring(4, 6), 16);
-
-            // Calcular luminosidad (fórmula estándar)
-            double luminosidad = (0.299 * r + 0.587 * g + 0.114 * b) / 255;
-
-            // Si la luminosidad es menor a 0.5, es un color oscuro
-            return luminosidad < 0.5;
-
-        } catch (Exception e) {
-            // En caso de error, asumir que es claro
-            return false;
         }
     }
 
-    private VBox crearCardProducto(SeccionProducto seccionProducto) {
-        VBox card = new VBox(6);
-        card.setStyle(
-                "-fx-background-color: #f8f9fa; -fx-border-color: #e9ecef; -fx-border-radius: 4; -fx-padding: 8;");
-
-        // Obtener el producto completo
-        Producto producto = allProductos.getById(seccionProducto.getIdProducto());
-        if (producto == null)
-            return card;
-
-        // Información básica del producto - CORREGIDO: texto oscuro
-        HBox infoBasica = new HBox(10);
-        infoBasica.setAlignment(Pos.CENTER_LEFT);
-
-        Label lblNombre = new Label(producto.getNombre());
-        lblNombre.setStyle("-fx-font-weight: bold; -fx-font-size: 13px; -fx-text-fill: #2c3e50;"); // CORREGIDO
-
-        Label lblPrecio = new Label(String.format("$%.2f", producto.getPrecioBase()));
-        lblPrecio.setStyle("-fx-text-fill: #28a745; -fx-font-weight: bold;");
-
-        Region spacer = new Region();
-        HBox.setHgrow(spacer, Priority.ALWAYS);
-
-        Label lblCalorias = new Label(String.format("%.0f cal", producto.getCalorias()));
-        lblCalorias.setStyle("-fx-text-fill: #6c757d; -fx-font-size: 11px;");
-
-        infoBasica.getChildren().addAll(lblNombre, spacer, lblPrecio, lblCalorias);
-        card.getChildren().add(infoBasica);
-
-        // Descripción
-        if (producto.getDescripcion() != null && !producto.getDescripcion().isEmpty()) {
-            Label lblDesc = new Label(producto.getDescripcion());
-            lblDesc.setStyle("-fx-text-fill: #495057; -fx-font-size: 12px;");
-            lblDesc.setWrapText(true);
-            card.getChildren().add(lblDesc);
-        }
-
-        // Tamaños disponibles
-        List<TamanoProducto> tamanos = producto.getTamanos().stream()
-                .filter(TamanoProducto::isDisponible)
-                .collect(Collectors.toList());
-
-        if (!tamanos.isEmpty()) {
-            VBox tamanosBox = new VBox(4);
-            Label lblTamanos = new Label("📏 Tamaños disponibles:");
-            lblTamanos.setStyle("-fx-font-weight: bold; -fx-font-size: 11px; -fx-text-fill: #495057;");
-            tamanosBox.getChildren().add(lblTamanos);
-
-            tamanos.forEach(tamano -> {
-                Label lblTamano = new Label(
-                        "  • " + tamano.getNombre() + " - $" + String.format("%.2f", tamano.getPrecio()));
-                lblTamano.setStyle("-fx-font-size: 11px; -fx-text-fill: #6c757d;");
-                tamanosBox.getChildren().add(lblTamano);
-            });
-            card.getChildren().add(tamanosBox);
-        }
-
-        // Ingredientes
-        List<ProductoIngrediente> ingredientes = producto.getIngredientes();
-        if (!ingredientes.isEmpty()) {
-            VBox ingredientesBox = new VBox(4);
-            Label lblIngredientes = new Label("🥗 Ingredientes:");
-            lblIngredientes.setStyle("-fx-font-weight: bold; -fx-font-size: 11px; -fx-text-fill: #495057;");
-            ingredientesBox.getChildren().add(lblIngredientes);
-
-            ingredientes.forEach(ingrediente -> {
-                HBox ingRow = new HBox(5);
-                ingRow.setAlignment(Pos.CENTER_LEFT);
-
-                Label lblIng = new Label("• " + ingrediente.getNombreIngrediente());
-                lblIng.setStyle("-fx-font-size: 11px; -fx-text-fill: #2c3e50;"); // CORREGIDO: texto oscuro
-
-                // Indicadores de opciones
-                HBox opciones = new HBox(5);
-                if (ingrediente.isEliminable()) {
-                    Label lblEliminable = new Label("🚫");
-                    lblEliminable.setTooltip(new Tooltip("Puede eliminarse"));
-                    lblEliminable.setStyle("-fx-font-size: 10px;");
-                    opciones.getChildren().add(lblEliminable);
-                }
-                if (ingrediente.isSustituible()) {
-                    Label lblSustituible = new Label("🔄");
-                    lblSustituible.setTooltip(new Tooltip("Puede sustituirse"));
-                    lblSustituible.setStyle("-fx-font-size: 10px;");
-                    opciones.getChildren().add(lblSustituible);
-                }
-
-                // Obtener el ingrediente completo para verificar si es alergénico
-                Ingrediente ingredienteCompleto = AllIngredientes.getInstance().getById(ingrediente.getIdIngrediente());
-                if (ingredienteCompleto != null && ingredienteCompleto.isAlergenico()) {
-                    Label lblAlergenico = new Label("⚠️");
-                    lblAlergenico.setTooltip(new Tooltip("Alergénico"));
-                    lblAlergenico.setStyle("-fx-font-size: 10px;");
-                    opciones.getChildren().add(lblAlergenico);
-                }
-
-                Region spacerIng = new Region();
-                HBox.setHgrow(spacerIng, Priority.ALWAYS);
-
-                ingRow.getChildren().addAll(lblIng, spacerIng, opciones);
-                ingredientesBox.getChildren().add(ingRow);
-
-                // Mostrar sustitutos si los hay
-                if (ingrediente.isSustituible() && !ingrediente.getSustitutos().isEmpty()) {
-                    VBox sustitutosBox = new VBox(2);
-                    sustitutosBox.setStyle("-fx-padding: 0 0 0 15;");
-                    ingrediente.getSustitutos().stream()
-                            .filter(Sustituto::isDisponible)
-                            .forEach(sustituto -> {
-                                Label lblSust = new Label("  ↳ " + sustituto.getNombreIngrediente());
-                                lblSust.setStyle("-fx-font-size: 10px; -fx-text-fill: #6c757d;");
-                                if (sustituto.getCostoExtra() > 0) {
-                                    lblSust.setText(
-                                            lblSust.getText() + String.format(" (+$%.2f)", sustituto.getCostoExtra()));
-                                }
-                                sustitutosBox.getChildren().add(lblSust);
-                            });
-                    ingredientesBox.getChildren().add(sustitutosBox);
-                }
-            });
-            card.getChildren().add(ingredientesBox);
-        }
-
-        // Botón para ver detalles completos
-        Button btnDetalles = new Button("Ver detalles completos");
-        btnDetalles.setStyle(
-                "-fx-background-color: transparent; -fx-text-fill: #007bff; -fx-border-color: #007bff; -fx-border-width: 1; -fx-font-size: 11px;");
-        btnDetalles.setOnAction(e -> mostrarDetallesProducto(producto));
-        card.getChildren().add(btnDetalles);
-
-        return card;
+    private void precargarSemana(LocalDate fecha) {
+        int semana = fecha.get(java.time.temporal.WeekFields.of(java.util.Locale.getDefault()).weekOfWeekBasedYear());
+        cacheMenus.precargar(semana, fecha.getYear());
     }
 
     private void mostrarDetallesProducto(Producto producto) {
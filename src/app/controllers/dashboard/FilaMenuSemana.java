@@ -0,0 +1,55 @@
+package app.controllers.dashboard;
+
+import core.data.Menus.VistaMenuSemana;
+import core.data.Productos.Producto;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Renglón de la lista del menú semanal (DashboardUserController).
+ * El menú de la semana se aplana en encabezados (día, horario, sección),
+ * mensajes vacíos y productos, para que la ListView solo cree las celdas visibles.
+ */
+final class FilaMenuSemana {
+    enum Tipo { DIA, HORARIO, SECCION, PRODUCTO, VACIO }
+
+    private static final String[] DIAS_SEMANA = { "LUNES", "MARTES", "MIÉRCOLES", "JUEVES", "VIERNES", "SÁBADO", "DOMINGO" };
+    private static final DateTimeFormatter FORMATO_DIA = DateTimeFormatter.ofPattern("d 'de' MMMM");
+
+    final Tipo tipo;
+    final String texto;
+    final String color;       // solo SECCION
+    final Producto producto;  // solo PRODUCTO
+    final VistaMenuSemana vista; // solo PRODUCTO: semana de la que viene (alérgenos)
+    boolean expandido;        // PRODUCTO: detalle de ingredientes visible
+
+    private FilaMenuSemana(Tipo tipo, String texto, String color, Producto producto, VistaMenuSemana vista) {
+        this.tipo = tipo;
+        this.texto = texto;
+        this.color = color;
+        this.producto = producto;
+        this.vista = vista;
+    }
+
+    static FilaMenuSemana dia(LocalDate fecha) {
+        String nombreDia = DIAS_SEMANA[fecha.getDayOfWeek().getValue() - 1]; // Lunes = 0, Domingo = 6
+        return new FilaMenuSemana(Tipo.DIA, nombreDia + " - " + fecha.format(FORMATO_DIA), null, null, null);
+    }
+
+    static FilaMenuSemana horario(String horario) {
+        return new FilaMenuSemana(Tipo.HORARIO, horario.equalsIgnoreCase("Desayuno") ? "🥚DESAYUNO" : "🍕COMIDA", null, null, null);
+    }
+
+    static FilaMenuSemana seccion(String nombre, String color) {
+        return new FilaMenuSemana(Tipo.SECCION, "✔️" + nombre, color, null, null);
+    }
+
+    static FilaMenuSemana producto(Producto producto, VistaMenuSemana vista) {
+        return new FilaMenuSemana(Tipo.PRODUCTO, producto.getNombre(), null, producto, vista);
+    }
+
+    static FilaMenuSemana vacio(String mensaje) {
+        return new FilaMenuSemana(Tipo.VACIO, mensaje, null, null, null);
+    }
+}
@@ -1,8 +1,13 @@
 package app.controllers.ingredientes;
 
+import app.controllers.BuscadorDiferido;
+import app.controllers.CambiosFX;
+import app.controllers.GrupoTareas;
+import app.controllers.VistaLiberable;
 import core.SessionManager;
 import core.data.Ingredientes.AllIngredientes;
 import core.data.Ingredientes.Ingrediente;
+import core.data.Repositorio.Cambio;
 import javafx.application.Platform;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
@@ -24,7 +29,7 @@ import java.util.List;
  * eliminar.
  * Ahora usando AllIngredientes en lugar de servidor.
  */
-public class IngredientesController {
+public class IngredientesController implements VistaLiberable {
 
     @FXML
     private TextField txtBuscar;
@@ -53,9 +58,12 @@ public class IngredientesController {
 
     private final AllIngredientes allIngredientes = AllIngredientes.getInstance();
     private final SessionManager session = SessionManager.getInstance();
+    private final GrupoTareas tareas = new GrupoTareas();
+    private BuscadorDiferido<List<Ingrediente>> buscador;
 
     @FXML
     public void initialize() {
+        tareas.cancelarAlCerrar(tablaIngredientes);
         // Verificar permisos de administrador
         if (!session.isAdmin()) {
             mostrarError("Acceso denegado", "Solo los administradores pueden acceder a esta función.");
@@ -63,15 +71,13 @@ public class IngredientesController {
         }
 
         configurarTabla();
-        cargarIngredientes();
-
-        txtBuscar.textProperty().addListener((obs, o, n) -> {
-            if (n.isBlank())
-                cargarIngredientes();
 
-            else
-                buscarIngredientes(n);
-        });
+        // Búsqueda con debounce: solo se muestra el resultado de la última consulta
+        buscador = new BuscadorDiferido<>(txtBuscar, tareas, this::filtrarIngredientes, this::mostrarIngredientes);
+        buscador.setAlFallar(q -> lblEstado.setText(q.isBlank() ? "❌ Error al cargar ingredientes." : "❌ Error en búsqueda."));
+        // Altas, cambios y bajas se aplican a la tabla sin recargarla
+        new CambiosFX<>(tareas, allIngredientes::suscribir, this::aplicarCambios);
+        cargarIngredientes();
     }
 
     private void configurarTabla() {
@@ -135,46 +141,41 @@ public class IngredientesController {
     @FXML
     private void cargarIngredientes() {
         lblEstado.setText("Cargando ingredientes...");
-        tablaIngredientes.getItems().clear();
-
-        new Thread(() -> {
-            try {
-                List<Ingrediente> ingredientes = allIngredientes.getAll();
-                Platform.runLater(() -> {
-                    tablaIngredientes.getItems().addAll(ingredientes);
-                    lblEstado.setText("✅ Se cargaron " + ingredientes.size() + " ingredientes.");
-                });
-            } catch (Exception e) {
-                e.printStackTrace();
-                Platform.runLater(() -> lblEstado.setText("❌ Error al cargar ingredientes."));
-            }
-        }).start();
+        buscador.buscarAhora("");
     }
 
-    private void buscarIngredientes(String query) {
-        lblEstado.setText("Buscando \"" + query + "\"...");
-        tablaIngredientes.getItems().clear();
+    /**
+     * Buscar por nombre, categoría o descripción (en segundo plano), con el índice
+     * de texto del repositorio: sin acentos, por prefijo y ordenado por relevancia.
+     * Con la consulta vacía devuelve todos.
+     */
+    private List<Ingrediente> filtrarIngredientes(String query) {
+        if (query.isBlank()) return allIngredientes.getAll();
+        return allIngredientes.buscar(query);
+    }
 
-        new Thread(() -> {
-            try {
-                List<Ingrediente> todos = allIngredientes.getAll();
-                List<Ingrediente> resultados = todos.stream()
-                        .filter(ing -> ing.getNombre().toLowerCase().contains(query.toLowerCase()) ||
-                                (ing.getcategoria() != null
-                                        && ing.getcategoria().toLowerCase().contains(query.toLowerCase()))
-                                ||
-                                ing.getDescripcion().toLowerCase().contains(query.toLowerCase()))
-                        .toList();
+    private void mostrarIngredientes(String query, List<Ingrediente> resultados) {
+        tablaIngredientes.getItems().setAll(resultados);
+        if (query.isBlank())
+            lblEstado.setText("✅ Se cargaron " + resultados.size() + " ingredientes.");
+        else
+            lblEstado.setText("🔍 " + resultados.size() + " resultado(s).");
+    }
 
-                Platform.runLater(() -> {
-                    tablaIngredientes.getItems().addAll(resultados);
-                    lblEstado.setText("🔍 " + resultados.size() + " resultado(s).");
-                });
-            } catch (Exception e) {
-                e.printStackTrace();
-                Platform.runLater(() -> lblEstado.setText("❌ Error en búsqueda."));
-            }
-        }).start();
+    /**
+     * Con la lista completa aplica solo las diferencias; con una búsqueda activa
+     * (o tras una recarga) vuelve a ejecutar la consulta vigente
+     */
+    private void aplicarCambios(List<Cambio<Ingrediente>> cambios) {
+        String query = txtBuscar.getText();
+        if (!query.isBlank() || CambiosFX.incluyeRecarga(cambios)) {
+            buscador.buscarAhora(query);
+            return;
+        }
+        if (CambiosFX.aplicarEn(tablaIngredientes.getItems(), cambios, Ingrediente::getId)) {
+            tablaIngredientes.refresh();
+        }
+        lblEstado.setText("✅ " + tablaIngredientes.getItems().size() + " ingredientes.");
     }
 
     @FXML
@@ -204,18 +205,15 @@ public class IngredientesController {
         alert.setContentText("Esta acción no se puede deshacer.");
         alert.showAndWait().ifPresent(btn -> {
             if (btn == ButtonType.OK) {
-                new Thread(() -> {
+                tareas.ejecutarEscritura(() -> {
                     try {
                         allIngredientes.removeIngrediente(id);
-                        Platform.runLater(() -> {
-                            lblEstado.setText("Eliminar " + nombre + " eliminado correctamente.");
-                            cargarIngredientes();
-                        });
+                        Platform.runLater(() -> lblEstado.setText("Eliminar " + nombre + " eliminado correctamente."));
                     } catch (Exception e) {
                         e.printStackTrace();
                         Platform.runLater(() -> lblEstado.setText("❌ Error al eliminar."));
                     }
-                }).start();
+                });
             }
         });
     }
@@ -240,10 +238,9 @@ public class IngredientesController {
             stage.setScene(new Scene(root));
             stage.initModality(Modality.APPLICATION_MODAL);
             stage.setResizable(false);
+            // La tabla se actualiza sola con el cambio que guarde el formulario
             stage.showAndWait();
 
-            cargarIngredientes();
-
         } catch (Exception e) {
             e.printStackTrace();
             mostrarError("Error", "No se pudo abrir el formulario: " + e.getMessage());
@@ -258,4 +255,11 @@ public class IngredientesController {
         alert.showAndWait();
     }
 
-}
\ No newline at end of file
+    /**
+     * La llama el dashboard al descartar la vista de su caché
+     */
+    @Override
+    public void liberar() {
+        tareas.cerrar();
+    }
+}
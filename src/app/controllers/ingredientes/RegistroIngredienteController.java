@@ -1,5 +1,6 @@
 package app.controllers.ingredientes;
 
+import app.controllers.GrupoTareas;
 import core.data.Ingredientes.AllIngredientes;
 import core.data.Ingredientes.Ingrediente;
 import javafx.application.Platform;
@@ -22,10 +23,12 @@ public class RegistroIngredienteController {
     @FXML private Label lblTitulo;
 
     private final AllIngredientes allIngredientes = AllIngredientes.getInstance();
+    private final GrupoTareas tareas = new GrupoTareas();
     private Integer ingredienteIdEnEdicion = null; // Para modo edición
 
     @FXML
     public void initialize() {
+        tareas.cancelarAlCerrar(txtNombre);
         // Cargar categorías
         cbCategoria.getItems().addAll(
                 "Lácteos",
@@ -74,7 +77,7 @@ public class RegistroIngredienteController {
         lblStatus.setText("Guardando...");
 
         // Procesar en segundo plano para mantener UI responsive
-        new Thread(() -> {
+        tareas.ejecutarEscritura(() -> {
             try {
                 String nombre = txtNombre.getText().trim();
                 String descripcion = txtDescripcion.getText().trim();
@@ -135,7 +138,7 @@ public class RegistroIngredienteController {
                     btnRegistrar.setDisable(false);
                 });
             }
-        }).start();
+        });
     }
 
     private void limpiarCampos() {
@@ -1,5 +1,8 @@
 package app.controllers.menus;
 
+import app.controllers.CambiosFX;
+import app.controllers.GrupoTareas;
+import app.controllers.VistaLiberable;
 import core.data.Menus.AllMenus;
 import core.data.Menus.Menu;
 import core.data.Menus.MenuSeccion;
@@ -7,6 +10,7 @@ import core.data.Menus.SeccionMenu;
 import core.data.Menus.SeccionProducto;
 import core.data.Productos.AllProductos;
 import core.data.Productos.Producto;
+import core.data.Repositorio.Cambio;
 import core.SessionManager;
 import javafx.application.Platform;
 import javafx.beans.property.SimpleStringProperty;
@@ -34,7 +38,7 @@ import java.util.stream.Collectors;
  * productos
  * Ahora usando archivos JSON en lugar de base de datos
  */
-public class MenusController {
+public class MenusController implements VistaLiberable {
 
     
     // 📌 COMPONENTES MENÚS
@@ -87,6 +91,7 @@ public class MenusController {
     private final AllMenus allMenus = AllMenus.getInstance();
     private final AllProductos allProductos = AllProductos.getInstance();
     private final SessionManager session = SessionManager.getInstance();
+    private final GrupoTareas tareas = new GrupoTareas();
     private final ObservableList<SeccionMenu> seccionesData = FXCollections.observableArrayList();
     private List<Producto> productosDisponibles = new ArrayList<>();
 
@@ -100,6 +105,7 @@ public class MenusController {
     
     @FXML
     public void initialize() {
+        tareas.cancelarAlCerrar(tabPane);
         configurarSpinners();
         configurarMapa();
         configurarTablaSecciones();
@@ -140,6 +146,8 @@ public class MenusController {
     private void cargarDatosIniciales() {
         cargarProductosDisponibles();
         cargarSecciones();
+        // Las secciones creadas, editadas o eliminadas se aplican a la tabla sin recargarla
+        new CambiosFX<>(tareas, allMenus::suscribirSecciones, this::aplicarCambiosSecciones);
     }
 
     private void cargarProductosDisponibles() {
@@ -161,7 +169,7 @@ public class MenusController {
         lblStatus.setText("Cargando menú de la semana " + semanaActual + "/" + anioActual + "...");
         limpiarCalendario();
 
-        new Thread(() -> {
+        tareas.ejecutar(() -> {
             try {
                 List<Menu> menus = allMenus.getMenusBySemana(semanaActual, anioActual);
 
@@ -181,7 +189,7 @@ public class MenusController {
                 });
                 e.printStackTrace();
             }
-        }).start();
+        });
     }
 
     private void mostrarMenuEnCalendario(List<Menu> menus) {
@@ -219,7 +227,8 @@ public class MenusController {
     }
 
     private void agregarSeccionACelda(VBox celda, MenuSeccion menuSeccion) {
-        String nombre = menuSeccion.getNombreSeccion();
+        // Nombre vigente por ID; la copia del menú solo sirve de respaldo
+        String nombre = allMenus.getNombreSeccion(menuSeccion.getIdSeccion(), menuSeccion.getNombreSeccion());
         String color = "#3498db"; // Color por defecto
 
         // Buscar la sección para obtener su color
@@ -349,7 +358,7 @@ public class MenusController {
     private void eliminarMenu() {
         lblStatus.setText("Eliminando menú...");
 
-        new Thread(() -> {
+        tareas.ejecutarEscritura(() -> {
             try {
                 List<Menu> menus = allMenus.getMenusBySemana(semanaActual, anioActual);
                 for (Menu menu : menus) {
@@ -368,7 +377,7 @@ public class MenusController {
                 });
                 e.printStackTrace();
             }
-        }).start();
+        });
     }
 
     
@@ -468,14 +477,13 @@ public class MenusController {
 
     private void cargarSecciones() {
         lblStatus.setText("Cargando secciones...");
-        seccionesData.clear();
 
-        new Thread(() -> {
+        tareas.ejecutar(() -> {
             try {
                 List<SeccionMenu> secciones = allMenus.getAllSecciones();
 
                 Platform.runLater(() -> {
-                    seccionesData.addAll(secciones);
+                    seccionesData.setAll(secciones);
                     lblStatus.setText("✅ " + seccionesData.size() + " secciones cargadas");
                 });
             } catch (Exception e) {
@@ -484,7 +492,18 @@ public class MenusController {
                 });
                 e.printStackTrace();
             }
-        }).start();
+        });
+    }
+
+    private void aplicarCambiosSecciones(List<Cambio<SeccionMenu>> cambios) {
+        if (CambiosFX.incluyeRecarga(cambios)) {
+            cargarSecciones();
+            return;
+        }
+        if (CambiosFX.aplicarEn(seccionesData, cambios, SeccionMenu::getId)) {
+            tablaSecciones.refresh();
+        }
+        lblStatus.setText("✅ " + seccionesData.size() + " secciones");
     }
 
     @FXML
@@ -708,7 +727,7 @@ public class MenusController {
             List<Integer> productosSeleccionados) {
         lblStatus.setText("Creando sección...");
 
-        new Thread(() -> {
+        tareas.ejecutarEscritura(() -> {
             try {
                 // 1. Crear la sección
                 SeccionMenu nuevaSeccion = new SeccionMenu(
@@ -728,18 +747,15 @@ public class MenusController {
 
                 allMenus.addSeccion(nuevaSeccion);
 
-                Platform.runLater(() -> {
-                    lblStatus.setText("✅ Sección creada con " +
-                            productosSeleccionados.size() + " productos");
-                    cargarSecciones();
-                });
+                Platform.runLater(() -> lblStatus.setText("✅ Sección creada con " +
+                        productosSeleccionados.size() + " productos"));
             } catch (Exception e) {
                 Platform.runLater(() -> {
                     lblStatus.setText("❌ Error: " + e.getMessage());
                 });
                 e.printStackTrace();
             }
-        }).start();
+        });
     }
 
     /**
@@ -750,7 +766,7 @@ public class MenusController {
             List<Integer> productosNuevos) {
         lblStatus.setText("Actualizando sección...");
 
-        new Thread(() -> {
+        tareas.ejecutarEscritura(() -> {
             try {
                 // 1. Obtener la sección existente
                 SeccionMenu seccion = allMenus.getSeccionById(id);
@@ -782,17 +798,14 @@ public class MenusController {
                 // 4. Guardar cambios
                 allMenus.updateSeccion(seccion);
 
-                Platform.runLater(() -> {
-                    lblStatus.setText("✅ Sección actualizada correctamente");
-                    cargarSecciones();
-                });
+                Platform.runLater(() -> lblStatus.setText("✅ Sección actualizada correctamente"));
             } catch (Exception e) {
                 Platform.runLater(() -> {
                     lblStatus.setText("❌ Error: " + e.getMessage());
                 });
                 e.printStackTrace();
             }
-        }).start();
+        });
     }
 
     private void confirmarEliminarSeccion(SeccionMenu seccion) {
@@ -813,21 +826,18 @@ public class MenusController {
     private void eliminarSeccion(int id) {
         lblStatus.setText("Eliminando sección...");
 
-        new Thread(() -> {
+        tareas.ejecutarEscritura(() -> {
             try {
                 allMenus.removeSeccion(id);
 
-                Platform.runLater(() -> {
-                    lblStatus.setText("✅ Sección eliminada correctamente");
-                    cargarSecciones();
-                });
+                Platform.runLater(() -> lblStatus.setText("✅ Sección eliminada correctamente"));
             } catch (Exception e) {
                 Platform.runLater(() -> {
                     lblStatus.setText("❌ Error: " + e.getMessage());
                 });
                 e.printStackTrace();
             }
-        }).start();
+        });
     }
 
     
@@ -841,4 +851,12 @@ public class MenusController {
         alert.setContentText(mensaje);
         alert.showAndWait();
     }
-}
\ No newline at end of file
+
+    /**
+     * La llama el dashboard al descartar la vista de su caché
+     */
+    @Override
+    public void liberar() {
+        tareas.cerrar();
+    }
+}
@@ -1,9 +1,11 @@
 package app.controllers.menus;
 
+import app.controllers.GrupoTareas;
 import core.data.Menus.AllMenus;
 import core.data.Menus.Menu;
 import core.data.Menus.MenuSeccion;
 import core.data.Menus.SeccionMenu;
+import core.data.Repositorio.Lote;
 import core.SessionManager;
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
@@ -55,6 +57,7 @@ public class RegistroMenuController {
     
     private final AllMenus allMenus = AllMenus.getInstance();
     private final SessionManager session = SessionManager.getInstance();
+    private final GrupoTareas tareas = new GrupoTareas();
 
     private boolean modoEdicion = false;
     private boolean modoVisualizacion = false;
@@ -78,6 +81,7 @@ public class RegistroMenuController {
     
     @FXML
     public void initialize() {
+        tareas.cancelarAlCerrar(spinAnio);
         configurarSpinners();
         configurarMapaListas();
         cargarSeccionesDisponibles();
@@ -141,7 +145,7 @@ public class RegistroMenuController {
     }
 
     private void cargarSeccionesDisponibles() {
-        new Thread(() -> {
+        tareas.ejecutar(() -> {
             try {
                 List<SeccionMenu> secciones = allMenus.getAllSecciones();
                 
@@ -156,7 +160,7 @@ public class RegistroMenuController {
                 });
                 e.printStackTrace();
             }
-        }).start();
+        });
     }
 
     
@@ -358,18 +362,21 @@ public class RegistroMenuController {
         btnGuardar.setDisable(true);
         lblStatus.setText("Guardando menú...");
 
-        new Thread(() -> {
+        tareas.ejecutarEscritura(() -> {
             try {
-                if (modoEdicion) {
-                    // Eliminar menús existentes de esta semana
-                    List<Menu> menusExistentes = allMenus.getMenusBySemana(numeroSemana, anio);
-                    for (Menu menu : menusExistentes) {
-                        allMenus.removeMenu(menu.getId());
+                // Bajas y altas en un solo lote: se guardan juntas y la semana
+                // nunca se ve a medio reemplazar
+                allMenus.loteMenus(lote -> {
+                    if (modoEdicion) {
+                        // Eliminar menús existentes de esta semana
+                        for (Menu menu : allMenus.getMenusBySemana(numeroSemana, anio)) {
+                            lote.eliminar(menu.getId());
+                        }
                     }
-                }
 
-                // Crear nuevos menús
-                crearMenusSemana();
+                    // Crear nuevos menús
+                    crearMenusSemana(lote);
+                });
                 
                 Platform.runLater(() -> {
                     lblStatus.setText("✅ Menú guardado correctamente");
@@ -386,7 +393,7 @@ public class RegistroMenuController {
                 });
                 e.printStackTrace();
             }
-        }).start();
+        });
     }
 
     private boolean validarFormulario() {
@@ -412,7 +419,7 @@ public class RegistroMenuController {
         return true;
     }
 
-    private void crearMenusSemana() {
+    private void crearMenusSemana(Lote<Menu> lote) {
         String[] dias = {"Lunes", "Martes", "Miércoles", "Jueves", "Viernes"};
         String[] horarios = {"Desayuno", "Comida"};
         String fechaCreacion = LocalDate.now().toString();
@@ -462,8 +469,8 @@ public class RegistroMenuController {
                         }
                     }
 
-                    // Guardar el menú
-                    allMenus.addMenu(menu);
+                    // Se guarda junto con el resto del lote
+                    lote.agregar(menu);
                 }
             }
         }
@@ -489,7 +496,7 @@ public class RegistroMenuController {
     }
 
     private void cargarMenusExistentes() {
-        new Thread(() -> {
+        tareas.ejecutar(() -> {
             try {
                 List<Menu> menus = allMenus.getMenusBySemana(numeroSemana, anio);
                 
@@ -524,7 +531,7 @@ public class RegistroMenuController {
                 });
                 e.printStackTrace();
             }
-        }).start();
+        });
     }
 
     
@@ -1,8 +1,13 @@
 package app.controllers.productos;
 
+import app.controllers.BuscadorDiferido;
+import app.controllers.CambiosFX;
+import app.controllers.GrupoTareas;
+import app.controllers.VistaLiberable;
 import core.SessionManager;
 import core.data.Productos.AllProductos;
 import core.data.Productos.Producto;
+import core.data.Repositorio.Cambio;
 import javafx.application.Platform;
 import javafx.fxml.*;
 import javafx.scene.Parent;
@@ -20,7 +25,7 @@ import java.util.List;
  * Controlador para la gestión de productos.
  * Ahora usa AllProductos en lugar del servidor.
  */
-public class ProductosController {
+public class ProductosController implements VistaLiberable {
 
     @FXML private TextField txtBuscar;
     @FXML private Button btnRecargar, btnNuevo;
@@ -31,9 +36,12 @@ public class ProductosController {
 
     private final AllProductos allProductos = AllProductos.getInstance();
     private final SessionManager session = SessionManager.getInstance();
+    private final GrupoTareas tareas = new GrupoTareas();
+    private BuscadorDiferido<List<Producto>> buscador;
 
     @FXML
     public void initialize() {
+        tareas.cancelarAlCerrar(tablaProductos);
         // Verificar permisos de administrador
         if (!session.isAdmin()) {
             mostrarError("Acceso denegado", "Solo los administradores pueden acceder a esta función.");
@@ -41,14 +49,13 @@ public class ProductosController {
         }
 
         configurarTabla();
+
+        // Búsqueda con debounce: solo se muestra el resultado de la última consulta
+        buscador = new BuscadorDiferido<>(txtBuscar, tareas, this::filtrarProductos, this::mostrarProductos);
+        buscador.setAlFallar(q -> lblEstado.setText(q.isBlank() ? "❌ Error al cargar productos." : "❌ Error en búsqueda."));
+        // Altas, cambios y bajas se aplican a la tabla sin recargarla
+        new CambiosFX<>(tareas, allProductos::suscribir, this::aplicarCambios);
         cargarProductos();
-        
-        txtBuscar.textProperty().addListener((obs, o, n) -> {
-            if (n.isBlank())
-                cargarProductos();
-            else
-                buscarProductos(n);
-        });
     }
 
     private void configurarTabla() {
@@ -126,52 +133,41 @@ public class ProductosController {
     @FXML
     private void cargarProductos() {
         lblEstado.setText("Cargando productos...");
-        tablaProductos.getItems().clear();
-
-        new Thread(() -> {
-            try {
-                List<Producto> productos = allProductos.getAll();
-                
-                Platform.runLater(() -> {
-                    tablaProductos.getItems().addAll(productos);
-                    lblEstado.setText("✅ " + productos.size() + " productos cargados.");
-                });
-            } catch (Exception e) {
-                e.printStackTrace();
-                Platform.runLater(() -> lblEstado.setText("❌ Error al cargar productos."));
-            }
-        }).start();
+        buscador.buscarAhora("");
     }
 
     /**
-     * Buscar productos por nombre, categoría o descripción
+     * Buscar productos por nombre, categoría o descripción (en segundo plano), con el índice
+     * de texto del repositorio: sin acentos, por prefijo y ordenado por relevancia.
+     * Con la consulta vacía devuelve todos.
      */
-    private void buscarProductos(String query) {
-        lblEstado.setText("Buscando \"" + query + "\"...");
-        tablaProductos.getItems().clear();
+    private List<Producto> filtrarProductos(String query) {
+        if (query.isBlank()) return allProductos.getAll();
+        return allProductos.buscar(query);
+    }
 
-        new Thread(() -> {
-            try {
-                List<Producto> todos = allProductos.getAll();
-                String queryLower = query.toLowerCase();
-                
-                List<Producto> resultados = todos.stream()
-                    .filter(p -> 
-                        p.getNombre().toLowerCase().contains(queryLower) ||
-                        (p.getCategoria() != null && p.getCategoria().toLowerCase().contains(queryLower)) ||
-                        (p.getDescripcion() != null && p.getDescripcion().toLowerCase().contains(queryLower))
-                    )
-                    .toList();
+    private void mostrarProductos(String query, List<Producto> resultados) {
+        tablaProductos.getItems().setAll(resultados);
+        if (query.isBlank())
+            lblEstado.setText("✅ " + resultados.size() + " productos cargados.");
+        else
+            lblEstado.setText("🔍 " + resultados.size() + " resultado(s).");
+    }
 
-                Platform.runLater(() -> {
-                    tablaProductos.getItems().addAll(resultados);
-                    lblEstado.setText("🔍 " + resultados.size() + " resultado(s).");
-                });
-            } catch (Exception e) {
-                e.printStackTrace();
-                Platform.runLater(() -> lblEstado.setText("❌ Error en búsqueda."));
-            }
-        }).start();
+    /**
+     * Con la lista completa aplica solo las diferencias; con una búsqueda activa
+     * (o tras una recarga) vuelve a ejecutar la consulta vigente
+     */
+    private void aplicarCambios(List<Cambio<Producto>> cambios) {
+        String query = txtBuscar.getText();
+        if (!query.isBlank() || CambiosFX.incluyeRecarga(cambios)) {
+            buscador.buscarAhora(query);
+            return;
+        }
+        if (CambiosFX.aplicarEn(tablaProductos.getItems(), cambios, Producto::getId)) {
+            tablaProductos.refresh();
+        }
+        lblEstado.setText("✅ " + tablaProductos.getItems().size() + " productos.");
     }
 
     /**
@@ -212,19 +208,16 @@ public class ProductosController {
         
         confirm.showAndWait().ifPresent(btn -> {
             if (btn == ButtonType.OK) {
-                new Thread(() -> {
+                tareas.ejecutarEscritura(() -> {
                     try {
                         allProductos.removeProducto(id);
                         
-                        Platform.runLater(() -> {
-                            lblEstado.setText("Eliminar Producto eliminado correctamente.");
-                            cargarProductos();
-                        });
+                        Platform.runLater(() -> lblEstado.setText("Eliminar Producto eliminado correctamente."));
                     } catch (Exception e) {
                         e.printStackTrace();
                         Platform.runLater(() -> lblEstado.setText("❌ Error al eliminar."));
                     }
-                }).start();
+                });
             }
         });
     }
@@ -256,9 +249,8 @@ public class ProductosController {
             stage.setScene(new Scene(root));
             stage.initModality(Modality.APPLICATION_MODAL);
             stage.setResizable(false);
+            // La tabla se actualiza sola con el cambio que guarde el formulario
             stage.showAndWait();
-
-            cargarProductos();
             
         } catch (Exception e) {
             e.printStackTrace();
@@ -276,4 +268,12 @@ public class ProductosController {
         alert.setContentText(mensaje);
         alert.showAndWait();
     }
-}
\ No newline at end of file
+
+    /**
+     * La llama el dashboard al descartar la vista de su caché
+     */
+    @Override
+    public void liberar() {
+        tareas.cerrar();
+    }
+}
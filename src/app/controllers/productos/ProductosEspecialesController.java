@@ -1,11 +1,16 @@
 // ProductosEspecialesController.java
 package app.controllers.productos;
 
+import app.controllers.BuscadorDiferido;
+import app.controllers.CambiosFX;
+import app.controllers.GrupoTareas;
+import app.controllers.VistaLiberable;
 import core.SessionManager;
 import core.data.Productos.AllProductosEspeciales;
 import core.data.Productos.ProductoEspecial;
 import core.data.Productos.AllProductos;
 import core.data.Productos.Producto;
+import core.data.Repositorio.Cambio;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
@@ -25,7 +30,7 @@ import java.util.List;
 /**
  * Controlador para gestión de productos especiales
  */
-public class ProductosEspecialesController {
+public class ProductosEspecialesController implements VistaLiberable {
 
     @FXML
     private TextField txtBuscar;
@@ -55,9 +60,12 @@ public class ProductosEspecialesController {
     private final AllProductosEspeciales allEspeciales = AllProductosEspeciales.getInstance();
     private final AllProductos allProductos = AllProductos.getInstance();
     private final SessionManager session = SessionManager.getInstance();
+    private final GrupoTareas tareas = new GrupoTareas();
+    private BuscadorDiferido<List<ProductoEspecial>> buscador;
 
     @FXML
     public void initialize() {
+        tareas.cancelarAlCerrar(tablaEspeciales);
         // Verificar permisos de administrador
         if (!session.isAdmin()) {
             mostrarError("Acceso denegado", "Solo los administradores pueden acceder a esta función.");
@@ -65,14 +73,15 @@ public class ProductosEspecialesController {
         }
 
         configurarTabla();
-        cargarEspeciales();
 
-        txtBuscar.textProperty().addListener((obs, o, n) -> {
-            if (n.isBlank())
-                cargarEspeciales();
-            else
-                buscarEspeciales(n);
-        });
+        // Búsqueda con debounce: solo se muestra el resultado de la última consulta
+        buscador = new BuscadorDiferido<>(txtBuscar, tareas, this::filtrarEspeciales, this::mostrarEspeciales);
+        buscador.setAlFallar(q -> lblEstado.setText(q.isBlank() ? "❌ Error al cargar productos especiales." : "❌ Error en búsqueda."));
+        // Altas, cambios y bajas se aplican a la tabla sin recargarla; si cambia
+        // un producto solo se redibuja (la tabla muestra su nombre)
+        new CambiosFX<>(tareas, allEspeciales::suscribir, this::aplicarCambios);
+        new CambiosFX<>(tareas, allProductos::suscribir, cambios -> tablaEspeciales.refresh());
+        cargarEspeciales();
     }
 
     private void configurarTabla() {
@@ -173,60 +182,60 @@ public class ProductosEspecialesController {
     @FXML
     private void cargarEspeciales() {
         lblEstado.setText("Cargando productos especiales...");
-        tablaEspeciales.getItems().clear();
-
-        new Thread(() -> {
-            try {
-                List<ProductoEspecial> especiales = allEspeciales.getAll();
-                
-                Platform.runLater(() -> {
-                    tablaEspeciales.getItems().addAll(especiales);
-                    actualizarEstadisticas(especiales);
-                });
-            } catch (Exception e) {
-                e.printStackTrace();
-                Platform.runLater(() -> lblEstado.setText("❌ Error al cargar productos especiales."));
-            }
-        }).start();
+        buscador.buscarAhora("");
     }
 
-    private void buscarEspeciales(String query) {
-        lblEstado.setText("Buscando \"" + query + "\"...");
-        tablaEspeciales.getItems().clear();
-
-        new Thread(() -> {
-            try {
-                List<ProductoEspecial> todos = allEspeciales.getAll();
-                String queryLower = query.toLowerCase();
-                
-                List<ProductoEspecial> resultados = todos.stream()
-                    .filter(especial -> {
-                        // Buscar por nombre de producto
-                        Producto producto = allProductos.getById(especial.getIdProducto());
-                        if (producto != null && producto.getNombre().toLowerCase().contains(queryLower)) {
-                            return true;
-                        }
-                        // Buscar por descripción
-                        if (especial.getDescripcion() != null && 
-                            especial.getDescripcion().toLowerCase().contains(queryLower)) {
-                            return true;
-                        }
-                        // Buscar por rango de fechas y horas
-                        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
-                        String fechasHoras = especial.getFechaInicio().format(formatter) + " " + especial.getFechaFin().format(formatter);
-                        return fechasHoras.toLowerCase().contains(queryLower);
-                    })
-                    .toList();
-
-                Platform.runLater(() -> {
-                    tablaEspeciales.getItems().addAll(resultados);
-                    lblEstado.setText("🔍 " + resultados.size() + " resultado(s) encontrado(s).");
-                });
-            } catch (Exception e) {
-                e.printStackTrace();
-                Platform.runLater(() -> lblEstado.setText("❌ Error en búsqueda."));
-            }
-        }).start();
+    /**
+     * Buscar por producto, descripción o fechas (en segundo plano).
+     * Con la consulta vacía devuelve todos.
+     */
+    private List<ProductoEspecial> filtrarEspeciales(String query) {
+        List<ProductoEspecial> todos = allEspeciales.getAll();
+        if (query.isBlank()) return todos;
+
+        String queryLower = query.toLowerCase();
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+        return todos.stream()
+            .filter(especial -> {
+                // Buscar por nombre de producto
+                Producto producto = allProductos.getById(especial.getIdProducto());
+                if (producto != null && producto.getNombre().toLowerCase().contains(queryLower)) {
+                    return true;
+                }
+                // Buscar por descripción
+                if (especial.getDescripcion() != null && 
+                    especial.getDescripcion().toLowerCase().contains(queryLower)) {
+                    return true;
+                }
+                // Buscar por rango de fechas y horas
+                String fechasHoras = especial.getFechaInicio().format(formatter) + " " + especial.getFechaFin().format(formatter);
+                return fechasHoras.toLowerCase().contains(queryLower);
+            })
+            .toList();
+    }
+
+    private void mostrarEspeciales(String query, List<ProductoEspecial> resultados) {
+        tablaEspeciales.getItems().setAll(resultados);
+        if (query.isBlank())
+            actualizarEstadisticas(resultados);
+        else
+            lblEstado.setText("🔍 " + resultados.size() + " resultado(s) encontrado(s).");
+    }
+
+    /**
+     * Con la lista completa aplica solo las diferencias; con una búsqueda activa
+     * (o tras una recarga) vuelve a ejecutar la consulta vigente
+     */
+    private void aplicarCambios(List<Cambio<ProductoEspecial>> cambios) {
+        String query = txtBuscar.getText();
+        if (!query.isBlank() || CambiosFX.incluyeRecarga(cambios)) {
+            buscador.buscarAhora(query);
+            return;
+        }
+        if (CambiosFX.aplicarEn(tablaEspeciales.getItems(), cambios, ProductoEspecial::getId)) {
+            tablaEspeciales.refresh();
+        }
+        actualizarEstadisticas(tablaEspeciales.getItems());
     }
 
     private void actualizarEstadisticas(List<ProductoEspecial> especiales) {
@@ -262,18 +271,15 @@ public class ProductosEspecialesController {
         
         alert.showAndWait().ifPresent(btn -> {
             if (btn == ButtonType.OK) {
-                new Thread(() -> {
+                tareas.ejecutarEscritura(() -> {
                     try {
                         allEspeciales.removeProductoEspecial(especial.getId());
-                        Platform.runLater(() -> {
-                            lblEstado.setText("Eliminar Producto especial eliminado correctamente.");
-                            cargarEspeciales();
-                        });
+                        Platform.runLater(() -> lblEstado.setText("Eliminar Producto especial eliminado correctamente."));
                     } catch (Exception e) {
                         e.printStackTrace();
                         Platform.runLater(() -> lblEstado.setText("❌ Error al eliminar."));
                     }
-                }).start();
+                });
             }
         });
     }
@@ -301,9 +307,7 @@ public class ProductosEspecialesController {
             stage.initModality(Modality.APPLICATION_MODAL);
             stage.setResizable(false);
             
-            // Recargar cuando se cierre el formulario
-            stage.setOnHidden(e -> cargarEspeciales());
-            
+            // La tabla se actualiza sola con el cambio que guarde el formulario
             stage.showAndWait();
 
         } catch (Exception e) {
@@ -319,4 +323,12 @@ public class ProductosEspecialesController {
         alert.setContentText(mensaje);
         alert.showAndWait();
     }
-}
\ No newline at end of file
+
+    /**
+     * La llama el dashboard al descartar la vista de su caché
+     */
+    @Override
+    public void liberar() {
+        tareas.cerrar();
+    }
+}
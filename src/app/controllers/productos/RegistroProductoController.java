@@ -1,5 +1,6 @@
 package app.controllers.productos;
 
+import app.controllers.GrupoTareas;
 import core.SessionManager;
 import core.data.Ingredientes.AllIngredientes;
 import core.data.Ingredientes.Ingrediente;
@@ -22,8 +23,8 @@ import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * Controlador del formulario de registro/edición de productos.
@@ -84,9 +85,12 @@ public class RegistroProductoController {
     
     // Objetos de datos
     
+    private static final int MAX_SUGERENCIAS = 20; // ingredientes sugeridos al escribir
+
     private final AllProductos allProductos = AllProductos.getInstance();
     private final AllIngredientes allIngredientes = AllIngredientes.getInstance();
     private final SessionManager session = SessionManager.getInstance();
+    private final GrupoTareas tareas = new GrupoTareas();
 
     private final ObservableList<ProductoIngrediente> ingredientesSeleccionados = FXCollections.observableArrayList();
     private final ObservableList<TamanoProducto> tamanosDefinidos = FXCollections.observableArrayList(); // NUEVO
@@ -115,6 +119,7 @@ public class RegistroProductoController {
     
     @FXML
     public void initialize() {
+        tareas.cancelarAlCerrar(txtNombre);
         // Verificar permisos
         if (!session.isAdmin()) {
             mostrarAlerta("Acceso denegado", "Solo los administradores pueden acceder a esta función.");
@@ -372,30 +377,22 @@ public class RegistroProductoController {
         });
     }
 
+    /**
+     * Autocompletado por prefijo sobre los nombres de ingredientes. Es una búsqueda
+     * binaria en memoria (submilisegundo), así que corre directo en el hilo de JavaFX
+     * y no hay resultados atrasados que descartar.
+     */
     private void buscarIngrediente(String query) {
-        new Thread(() -> {
-            try {
-                List<Ingrediente> todos = allIngredientes.getAll();
-                String queryLower = query.toLowerCase();
-                
-                List<String> resultados = todos.stream()
-                    .filter(ing -> ing.getNombre().toLowerCase().contains(queryLower))
-                    .map(Ingrediente::getNombre)
-                    .filter(nombre -> {
-                        // Filtrar los que ya están seleccionados
-                        return ingredientesSeleccionados.stream()
-                                .noneMatch(pi -> pi.getNombreIngrediente().equalsIgnoreCase(nombre));
-                    })
-                    .collect(Collectors.toList());
+        BitSet seleccionados = new BitSet();
+        for (ProductoIngrediente pi : ingredientesSeleccionados) {
+            seleccionados.set(pi.getIdIngrediente());
+        }
 
-                Platform.runLater(() -> {
-                    listaIngredientesBuscados.getItems().clear();
-                    listaIngredientesBuscados.getItems().addAll(resultados);
-                });
-            } catch (Exception e) {
-                Platform.runLater(() -> lblStatus.setText("❌ Error buscando ingredientes: " + e.getMessage()));
-            }
-        }).start();
+        List<String> resultados = new ArrayList<>();
+        for (Ingrediente ing : allIngredientes.autocompletar(query, MAX_SUGERENCIAS, seleccionados)) {
+            resultados.add(ing.getNombre());
+        }
+        listaIngredientesBuscados.getItems().setAll(resultados);
     }
 
     private void agregarIngredienteSeleccionado(String nombreIngrediente) {
@@ -487,33 +484,20 @@ public class RegistroProductoController {
         ObservableList<Sustituto> listaSustitutos = FXCollections.observableArrayList(ingrediente.getSustitutos());
         tablaSustitutos.setItems(listaSustitutos);
 
-        // Búsqueda de ingredientes
+        // Búsqueda de ingredientes (sin el propio ingrediente ni los ya agregados)
         txtBuscar.textProperty().addListener((o, ov, nv) -> {
             if (nv.length() > 1) {
-                new Thread(() -> {
-                    try {
-                        List<Ingrediente> todos = allIngredientes.getAll();
-                        String queryLower = nv.toLowerCase();
-                        
-                        List<String> resultados = todos.stream()
-                            .filter(ing -> ing.getNombre().toLowerCase().contains(queryLower))
-                            .filter(ing -> !ing.getNombre().equalsIgnoreCase(ingrediente.getNombreIngrediente()))
-                            .map(Ingrediente::getNombre)
-                            .filter(nombre -> {
-                                // Filtrar los que ya están agregados como sustitutos
-                                return listaSustitutos.stream()
-                                        .noneMatch(s -> s.getNombreIngrediente().equalsIgnoreCase(nombre));
-                            })
-                            .collect(Collectors.toList());
+                BitSet excluidos = new BitSet();
+                excluidos.set(ingrediente.getIdIngrediente());
+                for (Sustituto s : listaSustitutos) {
+                    excluidos.set(s.getIdIngrediente());
+                }
 
-                        Platform.runLater(() -> {
-                            listaBusqueda.getItems().clear();
-                            listaBusqueda.getItems().addAll(resultados);
-                        });
-                    } catch (Exception ex) {
-                        Platform.runLater(() -> lblStatus.setText("Error: " + ex.getMessage()));
-                    }
-                }).start();
+                List<String> resultados = new ArrayList<>();
+                for (Ingrediente ing : allIngredientes.autocompletar(nv, MAX_SUGERENCIAS, excluidos)) {
+                    resultados.add(ing.getNombre());
+                }
+                listaBusqueda.getItems().setAll(resultados);
             } else {
                 listaBusqueda.getItems().clear();
             }
@@ -635,7 +619,7 @@ public class RegistroProductoController {
         btnRegistrar.setDisable(true);
         lblStatus.setText("Guardando producto...");
 
-        new Thread(() -> {
+        tareas.ejecutarEscritura(() -> {
             try {
                 String nombre = txtNombre.getText().trim();
                 String descripcion = txtDescripcion.getText().trim();
@@ -716,7 +700,7 @@ public class RegistroProductoController {
                     btnRegistrar.setDisable(false);
                 });
             }
-        }).start();
+        });
     }
 
     // ---------------------------------------------------
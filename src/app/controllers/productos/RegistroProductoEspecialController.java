@@ -1,6 +1,7 @@
 // RegistroProductoEspecialController.java
 package app.controllers.productos;
 
+import app.controllers.GrupoTareas;
 import core.SessionManager;
 import core.data.Productos.AllProductosEspeciales;
 import core.data.Productos.ProductoEspecial;
@@ -50,6 +51,7 @@ public class RegistroProductoEspecialController {
     private final AllProductosEspeciales allEspeciales = AllProductosEspeciales.getInstance();
     private final AllProductos allProductos = AllProductos.getInstance();
     private final SessionManager session = SessionManager.getInstance();
+    private final GrupoTareas tareas = new GrupoTareas();
 
     private boolean modoEdicion = false;
     private ProductoEspecial productoEspecialEditando = null;
@@ -61,6 +63,7 @@ public class RegistroProductoEspecialController {
     
     @FXML
     public void initialize() {
+        tareas.cancelarAlCerrar(cmbProducto);
         // Verificar permisos de administrador
         if (!session.isAdmin()) {
             mostrarAlerta("Acceso denegado", "Solo los administradores pueden acceder a esta función.");
@@ -118,7 +121,7 @@ public class RegistroProductoEspecialController {
     private void cargarProductos() {
         lblStatus.setText("Cargando productos...");
         
-        new Thread(() -> {
+        tareas.ejecutar(() -> {
             try {
                 List<Producto> productos = allProductos.getAll().stream()
                     .filter(Producto::isDisponible)
@@ -136,7 +139,7 @@ public class RegistroProductoEspecialController {
                 });
                 e.printStackTrace();
             }
-        }).start();
+        });
     }
 
     
@@ -149,7 +152,7 @@ public class RegistroProductoEspecialController {
         btnGuardar.setDisable(true);
         lblStatus.setText("Guardando producto especial...");
 
-        new Thread(() -> {
+        tareas.ejecutarEscritura(() -> {
             try {
                 Producto producto = cmbProducto.getValue();
                 String descripcion = txtDescripcion.getText().trim();
@@ -177,15 +180,17 @@ public class RegistroProductoEspecialController {
                 }
 
                 if (modoEdicion && productoEspecialEditando != null) {
-                    // Modo edición
-                    productoEspecialEditando.setIdProducto(producto.getId());
-                    productoEspecialEditando.setDescripcion(descripcion);
-                    productoEspecialEditando.setPrecioEspecial(precioEspecial);
-                    productoEspecialEditando.setFechaInicio(fechaInicio);
-                    productoEspecialEditando.setFechaFin(fechaFin);
-                    productoEspecialEditando.setActivo(activo);
-
-                    allEspeciales.updateProductoEspecial(productoEspecialEditando);
+                    // Modo edición: se guarda una copia, así el repositorio y sus índices
+                    // siguen viendo el especial anterior hasta el reemplazo
+                    ProductoEspecial editado = new ProductoEspecial(productoEspecialEditando.toJson());
+                    editado.setIdProducto(producto.getId());
+                    editado.setDescripcion(descripcion);
+                    editado.setPrecioEspecial(precioEspecial);
+                    editado.setFechaInicio(fechaInicio);
+                    editado.setFechaFin(fechaFin);
+                    editado.setActivo(activo);
+
+                    allEspeciales.updateProductoEspecial(editado);
 
                     Platform.runLater(() -> {
                         lblStatus.setText("✅ Producto especial actualizado correctamente");
@@ -230,7 +235,7 @@ public class RegistroProductoEspecialController {
                 });
                 e.printStackTrace();
             }
-        }).start();
+        });
     }
 
     @FXML
@@ -1,10 +1,12 @@
 package app.controllers.sessions;
 
+import app.controllers.GrupoTareas;
 import core.data.Users.AllUsers;
 import core.data.Users.User;
 import app.controllers.dashboard.DashboardRouter;
 import core.SessionManager;
 
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
@@ -17,10 +19,12 @@ public class LoginController {
     @FXML private TextField txtExpediente;   // campo de clave
     @FXML private PasswordField txtNip;      // campo de password
     @FXML private Label lblStatus;
+    @FXML private Button btnLogin;
     @FXML private Button btnGoSignup;
 
     private final AllUsers allUsers = AllUsers.getInstance();
     private final SessionManager sessionManager = SessionManager.getInstance();
+    private final GrupoTareas tareas = new GrupoTareas();
 
     /**
      * Acción al presionar el botón "Iniciar Sesión"
@@ -45,13 +49,25 @@ public class LoginController {
             return;
         }
 
-        // Validar NIP
-        if (!user.getPassword().equals(nip)) {
-            lblStatus.setText("❌ NIP incorrecto.");
-            lblStatus.setStyle("-fx-text-fill: red;");
-            return;
-        }
+        // Validar NIP en segundo plano: el hash (y su migración) no debe congelar la ventana
+        btnLogin.setDisable(true);
+        lblStatus.setText("⏳ Verificando...");
+        lblStatus.setStyle("-fx-text-fill: gray;");
+        tareas.ejecutar(() -> {
+            boolean valido = allUsers.verificarNip(user, nip);
+            Platform.runLater(() -> {
+                btnLogin.setDisable(false);
+                if (!valido) {
+                    lblStatus.setText("❌ NIP incorrecto.");
+                    lblStatus.setStyle("-fx-text-fill: red;");
+                    return;
+                }
+                iniciarSesion(user);
+            });
+        });
+    }
 
+    private void iniciarSesion(User user) {
         // Guardar sesión
         sessionManager.setCurrentUser(user);
 
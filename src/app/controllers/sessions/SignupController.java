@@ -1,8 +1,10 @@
 package app.controllers.sessions;
 
+import app.controllers.GrupoTareas;
 import core.SessionManager;
 import core.data.Users.AllUsers;
 import core.data.Users.User;
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
@@ -24,9 +26,11 @@ public class SignupController {
     @FXML private RadioButton rbAdministrador;
     @FXML private Label lblStatus;
     @FXML private HBox roleBox;
+    @FXML private Button btnRegistrar;
 
     private final AllUsers allUsers = AllUsers.getInstance();
     private final SessionManager sessionManager = SessionManager.getInstance();
+    private final GrupoTareas tareas = new GrupoTareas();
 
     @FXML
     private void initialize() {
@@ -69,13 +73,6 @@ public class SignupController {
             return;
         }
 
-        // Verificar si ya existe el expediente
-        if (allUsers.getUserByClave(clave) != null) {
-            lblStatus.setText("⚠️ El expediente ya está registrado.");
-            lblStatus.setStyle("-fx-text-fill: red;");
-            return;
-        }
-
         // Crear nuevo usuario
         User nuevo = new User(
             clave,           // username
@@ -96,13 +93,25 @@ public class SignupController {
             nuevo.setAdmin(false); // por defecto, usuario normal
         }
 
-        // Guardar el nuevo usuario
-        allUsers.addUser(nuevo);
-
-        lblStatus.setText("✅ Usuario registrado correctamente.");
-        lblStatus.setStyle("-fx-text-fill: green;");
-
-        limpiarCampos();
+        // Guardar el nuevo usuario (el hash del NIP se calcula fuera del hilo de JavaFX);
+        // AllUsers rechaza el expediente repetido, aunque otro registro vaya a la par
+        btnRegistrar.setDisable(true);
+        lblStatus.setText("⏳ Registrando...");
+        lblStatus.setStyle("-fx-text-fill: gray;");
+        tareas.ejecutarEscritura(() -> {
+            boolean agregado = allUsers.addUser(nuevo);
+            Platform.runLater(() -> {
+                btnRegistrar.setDisable(false);
+                if (!agregado) {
+                    lblStatus.setText("⚠️ El expediente ya está registrado.");
+                    lblStatus.setStyle("-fx-text-fill: red;");
+                    return;
+                }
+                lblStatus.setText("✅ Usuario registrado correctamente.");
+                lblStatus.setStyle("-fx-text-fill: green;");
+                limpiarCampos();
+            });
+        });
     }
 
     /**
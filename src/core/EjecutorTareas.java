@@ -0,0 +1,160 @@
+package core;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Executor compartido para el trabajo en segundo plano de los controladores.
+ * Sustituye a los "new Thread(...)" sueltos: un pool acotado de hilos con nombre
+ * (cafi-tarea-N, daemon) y una cola limitada. Si la cola se llena, la tarea corre
+ * en el hilo que la envió en lugar de perderse.
+ *
+ * Lleva métricas sencillas: tareas en cola, activas, completadas, tiempo de espera
+ * en cola y tiempo de ejecución (promedio y máximo).
+ */
+public class EjecutorTareas {
+    private static final int HILOS = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+    private static final int CAPACIDAD_COLA = 512;
+
+    private static EjecutorTareas instance;
+
+    private final ThreadPoolExecutor pool;
+
+    private final LongAdder completadas = new LongAdder();
+    private final LongAdder fallidas = new LongAdder();
+    private final LongAdder esperaTotalNanos = new LongAdder();
+    private final LongAdder ejecucionTotalNanos = new LongAdder();
+    private final AtomicLong esperaMaximaNanos = new AtomicLong();
+    private final AtomicLong ejecucionMaximaNanos = new AtomicLong();
+
+    private EjecutorTareas() {
+        AtomicInteger contador = new AtomicInteger(1);
+        pool = new ThreadPoolExecutor(HILOS, HILOS, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(CAPACIDAD_COLA),
+                r -> {
+                    Thread t = new Thread(r, "cafi-tarea-" + contador.getAndIncrement());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        pool.allowCoreThreadTimeOut(true);
+    }
+
+    public static synchronized EjecutorTareas getInstance() {
+        if (instance == null) {
+            instance = new EjecutorTareas();
+        }
+        return instance;
+    }
+
+    public Future<?> enviar(Runnable tarea) {
+        return enviar(tarea, null);
+    }
+
+    /**
+     * Envía una tarea; alTerminar (si no es null) se llama al completarse o cancelarse
+     */
+    public Future<?> enviar(Runnable tarea, Consumer<Future<?>> alTerminar) {
+        TareaMedida medida = new TareaMedida(tarea, alTerminar);
+        pool.execute(medida);
+        return medida;
+    }
+
+    // ==================== MÉTRICAS ====================
+
+    public int getTareasEnCola() {
+        return pool.getQueue().size();
+    }
+
+    public int getTareasActivas() {
+        return pool.getActiveCount();
+    }
+
+    public long getTareasCompletadas() {
+        return completadas.sum();
+    }
+
+    public double getEsperaPromedioMs() {
+        long n = completadas.sum();
+        return n == 0 ? 0 : esperaTotalNanos.sum() / 1_000_000.0 / n;
+    }
+
+    public double getEjecucionPromedioMs() {
+        long n = completadas.sum();
+        return n == 0 ? 0 : ejecucionTotalNanos.sum() / 1_000_000.0 / n;
+    }
+
+    public double getEsperaMaximaMs() {
+        return esperaMaximaNanos.get() / 1_000_000.0;
+    }
+
+    public double getEjecucionMaximaMs() {
+        return ejecucionMaximaNanos.get() / 1_000_000.0;
+    }
+
+    public String getEstadisticas() {
+        return String.format(
+                "Tareas - En cola: %d, Activas: %d, Completadas: %d, Con error: %d, " +
+                "Espera prom/máx: %.2f/%.2f ms, Ejecución prom/máx: %.2f/%.2f ms",
+                getTareasEnCola(), getTareasActivas(), getTareasCompletadas(), fallidas.sum(),
+                getEsperaPromedioMs(), getEsperaMaximaMs(),
+                getEjecucionPromedioMs(), getEjecucionMaximaMs()
+        );
+    }
+
+    private static void actualizarMaximo(AtomicLong maximo, long valor) {
+        long actual;
+        while (valor > (actual = maximo.get()) && !maximo.compareAndSet(actual, valor)) {
+            // reintentar
+        }
+    }
+
+    /**
+     * FutureTask que mide su espera en cola y su ejecución
+     */
+    private class TareaMedida extends FutureTask<Object> {
+        private final long enviadaNanos = System.nanoTime();
+        private final Consumer<Future<?>> alTerminar;
+
+        TareaMedida(Runnable tarea, Consumer<Future<?>> alTerminar) {
+            super(tarea, null);
+            this.alTerminar = alTerminar;
+        }
+
+        @Override
+        public void run() {
+            if (isDone()) return; // cancelada mientras esperaba en cola
+            long inicio = System.nanoTime();
+            try {
+                super.run();
+            } finally {
+                long fin = System.nanoTime();
+                esperaTotalNanos.add(inicio - enviadaNanos);
+                ejecucionTotalNanos.add(fin - inicio);
+                actualizarMaximo(esperaMaximaNanos, inicio - enviadaNanos);
+                actualizarMaximo(ejecucionMaximaNanos, fin - inicio);
+                completadas.increment();
+            }
+        }
+
+        @Override
+        protected void setException(Throwable t) {
+            // Mismo criterio que los controladores: se imprime y se sigue
+            fallidas.increment();
+            t.printStackTrace();
+            super.setException(t);
+        }
+
+        @Override
+        protected void done() {
+            if (alTerminar != null) alTerminar.accept(this);
+        }
+    }
+}
@@ -1,64 +1,92 @@
 // AllAvisos.java
 package core.data.Avisos;
 
-import org.json.JSONArray;
-import org.json.JSONObject;
+import core.data.Persistencia.ArchivoDatos;
+import core.data.Persistencia.PlanificadorGuardado;
+import core.data.Repositorio.Cambio;
+import core.data.Repositorio.CargaDiferida;
+import core.data.Repositorio.IndiceInvertido;
+import core.data.Repositorio.IndiceVigencia;
+import core.data.Repositorio.RepositorioIndexado;
 import java.io.File;
-import java.io.FileWriter;
-import java.nio.file.Files;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
  * Singleton para gestionar todos los avisos
  */
 public class AllAvisos {
-    private static AllAvisos instance;
-    private final List<Aviso> avisos = new ArrayList<>();
+    private static final CargaDiferida<AllAvisos> carga = new CargaDiferida<>(AllAvisos::new);
+    private final RepositorioIndexado<Aviso> avisos = new RepositorioIndexado<>(Aviso::getId);
+    private final IndiceInvertido<Aviso> indiceTexto = avisos.agregarIndice(
+            new IndiceInvertido<Aviso>()
+                    .campo(Aviso::getTitulo, 3)
+                    .campo(a -> a.getEstablecimiento() == null ? null : a.getEstablecimiento().name(), 2)
+                    .campo(a -> a.getTipoAviso() == null ? null : a.getTipoAviso().name(), 2)
+                    .campo(Aviso::getContenido, 1));
     private final String FILE_PATH = "data/avisos.json";
+    // Serializa las escrituras del archivo; no es el candado de las mutaciones,
+    // que no deben esperar al disco
+    private final Object snapshotLock = new Object();
     private int nextId = 1;
+    // Índice de intervalos [fechaInicio, fechaFin]; se consulta sin candado
+    private final IndiceVigencia<Aviso> vigencia =
+            new IndiceVigencia<>(avisos, Aviso::getFechaInicio, Aviso::getFechaFin);
 
     private AllAvisos() {
         loadFromFile();
     }
 
     public static AllAvisos getInstance() {
-        if (instance == null) {
-            instance = new AllAvisos();
-        }
-        return instance;
+        return carga.obtener();
+    }
+
+    /**
+     * Arranca la carga del archivo en segundo plano (ver Main)
+     */
+    public static CompletableFuture<AllAvisos> cargarAsync(Executor executor) {
+        return carga.iniciar(executor);
     }
 
-    public void addAviso(Aviso aviso) {
+    /**
+     * Se completa cuando los datos ya están en memoria
+     */
+    public static CompletableFuture<AllAvisos> listo() {
+        return carga.futuro();
+    }
+
+    public synchronized void addAviso(Aviso aviso) {
         if (aviso.getId() == 0) {
             aviso.setId(nextId++);
         }
-        avisos.add(aviso);
-        saveToFile();
+        avisos.agregar(aviso);
+        guardarDespues();
     }
 
-    public void updateAviso(Aviso nuevo) {
-        for (int idx = 0; idx < avisos.size(); idx++) {
-            if (avisos.get(idx).getId() == nuevo.getId()) {
-                avisos.set(idx, nuevo);
-                saveToFile();
-                return;
-            }
+    public synchronized void updateAviso(Aviso nuevo) {
+        if (avisos.actualizar(nuevo)) {
+            guardarDespues();
         }
     }
 
-    public void removeAviso(int id) {
-        avisos.removeIf(aviso -> aviso.getId() == id);
-        saveToFile();
+    public synchronized void removeAviso(int id) {
+        avisos.eliminar(id);
+        guardarDespues();
+    }
+
+    /**
+     * Suscribe un oyente a los cambios de avisos; el Runnable devuelto lo da de baja
+     */
+    public Runnable suscribir(Consumer<List<Cambio<Aviso>>> oyente) {
+        return avisos.suscribir(oyente);
     }
 
     public Aviso getById(int id) {
-        return avisos.stream()
-                .filter(aviso -> aviso.getId() == id)
-                .findFirst()
-                .orElse(null);
+        return avisos.obtener(id);
     }
 
     public List<Aviso> getByEstablecimiento(Aviso.Establecimiento establecimiento) {
@@ -75,8 +103,8 @@ public class AllAvisos {
     }
 
     public List<Aviso> getAvisosParaFecha(LocalDateTime fechaHora) {
-        return avisos.stream()
-                .filter(aviso -> aviso.estaActivoParaFechaHora(fechaHora))
+        return vigencia.todos().enInstante(fechaHora).stream()
+                .filter(Aviso::isActivo)
                 .collect(Collectors.toList());
     }
 
@@ -97,14 +125,21 @@ public class AllAvisos {
     }
 
     public List<Aviso> getAll() {
-        return new ArrayList<>(avisos);
+        return avisos.getAll();
+    }
+
+    /**
+     * Búsqueda de texto por título, contenido, establecimiento y tipo, sin distinguir
+     * acentos. Ordenada por relevancia.
+     */
+    public List<Aviso> buscar(String consulta) {
+        return indiceTexto.buscar(consulta);
     }
 
     // Método para obtener avisos vigentes por establecimiento
     public List<Aviso> getAvisosVigentesPorEstablecimiento(Aviso.Establecimiento establecimiento) {
-        return avisos.stream()
-                .filter(aviso -> aviso.estaVigente() && 
-                                (aviso.getEstablecimiento() == establecimiento || 
+        return getAvisosVigentes().stream()
+                .filter(aviso -> (aviso.getEstablecimiento() == establecimiento || 
                                  aviso.getEstablecimiento() == Aviso.Establecimiento.Ambos))
                 .collect(Collectors.toList());
     }
@@ -118,21 +153,16 @@ public class AllAvisos {
                 return;
             }
 
-            String content = Files.readString(file.toPath());
-            if (content.isBlank()) return;
-
-            JSONArray array = new JSONArray(content);
-            avisos.clear();
+            // Lectura en streaming: cada objeto se convierte a Aviso al terminar de leerse
+            List<Aviso> cargados = ArchivoDatos.leer(file.getPath(), Aviso::new);
 
             int maxId = 0;
-            for (int i = 0; i < array.length(); i++) {
-                JSONObject obj = array.getJSONObject(i);
-                Aviso aviso = new Aviso(obj);
-                avisos.add(aviso);
+            for (Aviso aviso : cargados) {
                 if (aviso.getId() > maxId) {
                     maxId = aviso.getId();
                 }
             }
+            avisos.cargar(cargados);
             nextId = maxId + 1;
 
         } catch (Exception e) {
@@ -141,29 +171,25 @@ public class AllAvisos {
         }
     }
 
+    // Agenda la escritura en el hilo de E/S; varias mutaciones seguidas se guardan juntas
+    private void guardarDespues() {
+        PlanificadorGuardado.getInstance().marcarSucio(FILE_PATH, this::saveToFile);
+    }
+
     public void saveToFile() {
-        try {
-            JSONArray array = new JSONArray();
-            for (Aviso aviso : avisos) {
-                array.put(aviso.toJson());
+        synchronized (snapshotLock) {
+            try {
+                ArchivoDatos.escribir(FILE_PATH, avisos.elementos(), Aviso::toJson);
+            } catch (Exception e) {
+                //System.err.println("Error guardando avisos en archivo:");
+                e.printStackTrace();
             }
-
-            File file = new File(FILE_PATH);
-            file.getParentFile().mkdirs();
-
-            FileWriter writer = new FileWriter(file);
-            writer.write(array.toString(4)); // JSON legible
-            writer.close();
-
-        } catch (Exception e) {
-            //System.err.println("Error guardando avisos en archivo:");
-            e.printStackTrace();
         }
     }
 
     // Método para obtener estadísticas
     public String getEstadisticas() {
-        int total = avisos.size();
+        int total = avisos.tamano();
         int activos = (int) avisos.stream().filter(Aviso::isActivo).count();
         int vigentes = getAvisosVigentes().size();
         int importantes = getAvisosImportantes().size();
@@ -173,25 +199,22 @@ public class AllAvisos {
     }
 
     // Método para limpiar avisos expirados (más de 30 días)
-    public void limpiarExpirados() {
+    public synchronized void limpiarExpirados() {
         LocalDateTime limite = LocalDateTime.now().minusDays(30);
         int removidos = (int) avisos.stream()
                 .filter(aviso -> aviso.getFechaFin().isBefore(limite))
                 .count();
         
-        avisos.removeIf(aviso -> aviso.getFechaFin().isBefore(limite));
+        avisos.eliminarSi(aviso -> aviso.getFechaFin().isBefore(limite));
         
         if (removidos > 0) {
-            saveToFile();
+            guardarDespues();
             //System.out.println("Se removieron " + removidos + " avisos expirados");
         }
     }
 
     // Método para obtener avisos por rango de fechas
     public List<Aviso> getAvisosPorRango(LocalDateTime inicio, LocalDateTime fin) {
-        return avisos.stream()
-                .filter(aviso -> !aviso.getFechaInicio().isAfter(fin) && 
-                                !aviso.getFechaFin().isBefore(inicio))
-                .collect(Collectors.toList());
+        return vigencia.todos().enRango(inicio, fin);
     }
 }
\ No newline at end of file
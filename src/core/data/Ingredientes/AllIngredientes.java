@@ -1,18 +1,40 @@
 package core.data.Ingredientes;
 
-import org.json.JSONArray;
-import org.json.JSONObject;
+import core.data.Persistencia.ArchivoDatos;
+import core.data.Productos.AllProductos;
+import core.data.Persistencia.PlanificadorGuardado;
+import core.data.Repositorio.Cambio;
+import core.data.Repositorio.CargaDiferida;
+import core.data.Repositorio.IndiceAutocompletar;
+import core.data.Repositorio.IndiceInvertido;
+import core.data.Repositorio.IndiceNombres;
+import core.data.Repositorio.RepositorioIndexado;
 
 import java.io.File;
-import java.io.FileWriter;
-import java.nio.file.Files;
-import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
 
 public class AllIngredientes {
-    private static AllIngredientes instance;
-    private final List<Ingrediente> ingredientes = new ArrayList<>();
+    private static final CargaDiferida<AllIngredientes> carga = new CargaDiferida<>(AllIngredientes::new);
+    private final RepositorioIndexado<Ingrediente> ingredientes = new RepositorioIndexado<>(Ingrediente::getId);
+    private final IndiceInvertido<Ingrediente> indiceTexto = ingredientes.agregarIndice(
+            new IndiceInvertido<Ingrediente>()
+                    .campo(Ingrediente::getNombre, 3)
+                    .campo(Ingrediente::getcategoria, 2)
+                    .campo(Ingrediente::getDescripcion, 1));
+    private final IndiceAutocompletar<Ingrediente> autocompletar = ingredientes.agregarIndice(
+            new IndiceAutocompletar<>(Ingrediente::getNombre));
+    private final IndiceNombres<Ingrediente> nombres = ingredientes.agregarIndice(
+            new IndiceNombres<>(Ingrediente::getNombre));
     private final String FILE_PATH = "data/ingredientes.json";
+    // Serializa las escrituras del archivo; no es el candado de las mutaciones,
+    // que no deben esperar al disco
+    private final Object snapshotLock = new Object();
     private int nextId = 1; // simulación de AUTO_INCREMENT
 
     private AllIngredientes() {
@@ -20,38 +42,77 @@ public class AllIngredientes {
     }
 
     public static AllIngredientes getInstance() {
-        if (instance == null) {
-            instance = new AllIngredientes();
-        }
-        return instance;
+        return carga.obtener();
+    }
+
+    /**
+     * Arranca la carga del archivo en segundo plano (ver Main)
+     */
+    public static CompletableFuture<AllIngredientes> cargarAsync(Executor executor) {
+        return carga.iniciar(executor);
     }
 
-    public void addIngrediente(Ingrediente i) {
+    /**
+     * Se completa cuando los datos ya están en memoria
+     */
+    public static CompletableFuture<AllIngredientes> listo() {
+        return carga.futuro();
+    }
+
+    public synchronized void addIngrediente(Ingrediente i) {
         // Si no tiene ID (nuevo registro), asignamos el siguiente disponible
         if (i.getId() == 0) {
             i.setId(nextId++);
         }
-        ingredientes.add(i);
-        saveToFile();
+        ingredientes.agregar(i);
+        guardarDespues();
     }
 
+    /**
+     * Si cambió el nombre, se propaga a las copias que guardan los productos
+     * (solo a los que usan el ingrediente). Eso ocurre fuera del candado de
+     * AllIngredientes para no anidarlo con el de AllProductos.
+     */
     public void updateIngrediente(Ingrediente nuevo) {
-        for (int idx = 0; idx < ingredientes.size(); idx++) {
-            if (ingredientes.get(idx).getId() == nuevo.getId()) {
-                ingredientes.set(idx, nuevo);
-                saveToFile();
-                return;
-            }
+        String nombreAnterior;
+        synchronized (this) {
+            nombreAnterior = nombres.obtener(nuevo.getId());
+            if (!ingredientes.actualizar(nuevo)) return;
+            guardarDespues();
         }
+        if (nombreAnterior != null && !Objects.equals(nombreAnterior, nuevo.getNombre())) {
+            AllProductos.getInstance().renombrarIngrediente(nuevo.getId(), nuevo.getNombre());
+        }
+    }
+
+    public synchronized void removeIngrediente(int id) {
+        ingredientes.eliminar(id);
+        guardarDespues();
     }
 
-    public void removeIngrediente(int id) {
-        ingredientes.removeIf(i -> i.getId() == id);
-        saveToFile();
+    /**
+     * Suscribe un oyente a los cambios de ingredientes; el Runnable devuelto lo da de baja
+     */
+    public Runnable suscribir(Consumer<List<Cambio<Ingrediente>>> oyente) {
+        return ingredientes.suscribir(oyente);
+    }
+
+    /**
+     * Avisa el ID de cada ingrediente agregado, actualizado o eliminado
+     */
+    public void alCambiar(IntConsumer oyente) {
+        ingredientes.alCambiar(oyente);
     }
 
     public Ingrediente getById(int id) {
-        return ingredientes.stream().filter(i -> i.getId() == id).findFirst().orElse(null);
+        return ingredientes.obtener(id);
+    }
+
+    /**
+     * Nombre vigente del ingrediente, o respaldo si ya no existe
+     */
+    public String getNombre(int id, String respaldo) {
+        return nombres.obtener(id, respaldo);
     }
 
     public Ingrediente getByNombre(String nombre) {
@@ -61,7 +122,24 @@ public class AllIngredientes {
     }
 
     public List<Ingrediente> getAll() {
-        return new ArrayList<>(ingredientes);
+        return ingredientes.getAll();
+    }
+
+    /**
+     * Búsqueda de texto por nombre, categoría y descripción, sin distinguir acentos.
+     * Ordenada por relevancia.
+     */
+    public List<Ingrediente> buscar(String consulta) {
+        return indiceTexto.buscar(consulta);
+    }
+
+    /**
+     * Autocompletado por nombre: hasta limite ingredientes cuyo nombre, o alguna de
+     * sus palabras, empieza con el prefijo (sin distinguir acentos). Los IDs marcados
+     * en excluidos se omiten.
+     */
+    public List<Ingrediente> autocompletar(String prefijo, int limite, BitSet excluidos) {
+        return autocompletar.sugerencias(prefijo, limite, excluidos);
     }
 
     private void loadFromFile() {
@@ -73,21 +151,16 @@ public class AllIngredientes {
                 return;
             }
 
-            String content = Files.readString(file.toPath());
-            if (content.isBlank()) return;
-
-            JSONArray array = new JSONArray(content);
-            ingredientes.clear();
+            // Lectura en streaming: cada objeto se convierte a Ingrediente al terminar de leerse
+            List<Ingrediente> cargados = ArchivoDatos.leer(file.getPath(), Ingrediente::new);
 
             int maxId = 0;
-            for (int i = 0; i < array.length(); i++) {
-                JSONObject obj = array.getJSONObject(i);
-                Ingrediente ing = new Ingrediente(obj);
-                ingredientes.add(ing);
+            for (Ingrediente ing : cargados) {
                 if (ing.getId() > maxId) {
                     maxId = ing.getId();
                 }
             }
+            ingredientes.cargar(cargados);
             nextId = maxId + 1;
 
         } catch (Exception e) {
@@ -95,22 +168,18 @@ public class AllIngredientes {
         }
     }
 
+    // Agenda la escritura en el hilo de E/S; varias mutaciones seguidas se guardan juntas
+    private void guardarDespues() {
+        PlanificadorGuardado.getInstance().marcarSucio(FILE_PATH, this::saveToFile);
+    }
+
     public void saveToFile() {
-        try {
-            JSONArray array = new JSONArray();
-            for (Ingrediente i : ingredientes) {
-                array.put(i.toJson());
+        synchronized (snapshotLock) {
+            try {
+                ArchivoDatos.escribir(FILE_PATH, ingredientes.elementos(), Ingrediente::toJson);
+            } catch (Exception e) {
+                e.printStackTrace();
             }
-
-            File file = new File(FILE_PATH);
-            file.getParentFile().mkdirs();
-
-            FileWriter writer = new FileWriter(file);
-            writer.write(array.toString(4)); // JSON legible
-            writer.close();
-
-        } catch (Exception e) {
-            e.printStackTrace();
         }
     }
 }
\ No newline at end of file
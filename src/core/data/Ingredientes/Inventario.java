@@ -0,0 +1,372 @@
+package core.data.Ingredientes;
+
+import core.EjecutorTareas;
+import core.data.Persistencia.ArchivoDatos;
+import core.data.Persistencia.PlanificadorGuardado;
+import core.data.Productos.AllProductos;
+import core.data.Productos.MotorPrecios.Sustitucion;
+import core.data.Productos.Producto;
+import core.data.Productos.ProductoIngrediente;
+import core.data.Productos.Sustituto;
+import core.data.Productos.TamanoProducto;
+import core.data.Repositorio.Cambio;
+import core.data.Repositorio.RepositorioIndexado;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Existencias de ingredientes (en gramos/ml) que se descuentan con cada venta.
+ *
+ * Cada ingrediente controlado tiene su propio contador: las existencias son un
+ * AtomicLong que se descuenta con CAS y nunca baja de cero, y lo consumido es un
+ * LongAdder (se suma sin contención entre hilos). Una venta descuenta la cantidad
+ * de cada ProductoIngrediente (por la cantidad vendida y escalada por el gramaje
+ * del tamaño), usando el ingrediente sustituto donde el cliente pidió sustitución.
+ * Es todo o nada: si un ingrediente no alcanza se devuelve lo ya descontado.
+ * Los ingredientes sin existencias registradas no se controlan (no se agotan).
+ *
+ * Cuando un ingrediente baja de lo que pide alguno de sus productos, en segundo
+ * plano se revisan solo esos productos (AllProductos.getByIngrediente): el que ya
+ * no puede prepararse se marca no disponible, y vuelve a estar disponible al
+ * reabastecer. Un ingrediente eliminable no es requerido, y uno sustituible
+ * alcanza si alguno de sus sustitutos tiene existencias. Solo se reactivan los
+ * productos que desactivó el inventario, no los que se apagaron a mano.
+ */
+public class Inventario {
+    private static Inventario instance;
+    private static final String FILE_PATH = "data/inventario.json";
+    private static final String AGOTADOS_FILE_PATH = "data/inventario_agotados.json";
+    private static final long ESCALA = 1000; // los contadores guardan milésimas de gramo/ml
+
+    private static final class Existencia {
+        final AtomicLong disponible = new AtomicLong();
+        final LongAdder consumido = new LongAdder();
+        // Lo más que pide un producto por unidad; por debajo, toca revisar sus productos
+        volatile long requeridoMaximo;
+        final AtomicBoolean revisionPendiente = new AtomicBoolean(false);
+    }
+
+    private final ConcurrentHashMap<Integer, Existencia> existencias = new ConcurrentHashMap<>();
+    private final Set<Integer> agotadosPorInventario = ConcurrentHashMap.newKeySet();
+    private final AllProductos allProductos = AllProductos.getInstance();
+
+    private Inventario() {
+        loadFromFile();
+        allProductos.suscribir(this::productosCambiados);
+        for (int idIngrediente : existencias.keySet()) {
+            actualizarRequerido(idIngrediente);
+        }
+    }
+
+    public static synchronized Inventario getInstance() {
+        if (instance == null) {
+            instance = new Inventario();
+        }
+        return instance;
+    }
+
+    // ---- Existencias ----
+
+    /**
+     * Fija las existencias del ingrediente y empieza a controlarlo
+     */
+    public void setExistencia(int idIngrediente, double cantidad) {
+        Existencia existencia = existencias.computeIfAbsent(idIngrediente, id -> new Existencia());
+        existencia.disponible.set(aUnidades(Math.max(0, cantidad)));
+        actualizarRequerido(idIngrediente);
+        guardarDespues();
+        programarRevision(idIngrediente);
+    }
+
+    public void reabastecer(int idIngrediente, double cantidad) {
+        Existencia existencia = existencias.get(idIngrediente);
+        if (existencia == null) {
+            setExistencia(idIngrediente, cantidad);
+            return;
+        }
+        existencia.disponible.addAndGet(aUnidades(cantidad));
+        guardarDespues();
+        programarRevision(idIngrediente);
+    }
+
+    /**
+     * Deja de controlar el ingrediente (ya no se agota)
+     */
+    public void dejarDeControlar(int idIngrediente) {
+        if (existencias.remove(idIngrediente) == null) return;
+        guardarDespues();
+        programarRevision(idIngrediente);
+    }
+
+    /**
+     * Existencias en gramos/ml, o -1 si el ingrediente no se controla
+     */
+    public double getExistencia(int idIngrediente) {
+        Existencia existencia = existencias.get(idIngrediente);
+        return existencia == null ? -1 : existencia.disponible.get() / (double) ESCALA;
+    }
+
+    public double getConsumido(int idIngrediente) {
+        Existencia existencia = existencias.get(idIngrediente);
+        return existencia == null ? 0 : existencia.consumido.sum() / (double) ESCALA;
+    }
+
+    public boolean isControlado(int idIngrediente) {
+        return existencias.containsKey(idIngrediente);
+    }
+
+    // ---- Ventas ----
+
+    /**
+     * Descuenta lo que llevan cantidad unidades del producto. Devuelve false, sin
+     * descontar nada, si algún ingrediente controlado no alcanza.
+     */
+    public boolean descontar(Producto producto, int idTamano, List<Sustitucion> sustituciones, int cantidad) {
+        Map<Integer, Long> consumo = consumo(producto, idTamano, sustituciones, cantidad);
+        // Se conservan las Existencias ya descontadas: si dejarDeControlar quita una
+        // del mapa mientras tanto, la devolución y lo consumido van a la misma
+        List<Integer> ids = new ArrayList<>(consumo.size());
+        List<Existencia> descontadas = new ArrayList<>(consumo.size());
+        List<Long> unidades = new ArrayList<>(consumo.size());
+
+        for (Map.Entry<Integer, Long> entrada : consumo.entrySet()) {
+            Existencia existencia = existencias.get(entrada.getKey());
+            if (existencia == null) continue;
+            if (!descontar(existencia, entrada.getValue())) {
+                for (int i = 0; i < descontadas.size(); i++) {
+                    descontadas.get(i).disponible.addAndGet(unidades.get(i));
+                }
+                return false;
+            }
+            ids.add(entrada.getKey());
+            descontadas.add(existencia);
+            unidades.add(entrada.getValue());
+        }
+
+        for (int i = 0; i < descontadas.size(); i++) {
+            Existencia existencia = descontadas.get(i);
+            existencia.consumido.add(unidades.get(i));
+            if (existencia.disponible.get() < existencia.requeridoMaximo) {
+                programarRevision(ids.get(i));
+            }
+        }
+        if (!descontadas.isEmpty()) guardarDespues();
+        return true;
+    }
+
+    /**
+     * Regresa a existencias lo descontado por una venta que no se concretó
+     */
+    public void devolver(Producto producto, int idTamano, List<Sustitucion> sustituciones, int cantidad) {
+        Map<Integer, Long> consumo = consumo(producto, idTamano, sustituciones, cantidad);
+        for (Map.Entry<Integer, Long> entrada : consumo.entrySet()) {
+            Existencia existencia = existencias.get(entrada.getKey());
+            if (existencia == null) continue;
+            existencia.disponible.addAndGet(entrada.getValue());
+            existencia.consumido.add(-entrada.getValue());
+            programarRevision(entrada.getKey());
+        }
+        guardarDespues();
+    }
+
+    /**
+     * true si cada ingrediente requerido (o alguno de sus sustitutos) alcanza para una unidad
+     */
+    public boolean puedePrepararse(Producto producto) {
+        for (ProductoIngrediente pi : producto.getIngredientes()) {
+            if (pi.isEliminable()) continue;
+            long requerido = aUnidades(pi.getCantidad());
+            if (alcanza(pi.getIdIngrediente(), requerido)) continue;
+            boolean conSustituto = false;
+            if (pi.isSustituible()) {
+                for (Sustituto s : pi.getSustitutos()) {
+                    if (s.isDisponible() && alcanza(s.getIdIngrediente(), requerido)) {
+                        conSustituto = true;
+                        break;
+                    }
+                }
+            }
+            if (!conSustituto) return false;
+        }
+        return true;
+    }
+
+    public String getEstadisticas() {
+        return String.format("Ingredientes controlados: %d | Productos agotados por inventario: %d",
+                existencias.size(), agotadosPorInventario.size());
+    }
+
+    // CAS: solo descuenta si alcanza, así las existencias nunca quedan negativas
+    private static boolean descontar(Existencia existencia, long unidades) {
+        long actual;
+        do {
+            actual = existencia.disponible.get();
+            if (actual < unidades) return false;
+        } while (!existencia.disponible.compareAndSet(actual, actual - unidades));
+        return true;
+    }
+
+    private boolean alcanza(int idIngrediente, long unidades) {
+        Existencia existencia = existencias.get(idIngrediente);
+        return existencia == null || existencia.disponible.get() >= unidades;
+    }
+
+    /**
+     * Ingrediente → unidades a descontar, en orden de ID
+     */
+    private static Map<Integer, Long> consumo(Producto producto, int idTamano, List<Sustitucion> sustituciones, int cantidad) {
+        double factor = 1.0;
+        if (idTamano != 0) {
+            TamanoProducto tamano = producto.getTamano(idTamano);
+            if (tamano != null && tamano.getGramaje() > 0 && producto.getGramaje() > 0) {
+                factor = tamano.getGramaje() / producto.getGramaje();
+            }
+        }
+
+        Map<Integer, Long> consumo = new TreeMap<>();
+        for (ProductoIngrediente pi : producto.getIngredientes()) {
+            int idIngrediente = ingredienteUsado(pi, sustituciones);
+            long unidades = aUnidades(pi.getCantidad() * factor * cantidad);
+            if (unidades > 0) consumo.merge(idIngrediente, unidades, Long::sum);
+        }
+        return consumo;
+    }
+
+    // El sustituto pedido si el producto lo ofrece para ese ingrediente; si no, el original
+    private static int ingredienteUsado(ProductoIngrediente pi, List<Sustitucion> sustituciones) {
+        if (sustituciones == null || !pi.isSustituible()) return pi.getIdIngrediente();
+        for (Sustitucion sustitucion : sustituciones) {
+            if (sustitucion.getIdIngrediente() != pi.getIdIngrediente()) continue;
+            for (Sustituto s : pi.getSustitutos()) {
+                if (s.getIdIngrediente() == sustitucion.getIdSustituto()) return s.getIdIngrediente();
+            }
+        }
+        return pi.getIdIngrediente();
+    }
+
+    private static long aUnidades(double cantidad) {
+        return Math.round(cantidad * ESCALA);
+    }
+
+    // ---- Disponibilidad de productos ----
+
+    /**
+     * Revisa en segundo plano los productos del ingrediente; varias peticiones
+     * seguidas para el mismo ingrediente se juntan en una sola revisión
+     */
+    private void programarRevision(int idIngrediente) {
+        Existencia existencia = existencias.get(idIngrediente);
+        if (existencia != null && !existencia.revisionPendiente.compareAndSet(false, true)) return;
+        EjecutorTareas.getInstance().enviar(() -> {
+            if (existencia != null) existencia.revisionPendiente.set(false);
+            revisarProductos(idIngrediente);
+        });
+    }
+
+    private void revisarProductos(int idIngrediente) {
+        boolean cambio = false;
+        for (Producto producto : allProductos.getByIngrediente(idIngrediente)) {
+            boolean puede = puedePrepararse(producto);
+            // producto puede ser una copia vieja: solo se marca como agotado por
+            // inventario si este cambio fue el que lo apagó, no si ya lo apagó un admin
+            if (producto.isDisponible() && !puede) {
+                if (allProductos.setDisponible(producto.getId(), false)) {
+                    agotadosPorInventario.add(producto.getId());
+                    cambio = true;
+                }
+            } else if (!producto.isDisponible() && puede && agotadosPorInventario.remove(producto.getId())) {
+                if (allProductos.setDisponible(producto.getId(), true)) cambio = true;
+            }
+        }
+        if (cambio) guardarDespues();
+    }
+
+    private void productosCambiados(List<Cambio<Producto>> cambios) {
+        for (Cambio<Producto> cambio : cambios) {
+            if (cambio.getId() == RepositorioIndexado.TODOS) {
+                for (int idIngrediente : existencias.keySet()) actualizarRequerido(idIngrediente);
+                return;
+            }
+            // Un producto nuevo o con otra receta puede subir lo que se requiere de sus ingredientes
+            for (Producto producto : new Producto[]{cambio.getAnterior(), cambio.getNuevo()}) {
+                if (producto == null) continue;
+                for (ProductoIngrediente pi : producto.getIngredientes()) {
+                    actualizarRequerido(pi.getIdIngrediente());
+                    for (Sustituto s : pi.getSustitutos()) actualizarRequerido(s.getIdIngrediente());
+                }
+            }
+        }
+    }
+
+    private void actualizarRequerido(int idIngrediente) {
+        Existencia existencia = existencias.get(idIngrediente);
+        if (existencia == null) return;
+        long maximo = 0;
+        for (Producto producto : allProductos.getByIngrediente(idIngrediente)) {
+            for (ProductoIngrediente pi : producto.getIngredientes()) {
+                boolean usa = pi.getIdIngrediente() == idIngrediente;
+                for (Sustituto s : pi.getSustitutos()) {
+                    usa |= s.getIdIngrediente() == idIngrediente;
+                }
+                if (usa) maximo = Math.max(maximo, aUnidades(pi.getCantidad()));
+            }
+        }
+        existencia.requeridoMaximo = maximo;
+    }
+
+    // ---- Persistencia ----
+
+    private void loadFromFile() {
+        try {
+            if (new File(FILE_PATH).exists()) {
+                for (JSONObject json : ArchivoDatos.leer(FILE_PATH, json -> json)) {
+                    Existencia existencia = new Existencia();
+                    existencia.disponible.set(aUnidades(json.optDouble("Existencia", 0.0)));
+                    existencia.consumido.add(aUnidades(json.optDouble("Consumido", 0.0)));
+                    existencias.put(json.getInt("IDIngrediente"), existencia);
+                }
+            }
+            if (new File(AGOTADOS_FILE_PATH).exists()) {
+                for (JSONObject json : ArchivoDatos.leer(AGOTADOS_FILE_PATH, json -> json)) {
+                    agotadosPorInventario.add(json.getInt("IDProducto"));
+                }
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    // Agenda la escritura en el hilo de E/S; muchas ventas seguidas se guardan juntas
+    private void guardarDespues() {
+        PlanificadorGuardado.getInstance().marcarSucio(FILE_PATH, this::saveToFile);
+    }
+
+    public synchronized void saveToFile() {
+        try {
+            List<JSONObject> filas = new ArrayList<>();
+            existencias.forEach((id, existencia) -> filas.add(new JSONObject()
+                    .put("IDIngrediente", id)
+                    .put("Existencia", existencia.disponible.get() / (double) ESCALA)
+                    .put("Consumido", existencia.consumido.sum() / (double) ESCALA)));
+            ArchivoDatos.escribir(FILE_PATH, filas, json -> json);
+
+            List<JSONObject> agotados = new ArrayList<>();
+            for (int idProducto : agotadosPorInventario) {
+                agotados.add(new JSONObject().put("IDProducto", idProducto));
+            }
+            ArchivoDatos.escribir(AGOTADOS_FILE_PATH, agotados, json -> json);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -1,28 +1,70 @@
 package core.data.Menus;
 
+import core.data.Persistencia.ArchivoDatos;
+import core.data.Persistencia.Bitacora;
+import core.data.Persistencia.PlanificadorGuardado;
+import core.data.Repositorio.Cambio;
+import core.data.Repositorio.CargaDiferida;
+import core.data.Repositorio.IndiceNombres;
+import core.data.Repositorio.IndiceReferencias;
+import core.data.Repositorio.IndiceSecundario;
+import core.data.Repositorio.Lote;
+import core.data.Repositorio.RepositorioIndexado;
 import org.json.JSONArray;
 import org.json.JSONObject;
 import java.io.File;
-import java.io.FileWriter;
-import java.nio.file.Files;
 import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.WeekFields;
-import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+import java.util.function.ToIntFunction;
 import java.util.stream.Collectors;
 
 /**
  * Singleton para gestionar todos los menús de la cafetería
+ * Cada cambio se anexa a una bitácora (data/menus.journal); los archivos JSON
+ * completos solo se reescriben al compactar o al cerrar la aplicación.
+ * El registro se escribe antes de aplicar el cambio en memoria: si la bitácora
+ * falla, la mutación lanza UncheckedIOException y no se aplica.
  */
 public class AllMenus {
-    private static AllMenus instance;
-    private final List<Menu> menus = new ArrayList<>();
-    private final List<SeccionMenu> secciones = new ArrayList<>();
+    private static final CargaDiferida<AllMenus> carga = new CargaDiferida<>(AllMenus::new);
+    private final RepositorioIndexado<Menu> menus = new RepositorioIndexado<>(Menu::getId);
+    private final RepositorioIndexado<SeccionMenu> secciones = new RepositorioIndexado<>(SeccionMenu::getId);
+    // Índices secundarios de menús: por semana, por fecha (ordenado) y por fecha+horario
+    private final IndiceSecundario<Integer, Menu> menusPorSemana =
+            menus.agregarIndice(IndiceSecundario.hash(m -> llaveSemana(m.getNumeroSemana(), m.getAnio())));
+    private final IndiceSecundario<LocalDate, Menu> menusPorFecha =
+            menus.agregarIndice(IndiceSecundario.ordenado(Menu::getFecha));
+    private final IndiceSecundario<String, Menu> menusPorFechaYHorario =
+            menus.agregarIndice(IndiceSecundario.hash(m -> llaveFechaHorario(m.getFecha(), m.getHorario())));
+    // Referencias inversas para propagar renombres: sección → menús, producto → secciones
+    private final IndiceReferencias<Menu> menusPorSeccion = menus.agregarIndice(
+            new IndiceReferencias<>((m, referencia) -> {
+                for (MenuSeccion ms : m.getSecciones()) referencia.accept(ms.getIdSeccion());
+            }));
+    private final IndiceReferencias<SeccionMenu> seccionesPorProducto = secciones.agregarIndice(
+            new IndiceReferencias<>((s, referencia) -> {
+                for (SeccionProducto sp : s.getProductos()) referencia.accept(sp.getIdProducto());
+            }));
+    private final IndiceNombres<SeccionMenu> nombresSeccion = secciones.agregarIndice(
+            new IndiceNombres<>(SeccionMenu::getNombre));
     private final String MENUS_FILE_PATH = "data/menus.json";
     private final String SECCIONES_FILE_PATH = "data/secciones_menu.json";
+    private final String JOURNAL_FILE_PATH = "data/menus.journal";
+    private static final int UMBRAL_COMPACTACION = 200; // registros en bitácora antes de compactar
+    private final Bitacora bitacora = new Bitacora(JOURNAL_FILE_PATH);
+    private final Object snapshotLock = new Object(); // serializa escrituras de snapshot
     private int nextMenuId = 1;
     private int nextSeccionId = 1;
 
@@ -31,56 +73,102 @@ public class AllMenus {
     }
 
     public static AllMenus getInstance() {
-        if (instance == null) {
-            instance = new AllMenus();
-        }
-        return instance;
+        return carga.obtener();
+    }
+
+    /**
+     * Arranca la carga del archivo en segundo plano (ver Main)
+     */
+    public static CompletableFuture<AllMenus> cargarAsync(Executor executor) {
+        return carga.iniciar(executor);
+    }
+
+    /**
+     * Se completa cuando los datos ya están en memoria
+     */
+    public static CompletableFuture<AllMenus> listo() {
+        return carga.futuro();
     }
 
     
     // MÉTODOS PARA MENÚS
     
 
-    public void addMenu(Menu menu) {
+    public synchronized void addMenu(Menu menu) {
         if (menu.getId() == 0) {
             menu.setId(nextMenuId++);
         }
-        menus.add(menu);
-        saveToFile();
+        registrar("menu.agregar", menu.toJson());
+        menus.agregar(menu);
     }
 
-    public void updateMenu(Menu nuevo) {
-        for (int idx = 0; idx < menus.size(); idx++) {
-            if (menus.get(idx).getId() == nuevo.getId()) {
-                menus.set(idx, nuevo);
-                saveToFile();
-                return;
+    public synchronized void updateMenu(Menu nuevo) {
+        if (!menus.contiene(nuevo.getId())) return;
+        registrar("menu.actualizar", nuevo.toJson());
+        menus.actualizar(nuevo);
+    }
+
+    public synchronized void removeMenu(int id) {
+        if (!menus.contiene(id)) return;
+        registrar("menu.eliminar", new JSONObject().put("ID", id));
+        menus.eliminar(id);
+    }
+
+    /**
+     * Varias altas, cambios y bajas de menús como una sola operación: los IDs
+     * nuevos se reservan de una vez, el repositorio las aplica bajo un solo
+     * bloqueo (un solo aviso a los oyentes) y la bitácora recibe un solo registro.
+     * El lote se arma dentro del candado de AllMenus, así que puede consultar el
+     * estado actual sin que otra escritura se intercale.
+     */
+    public synchronized void loteMenus(Consumer<Lote<Menu>> armar) {
+        Lote<Menu> lote = new Lote<>();
+        armar.accept(lote);
+        if (lote.isVacio()) return;
+
+        int siguienteId = nextMenuId;
+        for (Lote.Operacion<Menu> operacion : lote.getOperaciones()) {
+            if (operacion.getTipo() == Lote.Tipo.AGREGAR && operacion.getElemento().getId() == 0) {
+                operacion.getElemento().setId(siguienteId++);
             }
         }
+        nextMenuId = siguienteId;
+
+        registrarLote("menu", lote, menus, Menu::getId, Menu::toJson);
+        menus.aplicar(lote);
     }
 
-    public void removeMenu(int id) {
-        menus.removeIf(m -> m.getId() == id);
-        saveToFile();
+    /**
+     * Suscribe un oyente a los cambios de menús; el Runnable devuelto lo da de baja
+     */
+    public Runnable suscribirMenus(Consumer<List<Cambio<Menu>>> oyente) {
+        return menus.suscribir(oyente);
+    }
+
+    /**
+     * Avisa el ID de cada menú agregado, actualizado o eliminado
+     */
+    public void alCambiarMenus(IntConsumer oyente) {
+        menus.alCambiar(oyente);
     }
 
     public Menu getMenuById(int id) {
-        return menus.stream()
-                .filter(m -> m.getId() == id)
-                .findFirst()
-                .orElse(null);
+        return menus.obtener(id);
     }
 
     public List<Menu> getMenusByFecha(LocalDate fecha) {
-        return menus.stream()
-                .filter(m -> m.getFecha().equals(fecha))
-                .collect(Collectors.toList());
+        return menusPorFecha.obtener(fecha);
     }
 
     public List<Menu> getMenusBySemana(int numeroSemana, int anio) {
-        return menus.stream()
-                .filter(m -> m.getNumeroSemana() == numeroSemana && m.getAnio() == anio)
-                .collect(Collectors.toList());
+        return menusPorSemana.obtener(llaveSemana(numeroSemana, anio));
+    }
+
+    /**
+     * Menús con fecha entre desde y hasta (ambas inclusive), ordenados por fecha
+     */
+    public List<Menu> getMenusEntreFechas(LocalDate desde, LocalDate hasta) {
+        return menusPorFecha.rango(desde, hasta);
     }
 
     public List<Menu> getMenusActivos() {
@@ -90,48 +178,121 @@ public class AllMenus {
     }
 
     public List<Menu> getAllMenus() {
-        return new ArrayList<>(menus);
+        return menus.getAll();
     }
 
     public Menu getMenuByFechaYHorario(LocalDate fecha, String horario) {
-        return menus.stream()
-                .filter(m -> m.getFecha().equals(fecha) && m.getHorario().equalsIgnoreCase(horario))
-                .findFirst()
-                .orElse(null);
+        if (fecha == null || horario == null) return null;
+        return menusPorFechaYHorario.primero(llaveFechaHorario(fecha, horario));
+    }
+
+    private static Integer llaveSemana(int numeroSemana, int anio) {
+        return anio * 100 + numeroSemana;
+    }
+
+    private static String llaveFechaHorario(LocalDate fecha, String horario) {
+        if (fecha == null || horario == null) return null;
+        return fecha + "|" + horario.toLowerCase(Locale.ROOT);
     }
 
     
     // MÉTODOS PARA SECCIONES
     
 
-    public void addSeccion(SeccionMenu seccion) {
+    public synchronized void addSeccion(SeccionMenu seccion) {
         if (seccion.getId() == 0) {
             seccion.setId(nextSeccionId++);
         }
-        secciones.add(seccion);
-        saveToFile();
+        registrar("seccion.agregar", seccion.toJson());
+        secciones.agregar(seccion);
     }
 
-    public void updateSeccion(SeccionMenu nueva) {
-        for (int idx = 0; idx < secciones.size(); idx++) {
-            if (secciones.get(idx).getId() == nueva.getId()) {
-                secciones.set(idx, nueva);
-                saveToFile();
-                return;
+    /**
+     * Si cambió el nombre, se propaga a los menús que incluyen la sección
+     */
+    public synchronized void updateSeccion(SeccionMenu nueva) {
+        if (!secciones.contiene(nueva.getId())) return;
+        String nombreAnterior = nombresSeccion.obtener(nueva.getId());
+        registrar("seccion.actualizar", nueva.toJson());
+        secciones.actualizar(nueva);
+        if (nombreAnterior != null && !Objects.equals(nombreAnterior, nueva.getNombre())) {
+            renombrarSeccion(nueva.getId(), nueva.getNombre());
+        }
+    }
+
+    /**
+     * Actualiza NombreSeccion solo en los menús que incluyen la sección, con copias
+     * reemplazadas en un solo lote
+     */
+    private void renombrarSeccion(int idSeccion, String nombre) {
+        String interno = nombre.intern();
+        loteMenus(lote -> {
+            for (Menu menu : menusPorSeccion.obtener(idSeccion)) {
+                Menu copia = new Menu(menu.toJson());
+                for (MenuSeccion ms : copia.getSecciones()) {
+                    if (ms.getIdSeccion() == idSeccion) ms.setNombreSeccion(interno);
+                }
+                lote.actualizar(copia);
+            }
+        });
+    }
+
+    /**
+     * Actualiza NombreProducto en las secciones que incluyen el producto (lo llama
+     * AllProductos al renombrar). Solo recorre esas secciones; un solo registro en
+     * la bitácora.
+     */
+    public synchronized void renombrarProducto(int idProducto, String nombre) {
+        String interno = nombre.intern();
+        Lote<SeccionMenu> lote = new Lote<>();
+        for (SeccionMenu seccion : seccionesPorProducto.obtener(idProducto)) {
+            SeccionMenu copia = new SeccionMenu(seccion.toJson());
+            for (SeccionProducto sp : copia.getProductos()) {
+                if (sp.getIdProducto() == idProducto) sp.setNombreProducto(interno);
             }
+            lote.actualizar(copia);
         }
+        if (lote.isVacio()) return;
+        registrarLote("seccion", lote, secciones, SeccionMenu::getId, SeccionMenu::toJson);
+        secciones.aplicar(lote);
+    }
+
+    public synchronized void removeSeccion(int id) {
+        if (!secciones.contiene(id)) return;
+        registrar("seccion.eliminar", new JSONObject().put("ID", id));
+        secciones.eliminar(id);
     }
 
-    public void removeSeccion(int id) {
-        secciones.removeIf(s -> s.getId() == id);
-        saveToFile();
+    /**
+     * Suscribe un oyente a los cambios de secciones; el Runnable devuelto lo da de baja
+     */
+    public Runnable suscribirSecciones(Consumer<List<Cambio<SeccionMenu>>> oyente) {
+        return secciones.suscribir(oyente);
+    }
+
+    /**
+     * Avisa el ID de cada sección agregada, actualizada o eliminada
+     */
+    public void alCambiarSecciones(IntConsumer oyente) {
+        secciones.alCambiar(oyente);
     }
 
     public SeccionMenu getSeccionById(int id) {
-        return secciones.stream()
-                .filter(s -> s.getId() == id)
-                .findFirst()
-                .orElse(null);
+        return secciones.obtener(id);
+    }
+
+    /**
+     * Nombre vigente de la sección, o respaldo si ya no existe
+     */
+    public String getNombreSeccion(int id, String respaldo) {
+        return nombresSeccion.obtener(id, respaldo);
+    }
+
+    /**
+     * Menús que incluyen la sección
+     */
+    public List<Menu> getMenusBySeccion(int idSeccion) {
+        return menusPorSeccion.obtener(idSeccion);
     }
 
     public SeccionMenu getSeccionByNombre(String nombre) {
@@ -148,7 +309,7 @@ public class AllMenus {
     }
 
     public List<SeccionMenu> getAllSecciones() {
-        return new ArrayList<>(secciones);
+        return secciones.getAll();
     }
 
     
@@ -157,8 +318,14 @@ public class AllMenus {
 
     /**
      * Genera menús para una semana específica
+     * Los 14 menús se agregan en un solo lote: un registro en la bitácora y un
+     * solo aviso a los oyentes.
      */
     public void generarMenusSemana(LocalDate fechaInicio, int idUsuarioCreador) {
+        loteMenus(lote -> agregarMenusSemana(lote, fechaInicio, idUsuarioCreador));
+    }
+
+    private void agregarMenusSemana(Lote<Menu> lote, LocalDate fechaInicio, int idUsuarioCreador) {
         LocalDate fecha = fechaInicio;
         String fechaCreacion = LocalDate.now().toString();
         
@@ -177,7 +344,7 @@ public class AllMenus {
                 0,
                 null
             );
-            addMenu(menuDesayuno);
+            lote.agregar(menuDesayuno);
 
             // Menú de comida
             Menu menuComida = new Menu(
@@ -193,7 +360,7 @@ public class AllMenus {
                 0,
                 null
             );
-            addMenu(menuComida);
+            lote.agregar(menuComida);
 
             fecha = fecha.plusDays(1);
         }
@@ -219,6 +386,129 @@ public class AllMenus {
     private void loadFromFiles() {
         loadMenusFromFile();
         loadSeccionesFromFile();
+        reproducirBitacora();
+    }
+
+    /**
+     * Aplica sobre el snapshot los cambios registrados en la bitácora desde la
+     * última compactación. Las operaciones son idempotentes (agregar/actualizar
+     * reemplazan por ID), por lo que reaplicar registros ya compactados es seguro.
+     */
+    private void reproducirBitacora() {
+        bitacora.reproducir((op, datos) -> {
+            try {
+                aplicarRegistro(op, datos);
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        });
+    }
+
+    private void aplicarRegistro(String op, JSONObject datos) {
+        switch (op) {
+            case "menu.agregar":
+            case "menu.actualizar": {
+                Menu menu = new Menu(datos);
+                menus.agregar(menu);
+                nextMenuId = Math.max(nextMenuId, menu.getId() + 1);
+                break;
+            }
+            case "menu.eliminar":
+                menus.eliminar(datos.getInt("ID"));
+                break;
+            case "seccion.agregar":
+            case "seccion.actualizar": {
+                SeccionMenu seccion = new SeccionMenu(datos);
+                secciones.agregar(seccion);
+                nextSeccionId = Math.max(nextSeccionId, seccion.getId() + 1);
+                break;
+            }
+            case "seccion.eliminar":
+                secciones.eliminar(datos.getInt("ID"));
+                break;
+            case "lote": {
+                JSONArray registros = datos.getJSONArray("Registros");
+                for (int i = 0; i < registros.length(); i++) {
+                    JSONObject registro = registros.getJSONObject(i);
+                    aplicarRegistro(registro.getString("Op"), registro.getJSONObject("Datos"));
+                }
+                break;
+            }
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Un solo registro "lote" con la operación que el repositorio va a aplicar
+     * (entidad.agregar, entidad.actualizar, entidad.eliminar). Se llama antes de
+     * aplicar el lote, con el candado tomado; actualizar o eliminar un ID que no
+     * existe se omite igual que en RepositorioIndexado.aplicar.
+     */
+    private <T> void registrarLote(String entidad, Lote<T> lote, RepositorioIndexado<T> repositorio,
+                                   ToIntFunction<T> clave, Function<T, JSONObject> aJson) {
+        // IDs que el mismo lote agrega o elimina antes de la operación en curso
+        Map<Integer, Boolean> presentes = new HashMap<>();
+        JSONArray registros = new JSONArray();
+        for (Lote.Operacion<T> operacion : lote.getOperaciones()) {
+            switch (operacion.getTipo()) {
+                case AGREGAR: {
+                    T elemento = operacion.getElemento();
+                    registros.put(new JSONObject().put("Op", entidad + ".agregar").put("Datos", aJson.apply(elemento)));
+                    presentes.put(clave.applyAsInt(elemento), Boolean.TRUE);
+                    break;
+                }
+                case ACTUALIZAR: {
+                    T elemento = operacion.getElemento();
+                    int id = clave.applyAsInt(elemento);
+                    if (!presentes.getOrDefault(id, repositorio.contiene(id))) break;
+                    registros.put(new JSONObject().put("Op", entidad + ".actualizar").put("Datos", aJson.apply(elemento)));
+                    break;
+                }
+                case ELIMINAR: {
+                    int id = operacion.getId();
+                    if (!presentes.getOrDefault(id, repositorio.contiene(id))) break;
+                    registros.put(new JSONObject().put("Op", entidad + ".eliminar").put("Datos", new JSONObject().put("ID", id)));
+                    presentes.put(id, Boolean.FALSE);
+                    break;
+                }
+            }
+        }
+        if (!registros.isEmpty()) {
+            registrar("lote", new JSONObject().put("Registros", registros));
+        }
+    }
+
+    /**
+     * Anexa el cambio a la bitácora y, al pasar el umbral, agenda la compactación
+     * en el hilo de E/S del PlanificadorGuardado
+     */
+    private void registrar(String operacion, JSONObject datos) {
+        bitacora.registrar(operacion, datos);
+        if (bitacora.getRegistros() >= UMBRAL_COMPACTACION) {
+            PlanificadorGuardado.getInstance().marcarSucio(JOURNAL_FILE_PATH, this::compactar);
+        }
+    }
+
+    /**
+     * Escribe el snapshot completo y descarta la bitácora que ya quedó incluida en él.
+     * El estado se captura y la bitácora se rota bajo el candado del repositorio;
+     * la escritura a disco ocurre fuera de él para no bloquear las mutaciones.
+     */
+    private void compactar() {
+        synchronized (snapshotLock) {
+            List<Menu> menusSnapshot;
+            List<SeccionMenu> seccionesSnapshot;
+            synchronized (this) {
+                menusSnapshot = menus.getAll();
+                seccionesSnapshot = secciones.getAll();
+                bitacora.rotar();
+            }
+            if (escribirArchivo(MENUS_FILE_PATH, menusSnapshot, Menu::toJson)
+                    && escribirArchivo(SECCIONES_FILE_PATH, seccionesSnapshot, SeccionMenu::toJson)) {
+                bitacora.descartarRotado();
+            }
+        }
     }
 
     private void loadMenusFromFile() {
@@ -230,21 +520,16 @@ public class AllMenus {
                 return;
             }
 
-            String content = Files.readString(file.toPath());
-            if (content.isBlank()) return;
-
-            JSONArray array = new JSONArray(content);
-            menus.clear();
+            // Lectura en streaming: cada objeto se convierte a Menu al terminar de leerse
+            List<Menu> cargados = ArchivoDatos.leer(file.getPath(), Menu::new);
 
             int maxId = 0;
-            for (int i = 0; i < array.length(); i++) {
-                JSONObject obj = array.getJSONObject(i);
-                Menu menu = new Menu(obj);
-                menus.add(menu);
+            for (Menu menu : cargados) {
                 if (menu.getId() > maxId) {
                     maxId = menu.getId();
                 }
             }
+            menus.cargar(cargados);
             nextMenuId = maxId + 1;
 
         } catch (Exception e) {
@@ -262,21 +547,16 @@ public class AllMenus {
                 return;
             }
 
-            String content = Files.readString(file.toPath());
-            if (content.isBlank()) return;
-
-            JSONArray array = new JSONArray(content);
-            secciones.clear();
+            // Lectura en streaming: cada objeto se convierte a SeccionMenu al terminar de leerse
+            List<SeccionMenu> cargadas = ArchivoDatos.leer(file.getPath(), SeccionMenu::new);
 
             int maxId = 0;
-            for (int i = 0; i < array.length(); i++) {
-                JSONObject obj = array.getJSONObject(i);
-                SeccionMenu seccion = new SeccionMenu(obj);
-                secciones.add(seccion);
+            for (SeccionMenu seccion : cargadas) {
                 if (seccion.getId() > maxId) {
                     maxId = seccion.getId();
                 }
             }
+            secciones.cargar(cargadas);
             nextSeccionId = maxId + 1;
 
         } catch (Exception e) {
@@ -285,53 +565,31 @@ public class AllMenus {
         }
     }
 
-    private void saveMenusToFile() {
+    private <T> boolean escribirArchivo(String ruta, List<T> elementos, Function<T, JSONObject> aJson) {
         try {
-            JSONArray array = new JSONArray();
-            for (Menu m : menus) {
-                array.put(m.toJson());
-            }
-
-            File file = new File(MENUS_FILE_PATH);
-            file.getParentFile().mkdirs();
-
-            FileWriter writer = new FileWriter(file);
-            writer.write(array.toString(4));
-            writer.close();
-
+            ArchivoDatos.escribir(ruta, elementos, aJson);
+            return true;
         } catch (Exception e) {
-            //System.err.println("Error guardando menús en archivo:");
+            //System.err.println("Error guardando " + ruta + ":");
             e.printStackTrace();
+            return false;
         }
     }
 
-    private void saveSeccionesToFile() {
-        try {
-            JSONArray array = new JSONArray();
-            for (SeccionMenu s : secciones) {
-                array.put(s.toJson());
-            }
-
-            File file = new File(SECCIONES_FILE_PATH);
-            file.getParentFile().mkdirs();
-
-            FileWriter writer = new FileWriter(file);
-            writer.write(array.toString(4));
-            writer.close();
+    private void saveMenusToFile() {
+        escribirArchivo(MENUS_FILE_PATH, menus.getAll(), Menu::toJson);
+    }
 
-        } catch (Exception e) {
-            //System.err.println("Error guardando secciones en archivo:");
-            e.printStackTrace();
-        }
+    private void saveSeccionesToFile() {
+        escribirArchivo(SECCIONES_FILE_PATH, secciones.getAll(), SeccionMenu::toJson);
     }
 
     /**
      * Método unificado para guardar ambos archivos JSON
-     * Similar al saveToFile() de AllProductos
+     * Similar al saveToFile() de AllProductos. Compacta la bitácora de forma síncrona.
      */
     public void saveToFile() {
-        saveMenusToFile();
-        saveSeccionesToFile();
+        compactar();
     }
 
     
@@ -339,9 +597,9 @@ public class AllMenus {
     
 
     public String getEstadisticas() {
-        int totalMenus = menus.size();
+        int totalMenus = menus.tamano();
         int menusActivos = (int) menus.stream().filter(Menu::isActivo).count();
-        int totalSecciones = secciones.size();
+        int totalSecciones = secciones.tamano();
         int seccionesActivas = (int) secciones.stream().filter(SeccionMenu::isActivo).count();
         
         return String.format("Menús: %d total (%d activos) | Secciones: %d total (%d activas)", 
@@ -0,0 +1,128 @@
+package core.data.Menus;
+
+import core.EjecutorTareas;
+import core.data.Ingredientes.AllIngredientes;
+import core.data.Productos.AllProductos;
+import core.data.Repositorio.RepositorioIndexado;
+
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Caché LRU de VistaMenuSemana por (semana, año) para el dashboard del usuario.
+ *
+ * Escucha los cambios de menús, secciones, productos e ingredientes y descarta
+ * solo las semanas que dependen del ID que cambió; un menú nuevo invalida la
+ * semana a la que pertenece. Cada invalidación sube la versión de la caché, así
+ * una vista que se terminó de armar durante un cambio no se guarda ya vieja.
+ * precargar arma en segundo plano las semanas vecinas para que anterior/siguiente
+ * no esperen.
+ */
+public class CacheMenuSemana {
+    private static final int CAPACIDAD = 8; // semanas en memoria
+    private static CacheMenuSemana instance;
+
+    private final Map<Integer, VistaMenuSemana> vistas = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, VistaMenuSemana> eldest) {
+            return size() > CAPACIDAD;
+        }
+    };
+    private long version = 0;
+    private long aciertos = 0;
+    private long fallos = 0;
+
+    private CacheMenuSemana() {
+        AllMenus.getInstance().alCambiarMenus(this::menuCambiado);
+        AllMenus.getInstance().alCambiarSecciones(id -> invalidar(id, v -> v.secciones));
+        AllProductos.getInstance().alCambiar(id -> invalidar(id, v -> v.productos));
+        AllIngredientes.getInstance().alCambiar(id -> invalidar(id, v -> v.ingredientes));
+    }
+
+    public static synchronized CacheMenuSemana getInstance() {
+        if (instance == null) {
+            instance = new CacheMenuSemana();
+        }
+        return instance;
+    }
+
+    /**
+     * Vista de la semana; se arma en el hilo que llama si no está en caché
+     */
+    public VistaMenuSemana obtener(int semana, int anio) {
+        int llave = llave(semana, anio);
+        long versionInicial;
+        synchronized (this) {
+            VistaMenuSemana vista = vistas.get(llave);
+            if (vista != null) {
+                aciertos++;
+                return vista;
+            }
+            fallos++;
+            versionInicial = version;
+        }
+
+        VistaMenuSemana vista = VistaMenuSemana.construir(semana, anio);
+        synchronized (this) {
+            if (version == versionInicial) {
+                vistas.put(llave, vista);
+            }
+        }
+        return vista;
+    }
+
+    public synchronized boolean estaEnCache(int semana, int anio) {
+        return vistas.containsKey(llave(semana, anio));
+    }
+
+    /**
+     * Arma la semana en segundo plano si todavía no está en caché
+     */
+    public void precargar(int semana, int anio) {
+        if (estaEnCache(semana, anio)) return;
+        EjecutorTareas.getInstance().enviar(() -> obtener(semana, anio));
+    }
+
+    public synchronized void limpiar() {
+        vistas.clear();
+        version++;
+    }
+
+    public synchronized String getEstadisticas() {
+        return String.format("Semanas en caché: %d/%d | Aciertos: %d | Fallos: %d",
+                vistas.size(), CAPACIDAD, aciertos, fallos);
+    }
+
+    private void menuCambiado(int id) {
+        if (id == RepositorioIndexado.TODOS) {
+            limpiar();
+            return;
+        }
+        // Un menú nuevo o movido de semana aún no está en las dependencias de esa semana
+        Menu menu = AllMenus.getInstance().getMenuById(id);
+        synchronized (this) {
+            version++;
+            if (menu != null) {
+                vistas.remove(llave(menu.getNumeroSemana(), menu.getAnio()));
+            }
+            vistas.values().removeIf(v -> v.menus.get(id));
+        }
+    }
+
+    private void invalidar(int id, Function<VistaMenuSemana, BitSet> dependencias) {
+        if (id == RepositorioIndexado.TODOS) {
+            limpiar();
+            return;
+        }
+        synchronized (this) {
+            version++;
+            vistas.values().removeIf(v -> dependencias.apply(v).get(id));
+        }
+    }
+
+    private static int llave(int semana, int anio) {
+        return anio * 100 + semana;
+    }
+}
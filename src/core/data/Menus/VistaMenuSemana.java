@@ -0,0 +1,163 @@
+package core.data.Menus;
+
+import core.data.Ingredientes.AllIngredientes;
+import core.data.Ingredientes.Ingrediente;
+import core.data.Productos.AllProductos;
+import core.data.Productos.Producto;
+import core.data.Productos.ProductoIngrediente;
+import core.data.Productos.Sustituto;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Menú de una semana ya resuelto para mostrarse: días en orden, cada uno con sus
+ * horarios, secciones (nombre y color) y productos completos, más el conjunto de
+ * ingredientes alergénicos. Se arma una sola vez por (semana, año) y lo guarda
+ * CacheMenuSemana; la vista no vuelve a consultar AllMenus, AllProductos ni
+ * AllIngredientes.
+ *
+ * Recuerda los IDs de menús, secciones, productos e ingredientes de los que
+ * depende, para que la caché la descarte solo cuando cambia alguno de ellos.
+ */
+public final class VistaMenuSemana {
+    private final int semana;
+    private final int anio;
+    private final List<Dia> dias;
+    private final BitSet alergenicos;
+
+    // Dependencias (IDs referenciados, existan o no)
+    final BitSet menus = new BitSet();
+    final BitSet secciones = new BitSet();
+    final BitSet productos = new BitSet();
+    final BitSet ingredientes = new BitSet();
+
+    public static final class Dia {
+        private final LocalDate fecha;
+        private final List<Horario> horarios;
+
+        Dia(LocalDate fecha, List<Horario> horarios) {
+            this.fecha = fecha;
+            this.horarios = Collections.unmodifiableList(horarios);
+        }
+
+        public LocalDate getFecha() { return fecha; }
+        public List<Horario> getHorarios() { return horarios; }
+    }
+
+    public static final class Horario {
+        private final String horario;
+        private final List<Seccion> secciones;
+
+        Horario(String horario, List<Seccion> secciones) {
+            this.horario = horario;
+            this.secciones = Collections.unmodifiableList(secciones);
+        }
+
+        public String getHorario() { return horario; }
+        public List<Seccion> getSecciones() { return secciones; }
+    }
+
+    public static final class Seccion {
+        private final String nombre;
+        private final String color;
+        private final List<Producto> productos;
+
+        Seccion(String nombre, String color, List<Producto> productos) {
+            this.nombre = nombre;
+            this.color = color;
+            this.productos = Collections.unmodifiableList(productos);
+        }
+
+        public String getNombre() { return nombre; }
+        public String getColor() { return color; }
+        public List<Producto> getProductos() { return productos; }
+    }
+
+    private VistaMenuSemana(int semana, int anio, List<Dia> dias, BitSet alergenicos) {
+        this.semana = semana;
+        this.anio = anio;
+        this.dias = Collections.unmodifiableList(dias);
+        this.alergenicos = alergenicos;
+    }
+
+    public int getSemana() { return semana; }
+    public int getAnio() { return anio; }
+    public List<Dia> getDias() { return dias; }
+    public boolean isVacia() { return dias.isEmpty(); }
+
+    public boolean esAlergenico(int idIngrediente) {
+        return alergenicos.get(idIngrediente);
+    }
+
+    /**
+     * Resuelve todos los menús de la semana contra los repositorios
+     */
+    static VistaMenuSemana construir(int semana, int anio) {
+        AllMenus allMenus = AllMenus.getInstance();
+        AllProductos allProductos = AllProductos.getInstance();
+        AllIngredientes allIngredientes = AllIngredientes.getInstance();
+
+        BitSet menusUsados = new BitSet();
+        BitSet seccionesUsadas = new BitSet();
+        BitSet productosUsados = new BitSet();
+        BitSet ingredientesUsados = new BitSet();
+        BitSet alergenicos = new BitSet();
+
+        // Agrupar por día, ordenado de lunes a domingo
+        Map<LocalDate, List<Horario>> porDia = new TreeMap<>();
+        for (Menu menu : allMenus.getMenusBySemana(semana, anio)) {
+            menusUsados.set(menu.getId());
+
+            List<Seccion> seccionesMenu = new ArrayList<>();
+            for (MenuSeccion menuSeccion : menu.getSecciones()) {
+                seccionesUsadas.set(menuSeccion.getIdSeccion());
+                SeccionMenu seccion = allMenus.getSeccionById(menuSeccion.getIdSeccion());
+                if (seccion == null) continue;
+
+                List<Producto> productosSeccion = new ArrayList<>();
+                for (SeccionProducto seccionProducto : seccion.getProductos()) {
+                    productosUsados.set(seccionProducto.getIdProducto());
+                    Producto producto = allProductos.getById(seccionProducto.getIdProducto());
+                    if (producto == null) continue;
+                    productosSeccion.add(producto);
+
+                    for (ProductoIngrediente ingrediente : producto.getIngredientes()) {
+                        marcarIngrediente(allIngredientes, ingrediente.getIdIngrediente(), ingredientesUsados, alergenicos);
+                        for (Sustituto sustituto : ingrediente.getSustitutos()) {
+                            marcarIngrediente(allIngredientes, sustituto.getIdIngrediente(), ingredientesUsados, alergenicos);
+                        }
+                    }
+                }
+                seccionesMenu.add(new Seccion(seccion.getNombre(), seccion.getColor(), productosSeccion));
+            }
+
+            porDia.computeIfAbsent(menu.getFecha(), f -> new ArrayList<>())
+                    .add(new Horario(menu.getHorario(), seccionesMenu));
+        }
+
+        List<Dia> dias = new ArrayList<>(porDia.size());
+        porDia.forEach((fecha, horarios) -> dias.add(new Dia(fecha, horarios)));
+
+        VistaMenuSemana vista = new VistaMenuSemana(semana, anio, dias, alergenicos);
+        vista.menus.or(menusUsados);
+        vista.secciones.or(seccionesUsadas);
+        vista.productos.or(productosUsados);
+        vista.ingredientes.or(ingredientesUsados);
+        return vista;
+    }
+
+    private static void marcarIngrediente(AllIngredientes allIngredientes, int id, BitSet usados, BitSet alergenicos) {
+        if (id < 0 || usados.get(id)) return;
+        usados.set(id);
+        Ingrediente completo = allIngredientes.getById(id);
+        if (completo != null && completo.isAlergenico()) {
+            alergenicos.set(id);
+        }
+    }
+}
@@ -0,0 +1,372 @@
+package core.data.Pedidos;
+
+import core.data.Avisos.Aviso.Establecimiento;
+import core.data.Ingredientes.Inventario;
+import core.data.Persistencia.ArchivoDatos;
+import core.data.Persistencia.Bitacora;
+import core.data.Persistencia.PlanificadorGuardado;
+import core.data.Productos.AllProductos;
+import core.data.Productos.MotorPrecios;
+import core.data.Productos.Producto;
+import core.data.Repositorio.CargaDiferida;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+import java.util.stream.Collectors;
+
+/**
+ * Singleton para recibir y despachar los pedidos de la Cafeteria y el Cafecito.
+ *
+ * Cada establecimiento tiene su ColaPedidos acotada y sin bloqueos: enviar()
+ * puede llamarse desde muchos hilos a la vez y, si la cola está llena, rechaza el
+ * pedido en lugar de hacer esperar al cliente. Cada pedido y cada cambio de
+ * estado se anexan a una bitácora (data/pedidos.journal) antes de ser visibles.
+ *
+ * Cada 200 registros, en el hilo de E/S, los pedidos abiertos se escriben a
+ * data/pedidos.json y la bitácora rotada se anexa a data/pedidos.historial, que
+ * queda como historial de ventas. Al arrancar se leen los pedidos abiertos del
+ * snapshot y se reproduce solo la bitácora posterior, para reconstruir los
+ * pedidos y sus colas. Las mutaciones comparten un candado de lectura que la
+ * compactación toma en exclusiva solo para copiar los pedidos y rotar la bitácora.
+ */
+public class AllPedidos {
+    private static final CargaDiferida<AllPedidos> carga = new CargaDiferida<>(AllPedidos::new);
+    static final int CAPACIDAD_COLA = 256; // pedidos en espera por establecimiento
+    private static final int UMBRAL_COMPACTACION = 200; // registros en bitácora antes de compactar
+    private final String FILE_PATH = "data/pedidos.json"; // pedidos abiertos a la última compactación
+    private final String JOURNAL_FILE_PATH = "data/pedidos.journal";
+    private final String HISTORIAL_FILE_PATH = "data/pedidos.historial";
+    private final Bitacora bitacora = new Bitacora(JOURNAL_FILE_PATH);
+    // Lectura: registrar un cambio y aplicarlo. Escritura: copiar los pedidos y rotar.
+    private final StampedLock candado = new StampedLock();
+    private final Object snapshotLock = new Object(); // serializa escrituras de snapshot
+    private final AtomicBoolean compactacionPendiente = new AtomicBoolean(false);
+    private final Map<Establecimiento, ColaPedidos> colas = new EnumMap<>(Establecimiento.class);
+    // Pedidos que aún no se entregan ni se cancelan
+    private final ConcurrentHashMap<Integer, Pedido> abiertos = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId = new AtomicInteger(1);
+    private final LongAdder recibidos = new LongAdder();
+    private final LongAdder rechazados = new LongAdder();
+    private final AllProductos allProductos = AllProductos.getInstance();
+    private final MotorPrecios motor = MotorPrecios.getInstance();
+    private final Inventario inventario = Inventario.getInstance();
+
+    private AllPedidos() {
+        colas.put(Establecimiento.Cafeteria, new ColaPedidos(CAPACIDAD_COLA));
+        colas.put(Establecimiento.Cafecito, new ColaPedidos(CAPACIDAD_COLA));
+        loadFromFile();
+        reproducirBitacora();
+    }
+
+    public static AllPedidos getInstance() {
+        return carga.obtener();
+    }
+
+    /**
+     * Arranca la carga del archivo en segundo plano (ver Main)
+     */
+    public static CompletableFuture<AllPedidos> cargarAsync(Executor executor) {
+        return carga.iniciar(executor);
+    }
+
+    /**
+     * Se completa cuando los datos ya están en memoria
+     */
+    public static CompletableFuture<AllPedidos> listo() {
+        return carga.futuro();
+    }
+
+    /**
+     * Recibe un pedido: fija el precio de cada línea con el MotorPrecios, descuenta
+     * sus ingredientes del Inventario, le asigna ID, lo anota en la bitácora y lo
+     * encola en su establecimiento.
+     * Devuelve false (y regresa los ingredientes) si la cola está llena.
+     *
+     * @throws IllegalArgumentException si el establecimiento no es Cafeteria ni
+     *         Cafecito, si no trae líneas, si algún producto o tamaño no existe o
+     *         no está disponible, o si no alcanzan los ingredientes
+     * @throws UncheckedIOException si no se pudo escribir la bitácora; el pedido
+     *         no se acepta
+     */
+    public boolean enviar(Pedido pedido) {
+        ColaPedidos cola = colas.get(pedido.getEstablecimiento());
+        if (cola == null) {
+            throw new IllegalArgumentException("Establecimiento inválido para un pedido: " + pedido.getEstablecimiento());
+        }
+        List<LineaPedido> lineas = pedido.getLineas();
+        if (lineas.isEmpty()) {
+            throw new IllegalArgumentException("El pedido no tiene productos");
+        }
+        fijarPrecios(pedido, lineas);
+        descontarExistencias(lineas);
+
+        if (!cola.reservar()) {
+            devolverExistencias(lineas);
+            rechazados.increment();
+            return false;
+        }
+        pedido.setId(nextId.getAndIncrement());
+        JSONObject registro = pedido.toJson();
+        long sello = candado.readLock();
+        try {
+            // Se publica y se encola con el pedido bloqueado: una cancelación que lo
+            // vea en abiertos espera a que ya esté en la cola, y quitar() lo encuentra
+            synchronized (pedido) {
+                registrar("pedido.agregar", registro);
+                abiertos.put(pedido.getId(), pedido);
+                cola.encolar(pedido);
+            }
+        } catch (UncheckedIOException e) {
+            // Sin registro en la bitácora el pedido no se acepta
+            cola.liberar();
+            devolverExistencias(lineas);
+            throw e;
+        } finally {
+            candado.unlockRead(sello);
+        }
+        recibidos.increment();
+        return true;
+    }
+
+    /**
+     * Siguiente pedido en espera del establecimiento (lo pasa a EnPreparacion), o
+     * null si no hay. Los cancelados mientras esperaban se saltan.
+     */
+    public Pedido tomarSiguiente(Establecimiento establecimiento) {
+        ColaPedidos cola = colas.get(establecimiento);
+        if (cola == null) return null;
+        Pedido pedido;
+        while ((pedido = cola.tomar()) != null) {
+            if (cambiarEstado(pedido, Pedido.Estado.Recibido, Pedido.Estado.EnPreparacion)) {
+                return pedido;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Avanza el pedido un paso (EnPreparacion → Listo → Entregado) o lo cancela.
+     * EnPreparacion solo se asigna con tomarSiguiente, que lo saca de la cola.
+     * false si el pedido no está abierto o si la transición no se permite
+     * (saltar pasos, regresar, o pasar a EnPreparacion por aquí).
+     */
+    public boolean cambiarEstado(int id, Pedido.Estado estado) {
+        Pedido pedido = abiertos.get(id);
+        if (pedido == null || estado == Pedido.Estado.EnPreparacion) return false;
+        return cambiarEstado(pedido, pedido.getEstado(), estado);
+    }
+
+    public Pedido getById(int id) {
+        return abiertos.get(id);
+    }
+
+    /**
+     * Pedidos abiertos del establecimiento, del más antiguo al más reciente
+     */
+    public List<Pedido> getAbiertos(Establecimiento establecimiento) {
+        return abiertos.values().stream()
+                .filter(p -> p.getEstablecimiento() == establecimiento)
+                .sorted(Comparator.comparingInt(Pedido::getId))
+                .collect(Collectors.toList());
+    }
+
+    public int getEnEspera(Establecimiento establecimiento) {
+        ColaPedidos cola = colas.get(establecimiento);
+        return cola == null ? 0 : cola.tamano();
+    }
+
+    public String getEstadisticas() {
+        StringBuilder sb = new StringBuilder(String.format("Recibidos: %d | Rechazados (cola llena): %d | Abiertos: %d",
+                recibidos.sum(), rechazados.sum(), abiertos.size()));
+        colas.forEach((establecimiento, cola) -> sb.append(String.format(" | %s: %d/%d en espera",
+                establecimiento, cola.tamano(), cola.getCapacidad())));
+        return sb.toString();
+    }
+
+    private void fijarPrecios(Pedido pedido, List<LineaPedido> lineas) {
+        for (LineaPedido linea : lineas) {
+            Producto producto = allProductos.getById(linea.getIdProducto());
+            if (producto == null || !producto.isDisponible()) {
+                throw new IllegalArgumentException("Producto no disponible: " + linea.getIdProducto());
+            }
+            if (linea.getCantidad() <= 0) {
+                throw new IllegalArgumentException("Cantidad inválida para " + producto.getNombre());
+            }
+            double precio = motor.precio(linea.getIdProducto(), linea.getIdTamano(),
+                    linea.getSustituciones(), pedido.getFechaHora());
+            if (precio < 0) {
+                throw new IllegalArgumentException("Tamaño inválido para " + producto.getNombre());
+            }
+            linea.setPrecioUnitario(precio);
+        }
+    }
+
+    // Todo o nada: si una línea no alcanza, se regresan las anteriores
+    private void descontarExistencias(List<LineaPedido> lineas) {
+        for (int i = 0; i < lineas.size(); i++) {
+            LineaPedido linea = lineas.get(i);
+            Producto producto = allProductos.getById(linea.getIdProducto());
+            if (producto == null) {
+                devolverExistencias(lineas.subList(0, i));
+                throw new IllegalArgumentException("Producto no disponible: " + linea.getIdProducto());
+            }
+            if (!inventario.descontar(producto, linea.getIdTamano(), linea.getSustituciones(), linea.getCantidad())) {
+                devolverExistencias(lineas.subList(0, i));
+                throw new IllegalArgumentException("No hay ingredientes suficientes para " + producto.getNombre());
+            }
+        }
+    }
+
+    private void devolverExistencias(List<LineaPedido> lineas) {
+        for (LineaPedido linea : lineas) {
+            Producto producto = allProductos.getById(linea.getIdProducto());
+            if (producto == null) continue;
+            inventario.devolver(producto, linea.getIdTamano(), linea.getSustituciones(), linea.getCantidad());
+        }
+    }
+
+    // Transición con el pedido bloqueado, para que dos hilos no lo avancen a la vez
+    private boolean cambiarEstado(Pedido pedido, Pedido.Estado esperado, Pedido.Estado nuevo) {
+        if (!esperado.puedePasarA(nuevo)) return false;
+        long sello = candado.readLock();
+        try {
+            synchronized (pedido) {
+                if (pedido.getEstado() != esperado) return false;
+                registrar("pedido.estado", new JSONObject()
+                        .put("ID", pedido.getId())
+                        .put("Estado", nuevo.name()));
+                pedido.setEstado(nuevo);
+            }
+            if (nuevo.isFinal()) abiertos.remove(pedido.getId());
+        } finally {
+            candado.unlockRead(sello);
+        }
+        // Cancelado antes de prepararse: deja su lugar en la cola (si tomarSiguiente no
+        // lo sacó ya) y sus ingredientes no se usaron
+        if (esperado == Pedido.Estado.Recibido && nuevo == Pedido.Estado.Cancelado) {
+            colas.get(pedido.getEstablecimiento()).quitar(pedido);
+            devolverExistencias(pedido.getLineas());
+        }
+        return true;
+    }
+
+    /**
+     * Anexa el cambio a la bitácora y, al pasar el umbral, agenda una sola
+     * compactación en el hilo de E/S del PlanificadorGuardado
+     */
+    private void registrar(String operacion, JSONObject datos) {
+        bitacora.registrar(operacion, datos);
+        if (bitacora.getRegistros() >= UMBRAL_COMPACTACION && compactacionPendiente.compareAndSet(false, true)) {
+            PlanificadorGuardado.getInstance().marcarSucio(JOURNAL_FILE_PATH, this::compactar);
+        }
+    }
+
+    /**
+     * Escribe los pedidos abiertos y pasa la bitácora que ya quedó incluida en
+     * ellos al historial. La copia y la rotación se hacen con el candado
+     * exclusivo; la nueva bitácora empieza con el siguiente ID, porque los
+     * pedidos cerrados ya no están en el snapshot. La escritura a disco ocurre
+     * fuera del candado.
+     */
+    private void compactar() {
+        synchronized (snapshotLock) {
+            compactacionPendiente.set(false);
+            List<JSONObject> snapshot = new ArrayList<>();
+            long sello = candado.writeLock();
+            try {
+                List<Pedido> pedidos = new ArrayList<>(abiertos.values());
+                pedidos.sort(Comparator.comparingInt(Pedido::getId));
+                for (Pedido pedido : pedidos) snapshot.add(pedido.toJson());
+                bitacora.rotar();
+                bitacora.registrar("pedido.siguiente", new JSONObject().put("ID", nextId.get()));
+            } catch (UncheckedIOException e) {
+                // Sin este registro solo se podría reusar el ID de un pedido ya cerrado
+                e.printStackTrace();
+            } finally {
+                candado.unlockWrite(sello);
+            }
+            try {
+                ArchivoDatos.escribir(FILE_PATH, snapshot, json -> json);
+                bitacora.archivarRotado(HISTORIAL_FILE_PATH);
+            } catch (Exception e) {
+                // La bitácora rotada se conserva y se reproduce al arrancar
+                //System.err.println("Error guardando pedidos:");
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private void loadFromFile() {
+        try {
+            File file = new File(FILE_PATH);
+            if (!file.exists()) return;
+
+            for (Pedido pedido : ArchivoDatos.leer(file.getPath(), Pedido::new)) {
+                abiertos.put(pedido.getId(), pedido);
+                nextId.set(Math.max(nextId.get(), pedido.getId() + 1));
+            }
+        } catch (Exception e) {
+            //System.err.println("Error cargando pedidos desde archivo:");
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Aplica sobre el snapshot los registros posteriores a la última compactación
+     * (y los de una compactación que no terminó); reaplicar un registro que ya
+     * estaba en el snapshot deja el mismo resultado.
+     */
+    private void reproducirBitacora() {
+        bitacora.reproducir((op, datos) -> {
+            try {
+                switch (op) {
+                    case "pedido.siguiente":
+                        nextId.set(Math.max(nextId.get(), datos.getInt("ID")));
+                        break;
+                    case "pedido.agregar": {
+                        Pedido pedido = new Pedido(datos);
+                        abiertos.put(pedido.getId(), pedido);
+                        nextId.set(Math.max(nextId.get(), pedido.getId() + 1));
+                        break;
+                    }
+                    case "pedido.estado": {
+                        Pedido.Estado estado = Pedido.Estado.valueOf(datos.getString("Estado"));
+                        Pedido pedido = abiertos.get(datos.getInt("ID"));
+                        if (pedido == null) break;
+                        pedido.setEstado(estado);
+                        if (estado.isFinal()) abiertos.remove(pedido.getId());
+                        break;
+                    }
+                    default:
+                        break;
+                }
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        });
+
+        // Los que seguían en espera vuelven a su cola, en el orden en que llegaron
+        List<Pedido> enEspera = new ArrayList<>();
+        for (Pedido pedido : abiertos.values()) {
+            if (pedido.getEstado() == Pedido.Estado.Recibido) enEspera.add(pedido);
+        }
+        enEspera.sort(Comparator.comparingInt(Pedido::getId));
+        for (Pedido pedido : enEspera) {
+            ColaPedidos cola = colas.get(pedido.getEstablecimiento());
+            if (cola != null) cola.encolarSinLimite(pedido);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package core.data.Pedidos;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cola acotada sin bloqueos (varios productores, varios consumidores) de los
+ * pedidos de un establecimiento.
+ *
+ * El cupo se reserva con CAS sobre el contador antes de encolar, así la cola
+ * nunca pasa de su capacidad y un pedido que no cabe se rechaza de inmediato en
+ * vez de esperar. reservar/encolar van por separado para que AllPedidos escriba
+ * la bitácora entre ambos. Un pedido cancelado mientras espera se quita con
+ * quitar(), que libera su lugar; tomar() y quitar() nunca liberan dos veces el
+ * mismo pedido porque solo uno de los dos lo saca de la cola.
+ */
+class ColaPedidos {
+    private final ConcurrentLinkedQueue<Pedido> cola = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger ocupados = new AtomicInteger();
+    private final int capacidad;
+
+    ColaPedidos(int capacidad) {
+        this.capacidad = capacidad;
+    }
+
+    /**
+     * Aparta un lugar; false si la cola está llena
+     */
+    boolean reservar() {
+        int actual;
+        do {
+            actual = ocupados.get();
+            if (actual >= capacidad) return false;
+        } while (!ocupados.compareAndSet(actual, actual + 1));
+        return true;
+    }
+
+    // Devuelve un lugar reservado que no se llegó a encolar
+    void liberar() {
+        ocupados.decrementAndGet();
+    }
+
+    /**
+     * Saca un pedido en espera (cancelado) y libera su lugar; false si ya no estaba
+     */
+    boolean quitar(Pedido pedido) {
+        if (!cola.remove(pedido)) return false;
+        ocupados.decrementAndGet();
+        return true;
+    }
+
+    // Solo después de reservar
+    void encolar(Pedido pedido) {
+        cola.offer(pedido);
+    }
+
+    // Al reconstruir la cola desde la bitácora, donde no se rechaza nada
+    void encolarSinLimite(Pedido pedido) {
+        ocupados.incrementAndGet();
+        cola.offer(pedido);
+    }
+
+    Pedido tomar() {
+        Pedido pedido = cola.poll();
+        if (pedido != null) ocupados.decrementAndGet();
+        return pedido;
+    }
+
+    int tamano() {
+        return ocupados.get();
+    }
+
+    int getCapacidad() {
+        return capacidad;
+    }
+}
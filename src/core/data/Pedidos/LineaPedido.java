@@ -0,0 +1,86 @@
+package core.data.Pedidos;
+
+import core.data.Productos.MotorPrecios.Sustitucion;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Una línea de un pedido: producto, tamaño (0 = sin tamaño), cantidad y
+ * sustituciones de ingredientes (ingrediente original → Sustituto elegido).
+ * El precio unitario se fija con el MotorPrecios al recibir el pedido y ya no
+ * cambia aunque cambien los precios después.
+ */
+public class LineaPedido {
+    private final int idProducto;
+    private final String nombreProducto; // Para mostrar en UI
+    private final int idTamano;
+    private final int cantidad;
+    private final List<Sustitucion> sustituciones;
+    private double precioUnitario;
+
+    public LineaPedido(int idProducto, String nombreProducto, int idTamano, int cantidad,
+                       List<Sustitucion> sustituciones) {
+        this.idProducto = idProducto;
+        this.nombreProducto = nombreProducto;
+        this.idTamano = idTamano;
+        this.cantidad = cantidad;
+        this.sustituciones = sustituciones != null ? new ArrayList<>(sustituciones) : new ArrayList<>();
+    }
+
+    // Constructor desde JSON
+    public LineaPedido(JSONObject json) {
+        this.idProducto = json.getInt("IDProducto");
+        this.nombreProducto = json.optString("NombreProducto", "");
+        this.idTamano = json.optInt("IDTamano", 0);
+        this.cantidad = json.optInt("Cantidad", 1);
+        this.precioUnitario = json.optDouble("PrecioUnitario", 0.0);
+        this.sustituciones = new ArrayList<>();
+        if (json.has("Sustituciones")) {
+            JSONArray array = json.getJSONArray("Sustituciones");
+            for (int i = 0; i < array.length(); i++) {
+                JSONObject s = array.getJSONObject(i);
+                sustituciones.add(new Sustitucion(s.getInt("IDIngrediente"), s.getInt("IDSustituto")));
+            }
+        }
+    }
+
+    // Convertir a JSON
+    public JSONObject toJson() {
+        JSONObject obj = new JSONObject();
+        obj.put("IDProducto", idProducto);
+        obj.put("NombreProducto", nombreProducto);
+        obj.put("IDTamano", idTamano);
+        obj.put("Cantidad", cantidad);
+        obj.put("PrecioUnitario", precioUnitario);
+        JSONArray array = new JSONArray();
+        for (Sustitucion s : sustituciones) {
+            array.put(new JSONObject()
+                    .put("IDIngrediente", s.getIdIngrediente())
+                    .put("IDSustituto", s.getIdSustituto()));
+        }
+        obj.put("Sustituciones", array);
+        return obj;
+    }
+
+    public double getSubtotal() {
+        return precioUnitario * cantidad;
+    }
+
+    // Getters y Setters
+    public int getIdProducto() { return idProducto; }
+    public String getNombreProducto() { return nombreProducto; }
+    public int getIdTamano() { return idTamano; }
+    public int getCantidad() { return cantidad; }
+    public List<Sustitucion> getSustituciones() { return new ArrayList<>(sustituciones); }
+    public double getPrecioUnitario() { return precioUnitario; }
+
+    void setPrecioUnitario(double precioUnitario) { this.precioUnitario = precioUnitario; }
+
+    @Override
+    public String toString() {
+        return cantidad + " x " + nombreProducto + String.format(" ($%.2f)", getSubtotal());
+    }
+}
@@ -0,0 +1,102 @@
+package core.data.Pedidos;
+
+import core.data.Avisos.Aviso.Establecimiento;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pedido de un cliente en un establecimiento (Cafeteria o Cafecito).
+ * Las líneas no cambian después de recibirse; solo avanza el estado.
+ */
+public class Pedido {
+    public enum Estado {
+        Recibido, EnPreparacion, Listo, Entregado, Cancelado;
+
+        // Entregado y Cancelado cierran el pedido
+        public boolean isFinal() {
+            return this == Entregado || this == Cancelado;
+        }
+
+        // Solo hacia adelante y de un paso (Recibido → EnPreparacion → Listo → Entregado);
+        // cualquier estado abierto puede cancelarse
+        public boolean puedePasarA(Estado nuevo) {
+            if (isFinal()) return false;
+            return nuevo == Cancelado || nuevo.ordinal() == ordinal() + 1;
+        }
+    }
+
+    private int id;
+    private final Establecimiento establecimiento;
+    private final String claveUsuario;
+    private final LocalDateTime fechaHora;
+    private final List<LineaPedido> lineas;
+    private volatile Estado estado;
+
+    public Pedido(Establecimiento establecimiento, String claveUsuario, LocalDateTime fechaHora,
+                  List<LineaPedido> lineas) {
+        this.establecimiento = establecimiento;
+        this.claveUsuario = claveUsuario;
+        this.fechaHora = fechaHora;
+        this.lineas = new ArrayList<>(lineas);
+        this.estado = Estado.Recibido;
+    }
+
+    // Constructor desde JSON
+    public Pedido(JSONObject json) {
+        this.id = json.getInt("ID");
+        this.establecimiento = Establecimiento.valueOf(json.getString("Establecimiento"));
+        this.claveUsuario = json.optString("ClaveUsuario", "");
+        this.fechaHora = LocalDateTime.parse(json.getString("FechaHora"));
+        this.estado = Estado.valueOf(json.optString("Estado", Estado.Recibido.name()));
+        this.lineas = new ArrayList<>();
+        JSONArray array = json.getJSONArray("Lineas");
+        for (int i = 0; i < array.length(); i++) {
+            lineas.add(new LineaPedido(array.getJSONObject(i)));
+        }
+    }
+
+    // Convertir a JSON
+    public JSONObject toJson() {
+        JSONObject obj = new JSONObject();
+        obj.put("ID", id);
+        obj.put("Establecimiento", establecimiento.name());
+        obj.put("ClaveUsuario", claveUsuario);
+        obj.put("FechaHora", fechaHora.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+        obj.put("Estado", estado.name());
+        JSONArray array = new JSONArray();
+        for (LineaPedido linea : lineas) {
+            array.put(linea.toJson());
+        }
+        obj.put("Lineas", array);
+        return obj;
+    }
+
+    public double getTotal() {
+        double total = 0;
+        for (LineaPedido linea : lineas) {
+            total += linea.getSubtotal();
+        }
+        return total;
+    }
+
+    // Getters y Setters
+    public int getId() { return id; }
+    public Establecimiento getEstablecimiento() { return establecimiento; }
+    public String getClaveUsuario() { return claveUsuario; }
+    public LocalDateTime getFechaHora() { return fechaHora; }
+    public List<LineaPedido> getLineas() { return new ArrayList<>(lineas); }
+    public Estado getEstado() { return estado; }
+
+    void setId(int id) { this.id = id; }
+    void setEstado(Estado estado) { this.estado = estado; }
+
+    @Override
+    public String toString() {
+        return "Pedido #" + id + " (" + establecimiento + ") - " + estado + String.format(" $%.2f", getTotal());
+    }
+}
@@ -0,0 +1,231 @@
+package core.data.Pedidos;
+
+import core.data.Avisos.Aviso.Establecimiento;
+import core.data.Ingredientes.Inventario;
+import core.data.Persistencia.PlanificadorGuardado;
+import core.data.Productos.AllProductos;
+import core.data.Productos.Producto;
+import core.data.Productos.ProductoIngrediente;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Prueba de carga de AllPedidos con cientos de clientes enviando a la vez:
+ *   PruebaCargaPedidos [clientes] [pedidosPorCliente] [cocinerosPorEstablecimiento]
+ *   (por defecto 200 50 2)
+ *
+ * Crea productos e inventario sintéticos en data/, así que se niega a correr si
+ * data/ ya existe: hay que correrla en un directorio vacío. Los clientes envían
+ * pedidos y cancelan algunos; los cocineros los toman, los marcan Listo y
+ * Entregado. Todos los productos llevan el ingrediente 1, que alcanza para todo,
+ * y el producto 1 lleva además el 3, que se agota pronto: sus pedidos se rechazan
+ * por existencias después de descontar el 1, que se tiene que devolver. Los
+ * cocineros entran hasta que se enviaron más pedidos de los que caben en las dos
+ * colas, así que también hay rechazos por cola llena; por lo mismo se necesitan
+ * más de ARRANQUE envíos en total.
+ *
+ * Imprime pedidos por segundo y la latencia de enviar(). Falla (código de salida
+ * 1) si no hubo rechazos por cola llena o por existencias, si al final queda
+ * algún pedido abierto o en cola, si algún pedido aceptado no terminó cancelado
+ * o entregado, si las existencias no cuadran con lo consumido, o si la bitácora
+ * y el historial no tienen un registro por cada pedido aceptado y cada cambio
+ * de estado.
+ */
+public final class PruebaCargaPedidos {
+    private PruebaCargaPedidos() {}
+
+    private static final int PRODUCTOS = 10;
+    private static final double GRAMOS = 10; // de los ingredientes 1 y 3, por unidad
+    // Envíos antes de que entren los cocineros: más de lo que cabe en las dos colas
+    private static final int ARRANQUE = 2 * AllPedidos.CAPACIDAD_COLA + 100;
+    private static final int UNIDADES_3 = 12; // del producto 1; se acaban con unos 8 pedidos
+
+    public static void main(String[] args) throws InterruptedException, IOException {
+        int clientes = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int porCliente = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        int cocineros = args.length > 2 ? Integer.parseInt(args[2]) : 2;
+        if (new File("data").exists()) {
+            System.out.println("data/ ya existe; corra la prueba en un directorio vacío");
+            System.exit(2);
+        }
+        if ((long) clientes * porCliente <= ARRANQUE) {
+            System.out.println("Se necesitan más de " + ARRANQUE + " envíos para llenar las colas");
+            System.exit(2);
+        }
+
+        AllProductos allProductos = AllProductos.getInstance();
+        for (int i = 1; i <= PRODUCTOS; i++) {
+            Producto producto = new Producto(i, "Producto " + i, "", 30 + i, "Comidas", 300, 400, "", true);
+            producto.agregarIngrediente(new ProductoIngrediente(1, "Ingrediente 1", GRAMOS, false, false, 1));
+            producto.agregarIngrediente(new ProductoIngrediente(2, "Ingrediente 2", 50, false, false, 2));
+            if (i == 1) producto.agregarIngrediente(new ProductoIngrediente(3, "Ingrediente 3", GRAMOS, false, false, 3));
+            allProductos.addProducto(producto);
+        }
+        // Cada envío pide 1 o 2 unidades. Antes de que entren los cocineros se aceptan
+        // los que caben en las colas, y uno de cada diez es del producto 1
+        double inicial1 = clientes * porCliente * 2 * GRAMOS;
+        double inicial3 = UNIDADES_3 * GRAMOS;
+        Inventario inventario = Inventario.getInstance();
+        inventario.setExistencia(1, inicial1);
+        inventario.setExistencia(3, inicial3);
+        AllPedidos allPedidos = AllPedidos.getInstance();
+
+        LongAdder aceptados = new LongAdder();
+        LongAdder colaLlena = new LongAdder();
+        LongAdder sinExistencias = new LongAdder();
+        LongAdder cancelados = new LongAdder();
+        LongAdder transiciones = new LongAdder();
+        LongAdder entregados = new LongAdder();
+        long[][] latencias = new long[clientes][];
+        AtomicBoolean enviando = new AtomicBoolean(true);
+        CountDownLatch salida = new CountDownLatch(1);
+        CountDownLatch arranque = new CountDownLatch(1);
+        AtomicInteger enviados = new AtomicInteger();
+        List<Thread> hilosClientes = new ArrayList<>();
+        List<Thread> hilosCocineros = new ArrayList<>();
+
+        for (int c = 0; c < clientes; c++) {
+            int cliente = c;
+            hilosClientes.add(new Thread(() -> {
+                esperar(salida);
+                ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+                long[] propias = new long[porCliente];
+                for (int i = 0; i < porCliente; i++) {
+                    Establecimiento establecimiento = aleatorio.nextBoolean()
+                            ? Establecimiento.Cafeteria : Establecimiento.Cafecito;
+                    int idProducto = aleatorio.nextInt(1, PRODUCTOS + 1);
+                    Pedido pedido = new Pedido(establecimiento, "C" + cliente, LocalDateTime.now(), List.of(
+                            new LineaPedido(idProducto, "Producto " + idProducto, 0, aleatorio.nextInt(1, 3), null)));
+                    long inicio = System.nanoTime();
+                    try {
+                        if (allPedidos.enviar(pedido)) {
+                            aceptados.increment();
+                            transiciones.increment(); // pedido.agregar
+                            if (aleatorio.nextInt(10) == 0 && allPedidos.cambiarEstado(pedido.getId(), Pedido.Estado.Cancelado)) {
+                                cancelados.increment();
+                                transiciones.increment();
+                            }
+                        } else {
+                            colaLlena.increment();
+                        }
+                    } catch (IllegalArgumentException e) {
+                        sinExistencias.increment();
+                    }
+                    propias[i] = System.nanoTime() - inicio;
+                    if (enviados.incrementAndGet() == ARRANQUE) arranque.countDown();
+                }
+                latencias[cliente] = propias;
+            }, "cliente-" + c));
+        }
+
+        for (Establecimiento establecimiento : List.of(Establecimiento.Cafeteria, Establecimiento.Cafecito)) {
+            for (int k = 0; k < cocineros; k++) {
+                hilosCocineros.add(new Thread(() -> {
+                    esperar(arranque);
+                    while (true) {
+                        Pedido pedido = allPedidos.tomarSiguiente(establecimiento);
+                        if (pedido == null) {
+                            if (!enviando.get() && allPedidos.getEnEspera(establecimiento) == 0) return;
+                            Thread.onSpinWait();
+                            continue;
+                        }
+                        transiciones.increment(); // EnPreparacion
+                        // Un cliente pudo cancelarlo entre que se tomó y ahora
+                        if (allPedidos.cambiarEstado(pedido.getId(), Pedido.Estado.Listo)) {
+                            transiciones.increment();
+                            if (allPedidos.cambiarEstado(pedido.getId(), Pedido.Estado.Entregado)) {
+                                transiciones.increment();
+                                entregados.increment();
+                            }
+                        }
+                    }
+                }, "cocinero-" + establecimiento + "-" + k));
+            }
+        }
+
+        long inicio = System.nanoTime();
+        hilosClientes.forEach(Thread::start);
+        hilosCocineros.forEach(Thread::start);
+        salida.countDown();
+        for (Thread hilo : hilosClientes) hilo.join();
+        long msEnvio = (System.nanoTime() - inicio) / 1_000_000;
+        enviando.set(false);
+        for (Thread hilo : hilosCocineros) hilo.join();
+        PlanificadorGuardado.getInstance().flush();
+
+        long[] todas = Arrays.stream(latencias).flatMapToLong(Arrays::stream).sorted().toArray();
+        int abiertos = allPedidos.getAbiertos(Establecimiento.Cafeteria).size()
+                + allPedidos.getAbiertos(Establecimiento.Cafecito).size();
+        int enCola = allPedidos.getEnEspera(Establecimiento.Cafeteria) + allPedidos.getEnEspera(Establecimiento.Cafecito);
+        boolean existenciasCuadran = cuadra(inventario, 1, inicial1) && cuadra(inventario, 3, inicial3);
+        int[] registros = contarRegistros("data/pedidos.historial", "data/pedidos.journal");
+
+        System.out.printf("%d clientes x %d pedidos, %d cocineros por establecimiento: %,d envíos en %d ms (%,.0f pedidos/s)%n",
+                clientes, porCliente, cocineros, todas.length, msEnvio, todas.length * 1000.0 / Math.max(1, msEnvio));
+        System.out.printf("Aceptados: %d | Cola llena: %d | Sin existencias: %d | Cancelados: %d | Entregados: %d%n",
+                aceptados.sum(), colaLlena.sum(), sinExistencias.sum(), cancelados.sum(), entregados.sum());
+        System.out.printf("Latencia de enviar(): p50 %.1f µs | p99 %.1f µs | máx %.1f ms%n",
+                percentil(todas, 0.50) / 1e3, percentil(todas, 0.99) / 1e3, todas[todas.length - 1] / 1e6);
+        System.out.printf("Al final: %d abiertos, %d en cola%n", abiertos, enCola);
+        for (int id : new int[]{1, 3}) {
+            System.out.printf("Ingrediente %d: %.1f disponible + %.1f consumido (inicial %.1f)%n", id,
+                    inventario.getExistencia(id), inventario.getConsumido(id), id == 1 ? inicial1 : inicial3);
+        }
+        System.out.printf("Bitácora: %d registros de pedidos (esperados %d), %d en la bitácora actual%n",
+                registros[0], transiciones.sum(), registros[1]);
+
+        boolean correcto = colaLlena.sum() > 0 && sinExistencias.sum() > 0
+                && abiertos == 0 && enCola == 0 && existenciasCuadran
+                && registros[0] == transiciones.sum() && aceptados.sum() == cancelados.sum() + entregados.sum();
+        System.out.println(correcto ? "OK" : "FALLA");
+        System.exit(correcto ? 0 : 1);
+    }
+
+    // Lo disponible más lo consumido debe dar lo inicial: nada se perdió ni se duplicó
+    private static boolean cuadra(Inventario inventario, int idIngrediente, double inicial) {
+        double disponible = inventario.getExistencia(idIngrediente);
+        return disponible >= 0 && Math.abs(disponible + inventario.getConsumido(idIngrediente) - inicial) < 0.01;
+    }
+
+    // [registros de pedidos en todos los archivos, líneas en el último]
+    private static int[] contarRegistros(String... archivos) throws IOException {
+        int[] total = new int[2];
+        for (String archivo : archivos) {
+            File file = new File(archivo);
+            if (!file.exists()) continue;
+            int lineas = 0;
+            for (String linea : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+                if (linea.isBlank()) continue;
+                lineas++;
+                if (!new JSONObject(linea).getString("Op").equals("pedido.siguiente")) total[0]++;
+            }
+            total[1] = lineas;
+        }
+        return total;
+    }
+
+    private static long percentil(long[] ordenadas, double p) {
+        return ordenadas[Math.min(ordenadas.length - 1, (int) (p * ordenadas.length))];
+    }
+
+    private static void esperar(CountDownLatch salida) {
+        try {
+            salida.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
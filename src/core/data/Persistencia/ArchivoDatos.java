@@ -0,0 +1,51 @@
+package core.data.Persistencia;
+
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Punto único de lectura/escritura de los archivos de datos de los repositorios.
+ *
+ * El JSON (data/*.json) es siempre el formato de referencia. Si se arranca con
+ * -Dcafi.snapshot.binario=true, cada guardado escribe además un snapshot binario
+ * (data/*.bin, ver SnapshotBinario) y al cargar se usa el binario cuando es al
+ * menos tan reciente como el JSON; si el JSON se editó después, o el binario está
+ * dañado, se lee el JSON.
+ */
+public final class ArchivoDatos {
+    private static final boolean BINARIO_HABILITADO = Boolean.getBoolean("cafi.snapshot.binario");
+
+    private ArchivoDatos() {}
+
+    public static <T> List<T> leer(String rutaJson, Function<JSONObject, T> crear) throws IOException {
+        if (BINARIO_HABILITADO) {
+            File json = new File(rutaJson);
+            File binario = new File(rutaBinario(rutaJson));
+            if (binario.exists() && binario.lastModified() >= json.lastModified()) {
+                try {
+                    return SnapshotBinario.leer(binario.getPath(), crear);
+                } catch (IOException e) {
+                    //System.err.println("Snapshot binario inválido, usando JSON: " + e.getMessage());
+                }
+            }
+        }
+        return LectorJson.leerArreglo(rutaJson, crear);
+    }
+
+    public static <T> void escribir(String rutaJson, Iterable<T> elementos, Function<T, JSONObject> aJson) throws IOException {
+        EscritorSnapshot.escribir(rutaJson, elementos, aJson);
+        if (BINARIO_HABILITADO) {
+            SnapshotBinario.escribir(rutaBinario(rutaJson), elementos, aJson);
+        }
+    }
+
+    private static String rutaBinario(String rutaJson) {
+        return rutaJson.endsWith(".json")
+                ? rutaJson.substring(0, rutaJson.length() - ".json".length()) + ".bin"
+                : rutaJson + ".bin";
+    }
+}
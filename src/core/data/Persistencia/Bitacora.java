@@ -0,0 +1,198 @@
+package core.data.Persistencia;
+
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.function.BiConsumer;
+
+/**
+ * Bitácora de solo-anexar (write-ahead log) para los cambios de un repositorio.
+ * Cada mutación se escribe como una línea JSON {"Op": ..., "Datos": {...}} en lugar
+ * de reescribir el archivo completo. Al compactar, la bitácora se rota a un archivo
+ * ".old" que se descarta (o se archiva) una vez que el snapshot quedó escrito.
+ *
+ * Si un registro no se puede escribir, registrar() lanza UncheckedIOException
+ * para que el repositorio no aplique el cambio: la bitácora y la memoria nunca
+ * deben diferir.
+ */
+public class Bitacora {
+    private final File archivo;
+    private final File archivoRotado;
+    private FileOutputStream salida;
+    private BufferedWriter writer;
+    private volatile int registros = 0; // se escribe con el candado; se lee sin él
+
+    public Bitacora(String ruta) {
+        this.archivo = new File(ruta);
+        this.archivoRotado = new File(ruta + ".old");
+    }
+
+    /**
+     * Anexa un registro al final de la bitácora. La línea se arma antes de tomar
+     * el candado: los hilos que registran a la vez solo se forman para escribirla.
+     *
+     * @throws UncheckedIOException si no se pudo escribir; lo que alcanzó a
+     *         escribirse se recorta para no dejar una línea a medias
+     */
+    public void registrar(String operacion, JSONObject datos) {
+        JSONObject registro = new JSONObject();
+        registro.put("Op", operacion);
+        registro.put("Datos", datos);
+        escribir(registro.toString());
+    }
+
+    private synchronized void escribir(String linea) {
+        long longitud = -1;
+        try {
+            if (writer == null) {
+                archivo.getParentFile().mkdirs();
+                salida = new FileOutputStream(archivo, true);
+                writer = new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8));
+            }
+            longitud = salida.getChannel().size();
+            writer.write(linea);
+            writer.newLine();
+            writer.flush();
+            registros++;
+        } catch (IOException e) {
+            descartarParcial(longitud);
+            throw new UncheckedIOException("No se pudo escribir en " + archivo, e);
+        }
+    }
+
+    // Una línea incompleta cortaría la reproducción ahí, perdiendo lo que se anexe después
+    private void descartarParcial(long longitud) {
+        try {
+            if (salida != null && longitud >= 0) salida.getChannel().truncate(longitud);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        // El writer puede conservar bytes del registro fallido; se abre uno nuevo
+        try {
+            if (salida != null) salida.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        salida = null;
+        writer = null;
+    }
+
+    /**
+     * Número de registros pendientes de compactar
+     */
+    public int getRegistros() {
+        return registros;
+    }
+
+    /**
+     * Reproduce los registros pendientes (primero la bitácora rotada, si quedó una
+     * compactación a medias, y luego la actual). Una última línea incompleta por un
+     * cierre abrupto se ignora.
+     */
+    public synchronized int reproducir(BiConsumer<String, JSONObject> aplicar) {
+        int total = reproducirArchivo(archivoRotado, aplicar) + reproducirArchivo(archivo, aplicar);
+        registros = total;
+        return total;
+    }
+
+    private int reproducirArchivo(File origen, BiConsumer<String, JSONObject> aplicar) {
+        if (!origen.exists()) return 0;
+
+        int total = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new FileInputStream(origen), StandardCharsets.UTF_8))) {
+            String linea;
+            while ((linea = reader.readLine()) != null) {
+                if (linea.isBlank()) continue;
+                JSONObject registro;
+                try {
+                    registro = new JSONObject(linea);
+                } catch (Exception e) {
+                    // Registro truncado: todo lo anterior ya se aplicó
+                    break;
+                }
+                aplicar.accept(registro.getString("Op"), registro.getJSONObject("Datos"));
+                total++;
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return total;
+    }
+
+    /**
+     * Cierra la bitácora actual y la mueve al archivo rotado. Los registros nuevos
+     * empiezan en una bitácora vacía. Si ya existía una rotada (compactación previa
+     * que no terminó), se le anexa el contenido para no perder registros.
+     */
+    public synchronized void rotar() {
+        try {
+            cerrarWriter();
+            if (archivo.exists()) {
+                if (archivoRotado.exists()) {
+                    Files.write(archivoRotado.toPath(), Files.readAllBytes(archivo.toPath()),
+                            StandardOpenOption.APPEND);
+                    Files.delete(archivo.toPath());
+                } else {
+                    Files.move(archivo.toPath(), archivoRotado.toPath());
+                }
+            }
+            registros = 0;
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Elimina la bitácora rotada una vez que su contenido ya está en el snapshot
+     */
+    public void descartarRotado() {
+        try {
+            Files.deleteIfExists(archivoRotado.toPath());
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Anexa la bitácora rotada al archivo de historial y la elimina, para los
+     * repositorios cuya bitácora es también un registro histórico (pedidos).
+     * Si se interrumpe entre ambos pasos, el historial puede repetir registros.
+     */
+    public void archivarRotado(String historial) {
+        try {
+            if (!archivoRotado.exists()) return;
+            Files.write(new File(historial).toPath(), Files.readAllBytes(archivoRotado.toPath()),
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            Files.delete(archivoRotado.toPath());
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    public synchronized void cerrar() {
+        cerrarWriter();
+    }
+
+    private void cerrarWriter() {
+        if (writer == null) return;
+        try {
+            writer.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        salida = null;
+        writer = null;
+    }
+}
@@ -0,0 +1,72 @@
+package core.data.Persistencia;
+
+import org.json.JSONObject;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.function.Function;
+
+/**
+ * Escritura segura de snapshots JSON: se escribe a un archivo temporal en el mismo
+ * directorio, se fuerza a disco (fsync) y se reemplaza el archivo real con un
+ * movimiento atómico. Un cierre a mitad de escritura deja intacto el archivo anterior.
+ *
+ * Cada elemento se serializa y se escribe por separado, sin armar en memoria el
+ * JSON completo del arreglo. El formato es el mismo arreglo indentado a 4 espacios.
+ */
+public final class EscritorSnapshot {
+    private static final int INDENTACION = 4;
+
+    private EscritorSnapshot() {}
+
+    public static <T> void escribir(String ruta, Iterable<T> elementos, Function<T, JSONObject> aJson) throws IOException {
+        Path destino = Paths.get(ruta).toAbsolutePath();
+        Files.createDirectories(destino.getParent());
+        Path temporal = destino.resolveSibling(destino.getFileName() + ".tmp");
+
+        try (FileChannel canal = FileChannel.open(temporal, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            Writer writer = new BufferedWriter(Channels.newWriter(canal, StandardCharsets.UTF_8.newEncoder(), 64 * 1024));
+            // Mismo formato que JSONArray.toString(4), incluido el caso de un solo elemento
+            Iterator<T> it = elementos.iterator();
+            writer.write('[');
+            if (it.hasNext()) {
+                T primero = it.next();
+                if (!it.hasNext()) {
+                    aJson.apply(primero).write(writer, INDENTACION, 0);
+                } else {
+                    writer.write("\n    ");
+                    aJson.apply(primero).write(writer, INDENTACION, INDENTACION);
+                    while (it.hasNext()) {
+                        writer.write(",\n    ");
+                        aJson.apply(it.next()).write(writer, INDENTACION, INDENTACION);
+                    }
+                    writer.write('\n');
+                }
+            }
+            writer.write(']');
+            writer.flush();
+            canal.force(true);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporal);
+            throw e;
+        }
+
+        try {
+            Files.move(temporal, destino, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporal, destino, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
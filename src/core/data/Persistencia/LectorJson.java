@@ -0,0 +1,175 @@
+package core.data.Persistencia;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Lectura en streaming de los archivos de datos (un arreglo JSON de objetos).
+ * En lugar de leer el archivo completo a un String y construir el JSONArray
+ * entero, se tokeniza directo del flujo de bytes y cada objeto se convierte a
+ * entidad en cuanto termina de leerse; en memoria solo vive el registro actual
+ * además de la lista de entidades. Las entidades se siguen construyendo con su
+ * constructor desde JSONObject, así que los nombres de campo y los valores por
+ * defecto no cambian.
+ */
+public final class LectorJson {
+    private LectorJson() {}
+
+    public static <T> List<T> leerArreglo(String ruta, Function<JSONObject, T> crear) throws IOException {
+        try (Reader reader = new BufferedReader(new InputStreamReader(
+                Files.newInputStream(Paths.get(ruta)), StandardCharsets.UTF_8), 64 * 1024)) {
+            return leerArreglo(reader, crear);
+        }
+    }
+
+    public static <T> List<T> leerArreglo(Reader reader, Function<JSONObject, T> crear) {
+        List<T> resultado = new ArrayList<>();
+        JSONTokener tokener = new JSONTokener(reader);
+
+        char c = tokener.nextClean();
+        if (c == 0) return resultado; // archivo vacío
+        if (c != '[') throw tokener.syntaxError("Se esperaba '[' al inicio del arreglo");
+
+        c = tokener.nextClean();
+        if (c == ']') return resultado;
+        tokener.back();
+
+        while (true) {
+            resultado.add(crear.apply(new JSONObject(tokener)));
+            c = tokener.nextClean();
+            if (c == ']') return resultado;
+            if (c != ',') throw tokener.syntaxError("Se esperaba ',' o ']'");
+        }
+    }
+
+    /**
+     * Comparación de carga contra el camino anterior (Files.readString + new JSONArray):
+     *   comparar [registros...]   (por defecto 10000 100000 1000000)
+     * Genera un archivo sintético con registros tipo Producto por cada tamaño e
+     * imprime tiempo y pico de heap de cada camino. Para 1M registros conviene -Xmx4g.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0 || !args[0].equals("comparar")) {
+            System.out.println("Uso: LectorJson comparar [registros...]");
+            return;
+        }
+        List<Integer> tamanos = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) tamanos.add(Integer.parseInt(args[i]));
+        if (tamanos.isEmpty()) tamanos = List.of(10_000, 100_000, 1_000_000);
+
+        for (int registros : tamanos) {
+            Path archivo = Files.createTempFile("cafi-lector", ".json");
+            try {
+                generar(archivo, registros);
+                System.out.printf("%,d registros (%,d bytes)%n", registros, Files.size(archivo));
+                medir("  streaming", () -> leerArreglo(archivo.toString(), RegistroPrueba::new).size());
+                medir("  JSONArray", () -> {
+                    JSONArray arreglo = new JSONArray(Files.readString(archivo, StandardCharsets.UTF_8));
+                    List<RegistroPrueba> entidades = new ArrayList<>(arreglo.length());
+                    for (int i = 0; i < arreglo.length(); i++) entidades.add(new RegistroPrueba(arreglo.getJSONObject(i)));
+                    return entidades.size();
+                });
+            } finally {
+                Files.deleteIfExists(archivo);
+            }
+        }
+    }
+
+    // Entidad de la prueba: como Producto(JSONObject), copia los campos y suelta el JSON
+    private static final class RegistroPrueba {
+        final int id;
+        final String nombre;
+        final String descripcion;
+        final double precioBase;
+        final String categoria;
+        final boolean disponible;
+        final int[] ingredientes;
+
+        RegistroPrueba(JSONObject json) {
+            id = json.getInt("ID");
+            nombre = json.getString("Nombre");
+            descripcion = json.optString("Descripcion", "");
+            precioBase = json.getDouble("PrecioBase");
+            categoria = json.optString("Categoria", "");
+            disponible = json.optBoolean("Disponible", true);
+            JSONArray arreglo = json.optJSONArray("Ingredientes");
+            ingredientes = new int[arreglo == null ? 0 : arreglo.length()];
+            for (int i = 0; i < ingredientes.length; i++) {
+                ingredientes[i] = arreglo.getJSONObject(i).getInt("IDIngrediente");
+            }
+        }
+    }
+
+    private interface Carga {
+        int cargar() throws IOException;
+    }
+
+    private static void medir(String nombre, Carga carga) throws IOException {
+        List<MemoryPoolMXBean> heap = new ArrayList<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) heap.add(pool);
+        }
+        System.gc();
+        long base = 0;
+        for (MemoryPoolMXBean pool : heap) {
+            pool.resetPeakUsage();
+            base += pool.getUsage().getUsed();
+        }
+
+        long inicio = System.nanoTime();
+        try {
+            int n = carga.cargar();
+            long ms = (System.nanoTime() - inicio) / 1_000_000;
+            long pico = 0;
+            for (MemoryPoolMXBean pool : heap) pico += pool.getPeakUsage().getUsed();
+            System.out.printf("%s: %d registros, %d ms, pico de heap +%,d KB%n",
+                    nombre, n, ms, Math.max(0, pico - base) / 1024);
+        } catch (OutOfMemoryError e) {
+            System.out.printf("%s: sin memoria (%s)%n", nombre, e.getMessage());
+        }
+    }
+
+    // Registros con la forma de productos.json, escritos sin armar el arreglo en memoria
+    private static void generar(Path archivo, int registros) throws IOException {
+        String[] categorias = {"Bebidas", "Desayunos", "Comidas", "Postres"};
+        try (BufferedWriter writer = Files.newBufferedWriter(archivo, StandardCharsets.UTF_8)) {
+            writer.write("[\n");
+            for (int i = 1; i <= registros; i++) {
+                JSONObject producto = new JSONObject()
+                        .put("ID", i)
+                        .put("Nombre", "Producto " + i)
+                        .put("Descripcion", "Descripción del producto número " + i)
+                        .put("PrecioBase", 20 + i % 80)
+                        .put("Categoria", categorias[i % categorias.length])
+                        .put("Gramaje", 250.0)
+                        .put("Calorias", 300.0)
+                        .put("Disponible", i % 7 != 0)
+                        .put("Ingredientes", new JSONArray()
+                                .put(new JSONObject().put("IDIngrediente", i % 50 + 1)
+                                        .put("NombreIngrediente", "Ingrediente " + (i % 50 + 1)).put("Cantidad", 120.0))
+                                .put(new JSONObject().put("IDIngrediente", i % 30 + 51)
+                                        .put("NombreIngrediente", "Ingrediente " + (i % 30 + 51)).put("Cantidad", 15.0)));
+                writer.write(producto.toString(4));
+                writer.write(i < registros ? ",\n" : "\n");
+            }
+            writer.write("]\n");
+        }
+    }
+}
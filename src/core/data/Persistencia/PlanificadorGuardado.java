@@ -0,0 +1,100 @@
+package core.data.Persistencia;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Planificador de guardado a disco compartido por todos los repositorios.
+ * Las mutaciones solo marcan su repositorio como "sucio"; todas las marcas que
+ * llegan dentro de la misma ventana se agrupan en una sola escritura por
+ * repositorio, que se ejecuta en un único hilo de E/S dedicado.
+ */
+public class PlanificadorGuardado {
+    private static PlanificadorGuardado instance;
+    private static final long VENTANA_MS = 500;
+
+    private final ScheduledExecutorService hiloIO = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "cafi-io");
+        t.setDaemon(true);
+        return t;
+    });
+    private volatile Thread threadIO;
+    private final Map<String, Runnable> pendientes = new LinkedHashMap<>();
+    private ScheduledFuture<?> programado;
+
+    private PlanificadorGuardado() {
+        hiloIO.execute(() -> threadIO = Thread.currentThread());
+    }
+
+    public static synchronized PlanificadorGuardado getInstance() {
+        if (instance == null) {
+            instance = new PlanificadorGuardado();
+        }
+        return instance;
+    }
+
+    /**
+     * Marca un repositorio como pendiente de guardar. Si ya estaba marcado en la
+     * ventana actual no se programa otra escritura.
+     *
+     * @param nombre identificador del archivo/repositorio (p. ej. su ruta)
+     * @param guardar escritura completa del repositorio
+     */
+    public synchronized void marcarSucio(String nombre, Runnable guardar) {
+        pendientes.put(nombre, guardar);
+        if (programado == null) {
+            programado = hiloIO.schedule(this::vaciar, VENTANA_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public synchronized boolean hayPendientes() {
+        return !pendientes.isEmpty();
+    }
+
+    /**
+     * Barrera: escribe ya todo lo pendiente y espera a que termine, incluida
+     * cualquier escritura que estuviera en curso. Para el cierre de la aplicación.
+     */
+    public void flush() {
+        if (Thread.currentThread() == threadIO) {
+            vaciar();
+            return;
+        }
+        try {
+            Future<?> barrera = hiloIO.submit(this::vaciar);
+            barrera.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // Solo corre en el hilo de E/S
+    private void vaciar() {
+        List<Runnable> guardados;
+        synchronized (this) {
+            if (programado != null) {
+                programado.cancel(false);
+                programado = null;
+            }
+            guardados = new ArrayList<>(pendientes.values());
+            pendientes.clear();
+        }
+        for (Runnable guardar : guardados) {
+            try {
+                guardar.run();
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+    }
+}
@@ -0,0 +1,340 @@
+package core.data.Persistencia;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+
+/**
+ * Formato binario versionado para snapshots, pensado para arranque rápido.
+ * JSON sigue siendo el formato de importación/exportación.
+ *
+ * Estructura (big-endian):
+ *   "CAFB" | versión u16 | reservado u16
+ *   n cadenas i32 | por cadena: largo i32 + bytes UTF-8     (tabla de cadenas)
+ *   n registros i32 | por registro: largo i32 + valor       (registros)
+ *   CRC32 i64 de todo lo anterior
+ *
+ * Las llaves y los valores de texto cortos (categoria, Horario, DiaSemana,
+ * NombreSeccion...) se escriben una sola vez en la tabla y los registros
+ * guardan solo su índice. Al cargar, el archivo se mapea en memoria.
+ */
+public final class SnapshotBinario {
+    private static final byte[] MAGIA = { 'C', 'A', 'F', 'B' };
+    private static final short VERSION = 1;
+    private static final int MAX_INTERNADA = 64; // cadenas más largas van en línea
+
+    private static final byte T_NULL = 0;
+    private static final byte T_FALSE = 1;
+    private static final byte T_TRUE = 2;
+    private static final byte T_INT = 3;
+    private static final byte T_LONG = 4;
+    private static final byte T_DOUBLE = 5;
+    private static final byte T_CADENA_REF = 6;
+    private static final byte T_CADENA = 7;
+    private static final byte T_OBJETO = 8;
+    private static final byte T_ARREGLO = 9;
+
+    private SnapshotBinario() {}
+
+    // ESCRITURA
+
+    public static <T> void escribir(String ruta, Iterable<T> elementos, Function<T, JSONObject> aJson) throws IOException {
+        Map<String, Integer> tabla = new HashMap<>();
+        List<String> cadenas = new ArrayList<>();
+        List<byte[]> registros = new ArrayList<>();
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(512);
+        for (T elemento : elementos) {
+            buffer.reset();
+            DataOutputStream out = new DataOutputStream(buffer);
+            escribirValor(out, aJson.apply(elemento), tabla, cadenas);
+            out.flush();
+            registros.add(buffer.toByteArray());
+        }
+
+        Path destino = Paths.get(ruta).toAbsolutePath();
+        Files.createDirectories(destino.getParent());
+        Path temporal = destino.resolveSibling(destino.getFileName() + ".tmp");
+
+        try (FileChannel canal = FileChannel.open(temporal, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            CRC32 crc = new CRC32();
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new SumaOutputStream(Channels.newOutputStream(canal), crc), 64 * 1024));
+            out.write(MAGIA);
+            out.writeShort(VERSION);
+            out.writeShort(0);
+
+            out.writeInt(cadenas.size());
+            for (String cadena : cadenas) {
+                byte[] bytes = cadena.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+
+            out.writeInt(registros.size());
+            for (byte[] registro : registros) {
+                out.writeInt(registro.length);
+                out.write(registro);
+            }
+            out.flush();
+
+            ByteBuffer suma = ByteBuffer.allocate(8).putLong(crc.getValue());
+            suma.flip();
+            while (suma.hasRemaining()) canal.write(suma);
+            canal.force(true);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporal);
+            throw e;
+        }
+
+        try {
+            Files.move(temporal, destino, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporal, destino, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void escribirValor(DataOutputStream out, Object valor, Map<String, Integer> tabla,
+                                      List<String> cadenas) throws IOException {
+        if (valor == null || valor == JSONObject.NULL) {
+            out.writeByte(T_NULL);
+        } else if (valor instanceof Boolean) {
+            out.writeByte((Boolean) valor ? T_TRUE : T_FALSE);
+        } else if (valor instanceof Integer || valor instanceof Short || valor instanceof Byte) {
+            out.writeByte(T_INT);
+            out.writeInt(((Number) valor).intValue());
+        } else if (valor instanceof Long || valor instanceof BigInteger) {
+            out.writeByte(T_LONG);
+            out.writeLong(((Number) valor).longValue());
+        } else if (valor instanceof Number) {
+            out.writeByte(T_DOUBLE);
+            out.writeDouble(((Number) valor).doubleValue());
+        } else if (valor instanceof JSONObject) {
+            JSONObject obj = (JSONObject) valor;
+            out.writeByte(T_OBJETO);
+            out.writeInt(obj.length());
+            for (String llave : obj.keySet()) {
+                out.writeInt(internar(llave, tabla, cadenas));
+                escribirValor(out, obj.opt(llave), tabla, cadenas);
+            }
+        } else if (valor instanceof JSONArray) {
+            JSONArray arr = (JSONArray) valor;
+            out.writeByte(T_ARREGLO);
+            out.writeInt(arr.length());
+            for (int i = 0; i < arr.length(); i++) {
+                escribirValor(out, arr.opt(i), tabla, cadenas);
+            }
+        } else {
+            String cadena = valor.toString();
+            if (cadena.length() <= MAX_INTERNADA) {
+                out.writeByte(T_CADENA_REF);
+                out.writeInt(internar(cadena, tabla, cadenas));
+            } else {
+                byte[] bytes = cadena.getBytes(StandardCharsets.UTF_8);
+                out.writeByte(T_CADENA);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+        }
+    }
+
+    private static int internar(String cadena, Map<String, Integer> tabla, List<String> cadenas) {
+        Integer indice = tabla.get(cadena);
+        if (indice == null) {
+            indice = cadenas.size();
+            tabla.put(cadena, indice);
+            cadenas.add(cadena);
+        }
+        return indice;
+    }
+
+    // LECTURA
+
+    /**
+     * Carga el snapshot mapeando el archivo en memoria. Lanza IOException si la
+     * firma, la versión o el CRC no coinciden, para que quien llama use el JSON.
+     */
+    public static <T> List<T> leer(String ruta, Function<JSONObject, T> crear) throws IOException {
+        try (FileChannel canal = FileChannel.open(Paths.get(ruta), StandardOpenOption.READ)) {
+            long tamano = canal.size();
+            if (tamano < 16 || tamano > Integer.MAX_VALUE) throw new IOException("Snapshot binario inválido: " + ruta);
+            MappedByteBuffer buf = canal.map(FileChannel.MapMode.READ_ONLY, 0, tamano);
+
+            CRC32 crc = new CRC32();
+            ByteBuffer contenido = buf.duplicate();
+            contenido.limit((int) tamano - 8);
+            crc.update(contenido);
+            if (buf.getLong((int) tamano - 8) != crc.getValue()) {
+                throw new IOException("CRC no coincide en " + ruta);
+            }
+
+            for (byte b : MAGIA) {
+                if (buf.get() != b) throw new IOException("Firma inválida en " + ruta);
+            }
+            short version = buf.getShort();
+            if (version != VERSION) throw new IOException("Versión " + version + " no soportada en " + ruta);
+            buf.getShort();
+
+            try {
+                String[] cadenas = new String[buf.getInt()];
+                for (int i = 0; i < cadenas.length; i++) {
+                    cadenas[i] = leerUtf8(buf, buf.getInt());
+                }
+
+                int n = buf.getInt();
+                List<T> resultado = new ArrayList<>(n);
+                for (int i = 0; i < n; i++) {
+                    buf.getInt(); // largo del registro (permite saltarlo sin decodificar)
+                    resultado.add(crear.apply((JSONObject) leerValor(buf, cadenas)));
+                }
+                return resultado;
+            } catch (BufferUnderflowException | IndexOutOfBoundsException | ClassCastException e) {
+                throw new IOException("Snapshot binario corrupto: " + ruta, e);
+            }
+        }
+    }
+
+    private static Object leerValor(ByteBuffer buf, String[] cadenas) throws IOException {
+        byte tipo = buf.get();
+        switch (tipo) {
+            case T_NULL: return JSONObject.NULL;
+            case T_FALSE: return Boolean.FALSE;
+            case T_TRUE: return Boolean.TRUE;
+            case T_INT: return buf.getInt();
+            case T_LONG: return buf.getLong();
+            case T_DOUBLE: return BigDecimal.valueOf(buf.getDouble());
+            case T_CADENA_REF: return cadenas[buf.getInt()];
+            case T_CADENA: return leerUtf8(buf, buf.getInt());
+            case T_OBJETO: {
+                int n = buf.getInt();
+                JSONObject obj = new JSONObject();
+                for (int i = 0; i < n; i++) {
+                    String llave = cadenas[buf.getInt()];
+                    obj.put(llave, leerValor(buf, cadenas));
+                }
+                return obj;
+            }
+            case T_ARREGLO: {
+                int n = buf.getInt();
+                JSONArray arr = new JSONArray();
+                for (int i = 0; i < n; i++) {
+                    arr.put(leerValor(buf, cadenas));
+                }
+                return arr;
+            }
+            default:
+                throw new IOException("Tipo de valor desconocido: " + tipo);
+        }
+    }
+
+    private static String leerUtf8(ByteBuffer buf, int largo) {
+        byte[] bytes = new byte[largo];
+        buf.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // CONVERSIÓN
+
+    public static void jsonABinario(String rutaJson, String rutaBinario) throws IOException {
+        List<JSONObject> registros = LectorJson.leerArreglo(rutaJson, obj -> obj);
+        escribir(rutaBinario, registros, obj -> obj);
+    }
+
+    public static void binarioAJson(String rutaBinario, String rutaJson) throws IOException {
+        List<JSONObject> registros = leer(rutaBinario, obj -> obj);
+        EscritorSnapshot.escribir(rutaJson, registros, obj -> obj);
+    }
+
+    /**
+     * Convertidor de línea de comandos:
+     *   importar archivo.json archivo.bin   (JSON → binario)
+     *   exportar archivo.bin archivo.json   (binario → JSON)
+     *   comparar archivo.json               (tiempos de carga JSON vs binario)
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length >= 3 && args[0].equals("importar")) {
+            jsonABinario(args[1], args[2]);
+        } else if (args.length >= 3 && args[0].equals("exportar")) {
+            binarioAJson(args[1], args[2]);
+        } else if (args.length >= 2 && args[0].equals("comparar")) {
+            comparar(args[1]);
+        } else {
+            System.out.println("Uso: SnapshotBinario importar <json> <bin> | exportar <bin> <json> | comparar <json>");
+        }
+    }
+
+    private static void comparar(String rutaJson) throws IOException {
+        Path binario = Files.createTempFile("cafi-snapshot", ".bin");
+        try {
+            jsonABinario(rutaJson, binario.toString());
+            // Calentamiento para que ambos caminos estén compilados por el JIT
+            for (int i = 0; i < 3; i++) {
+                LectorJson.leerArreglo(rutaJson, obj -> obj);
+                leer(binario.toString(), obj -> obj);
+            }
+            long t0 = System.nanoTime();
+            int nJson = LectorJson.leerArreglo(rutaJson, obj -> obj).size();
+            long t1 = System.nanoTime();
+            int nBin = leer(binario.toString(), obj -> obj).size();
+            long t2 = System.nanoTime();
+
+            System.out.printf("JSON:    %d registros, %d bytes, %.2f ms%n",
+                    nJson, Files.size(Paths.get(rutaJson)), (t1 - t0) / 1e6);
+            System.out.printf("Binario: %d registros, %d bytes, %.2f ms%n",
+                    nBin, Files.size(binario), (t2 - t1) / 1e6);
+        } finally {
+            Files.deleteIfExists(binario);
+        }
+    }
+
+    /**
+     * Pasa los bytes escritos por el CRC antes de mandarlos al destino
+     */
+    private static class SumaOutputStream extends OutputStream {
+        private final OutputStream destino;
+        private final CRC32 crc;
+
+        SumaOutputStream(OutputStream destino, CRC32 crc) {
+            this.destino = destino;
+            this.crc = crc;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            crc.update(b);
+            destino.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            crc.update(b, off, len);
+            destino.write(b, off, len);
+        }
+    }
+}
@@ -1,22 +1,52 @@
 package core.data.Productos;
 
-import org.json.JSONArray;
-import org.json.JSONObject;
+import core.data.Menus.AllMenus;
+import core.data.Persistencia.ArchivoDatos;
+import core.data.Persistencia.PlanificadorGuardado;
+import core.data.Repositorio.Cambio;
+import core.data.Repositorio.CargaDiferida;
+import core.data.Repositorio.IndiceInvertido;
+import core.data.Repositorio.IndiceNombres;
+import core.data.Repositorio.IndiceReferencias;
+import core.data.Repositorio.Lote;
+import core.data.Repositorio.RepositorioIndexado;
 
 import java.io.File;
-import java.io.FileWriter;
-import java.nio.file.Files;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
 import java.util.stream.Collectors;
 
 /**
  * Singleton para gestionar todos los productos de la cafetería
  */
 public class AllProductos {
-    private static AllProductos instance;
-    private final List<Producto> productos = new ArrayList<>();
+    private static final CargaDiferida<AllProductos> carga = new CargaDiferida<>(AllProductos::new);
+    private final RepositorioIndexado<Producto> productos = new RepositorioIndexado<>(Producto::getId);
+    private final IndiceInvertido<Producto> indiceTexto = productos.agregarIndice(
+            new IndiceInvertido<Producto>()
+                    .campo(Producto::getNombre, 3)
+                    .campo(Producto::getCategoria, 2)
+                    .campo(Producto::getDescripcion, 1));
+    private final IndiceNombres<Producto> nombres = productos.agregarIndice(
+            new IndiceNombres<>(Producto::getNombre));
+    // Ingrediente → productos que lo llevan, como ingrediente o como sustituto
+    private final IndiceReferencias<Producto> porIngrediente = productos.agregarIndice(
+            new IndiceReferencias<>((p, referencia) -> {
+                for (ProductoIngrediente pi : p.getIngredientes()) {
+                    referencia.accept(pi.getIdIngrediente());
+                    for (Sustituto s : pi.getSustitutos()) {
+                        referencia.accept(s.getIdIngrediente());
+                    }
+                }
+            }));
     private final String FILE_PATH = "data/productos.json";
+    // Serializa las escrituras del archivo; no es el candado de las mutaciones,
+    // que no deben esperar al disco
+    private final Object snapshotLock = new Object();
     private int nextId = 1; // simulación de AUTO_INCREMENT
 
     private AllProductos() {
@@ -24,41 +54,125 @@ public class AllProductos {
     }
 
     public static AllProductos getInstance() {
-        if (instance == null) {
-            instance = new AllProductos();
-        }
-        return instance;
+        return carga.obtener();
+    }
+
+    /**
+     * Arranca la carga del archivo en segundo plano (ver Main)
+     */
+    public static CompletableFuture<AllProductos> cargarAsync(Executor executor) {
+        return carga.iniciar(executor);
+    }
+
+    /**
+     * Se completa cuando los datos ya están en memoria
+     */
+    public static CompletableFuture<AllProductos> listo() {
+        return carga.futuro();
     }
 
-    public void addProducto(Producto p) {
+    public synchronized void addProducto(Producto p) {
         // Si no tiene ID (nuevo registro), asignamos el siguiente disponible
         if (p.getId() == 0) {
             p.setId(nextId++);
         }
-        productos.add(p);
-        saveToFile();
+        productos.agregar(p);
+        guardarDespues();
     }
 
+    /**
+     * Si cambió el nombre, se propaga a las secciones de menú que lo incluyen,
+     * fuera del candado de AllProductos
+     */
     public void updateProducto(Producto nuevo) {
-        for (int idx = 0; idx < productos.size(); idx++) {
-            if (productos.get(idx).getId() == nuevo.getId()) {
-                productos.set(idx, nuevo);
-                saveToFile();
-                return;
+        String nombreAnterior;
+        synchronized (this) {
+            nombreAnterior = nombres.obtener(nuevo.getId());
+            if (!productos.actualizar(nuevo)) return;
+            guardarDespues();
+        }
+        if (nombreAnterior != null && !Objects.equals(nombreAnterior, nuevo.getNombre())) {
+            AllMenus.getInstance().renombrarProducto(nuevo.getId(), nuevo.getNombre());
+        }
+    }
+
+    /**
+     * Actualiza NombreIngrediente en los productos que usan el ingrediente (como
+     * ingrediente o sustituto). Solo recorre esos productos; cada uno se reemplaza
+     * por una copia con el nombre nuevo, todos en un solo lote y un solo guardado.
+     */
+    public synchronized void renombrarIngrediente(int idIngrediente, String nombre) {
+        String interno = nombre.intern();
+        Lote<Producto> lote = new Lote<>();
+        for (Producto producto : porIngrediente.obtener(idIngrediente)) {
+            Producto copia = new Producto(producto.toJson());
+            for (ProductoIngrediente pi : copia.getIngredientes()) {
+                if (pi.getIdIngrediente() == idIngrediente) {
+                    pi.setNombreIngrediente(interno);
+                }
+                for (Sustituto s : pi.getSustitutos()) {
+                    if (s.getIdIngrediente() == idIngrediente) {
+                        s.setNombreIngrediente(interno);
+                    }
+                }
             }
+            lote.actualizar(copia);
         }
+        if (lote.isVacio()) return;
+        productos.aplicar(lote);
+        guardarDespues();
+    }
+
+    /**
+     * Cambia solo la disponibilidad. La copia se hace de la versión actual con el
+     * candado tomado, así no se pierde una edición hecha entre que el llamador
+     * leyó el producto y este cambio. false si no existe o ya estaba así.
+     */
+    public synchronized boolean setDisponible(int id, boolean disponible) {
+        Producto actual = productos.obtener(id);
+        if (actual == null || actual.isDisponible() == disponible) return false;
+        Producto copia = new Producto(actual.toJson());
+        copia.setDisponible(disponible);
+        productos.actualizar(copia);
+        guardarDespues();
+        return true;
+    }
+
+    /**
+     * Productos que usan el ingrediente, como ingrediente o como sustituto
+     */
+    public List<Producto> getByIngrediente(int idIngrediente) {
+        return porIngrediente.obtener(idIngrediente);
+    }
+
+    public synchronized void removeProducto(int id) {
+        productos.eliminar(id);
+        guardarDespues();
     }
 
-    public void removeProducto(int id) {
-        productos.removeIf(p -> p.getId() == id);
-        saveToFile();
+    /**
+     * Suscribe un oyente a los cambios de productos; el Runnable devuelto lo da de baja
+     */
+    public Runnable suscribir(Consumer<List<Cambio<Producto>>> oyente) {
+        return productos.suscribir(oyente);
+    }
+
+    /**
+     * Avisa el ID de cada producto agregado, actualizado o eliminado
+     */
+    public void alCambiar(IntConsumer oyente) {
+        productos.alCambiar(oyente);
     }
 
     public Producto getById(int id) {
-        return productos.stream()
-                .filter(p -> p.getId() == id)
-                .findFirst()
-                .orElse(null);
+        return productos.obtener(id);
+    }
+
+    /**
+     * Nombre vigente del producto, o respaldo si ya no existe
+     */
+    public String getNombre(int id, String respaldo) {
+        return nombres.obtener(id, respaldo);
     }
 
     public Producto getByNombre(String nombre) {
@@ -69,7 +183,15 @@ public class AllProductos {
     }
 
     public List<Producto> getAll() {
-        return new ArrayList<>(productos);
+        return productos.getAll();
+    }
+
+    /**
+     * Búsqueda de texto por nombre, categoría y descripción, sin distinguir acentos.
+     * Ordenada por relevancia.
+     */
+    public List<Producto> buscar(String consulta) {
+        return indiceTexto.buscar(consulta);
     }
 
     public List<Producto> getByCategoria(String categoria) {
@@ -103,21 +225,16 @@ public class AllProductos {
                 return;
             }
 
-            String content = Files.readString(file.toPath());
-            if (content.isBlank()) return;
-
-            JSONArray array = new JSONArray(content);
-            productos.clear();
+            // Lectura en streaming: cada objeto se convierte a Producto al terminar de leerse
+            List<Producto> cargados = ArchivoDatos.leer(file.getPath(), Producto::new);
 
             int maxId = 0;
-            for (int i = 0; i < array.length(); i++) {
-                JSONObject obj = array.getJSONObject(i);
-                Producto prod = new Producto(obj);
-                productos.add(prod);
+            for (Producto prod : cargados) {
                 if (prod.getId() > maxId) {
                     maxId = prod.getId();
                 }
             }
+            productos.cargar(cargados);
             nextId = maxId + 1;
 
         } catch (Exception e) {
@@ -126,29 +243,25 @@ public class AllProductos {
         }
     }
 
+    // Agenda la escritura en el hilo de E/S; varias mutaciones seguidas se guardan juntas
+    private void guardarDespues() {
+        PlanificadorGuardado.getInstance().marcarSucio(FILE_PATH, this::saveToFile);
+    }
+
     public void saveToFile() {
-        try {
-            JSONArray array = new JSONArray();
-            for (Producto p : productos) {
-                array.put(p.toJson());
+        synchronized (snapshotLock) {
+            try {
+                ArchivoDatos.escribir(FILE_PATH, productos.elementos(), Producto::toJson);
+            } catch (Exception e) {
+                //System.err.println("Error guardando productos en archivo:");
+                e.printStackTrace();
             }
-
-            File file = new File(FILE_PATH);
-            file.getParentFile().mkdirs();
-
-            FileWriter writer = new FileWriter(file);
-            writer.write(array.toString(4)); // JSON legible
-            writer.close();
-
-        } catch (Exception e) {
-            //System.err.println("Error guardando productos en archivo:");
-            e.printStackTrace();
         }
     }
 
     // Método para obtener estadísticas
     public String getEstadisticas() {
-        int total = productos.size();
+        int total = productos.tamano();
         int disponibles = (int) productos.stream().filter(Producto::isDisponible).count();
         int categorias = getAllCategorias().size();
         
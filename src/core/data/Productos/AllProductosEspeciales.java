@@ -1,87 +1,116 @@
 // AllProductosEspeciales.java
 package core.data.Productos;
 
-import org.json.JSONArray;
-import org.json.JSONObject;
+import core.data.Persistencia.ArchivoDatos;
+import core.data.Persistencia.PlanificadorGuardado;
+import core.data.Repositorio.Cambio;
+import core.data.Repositorio.CargaDiferida;
+import core.data.Repositorio.IndiceSecundario;
+import core.data.Repositorio.IndiceVigencia;
+import core.data.Repositorio.RepositorioIndexado;
 import java.io.File;
-import java.io.FileWriter;
-import java.nio.file.Files;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
  * Singleton para gestionar todos los productos especiales
  */
 public class AllProductosEspeciales {
-    private static AllProductosEspeciales instance;
-    private final List<ProductoEspecial> productosEspeciales = new ArrayList<>();
+    private static final CargaDiferida<AllProductosEspeciales> carga = new CargaDiferida<>(AllProductosEspeciales::new);
+    private final RepositorioIndexado<ProductoEspecial> productosEspeciales = new RepositorioIndexado<>(ProductoEspecial::getId);
+    private final IndiceSecundario<Integer, ProductoEspecial> especialesPorProducto =
+            productosEspeciales.agregarIndice(IndiceSecundario.hash(ProductoEspecial::getIdProducto));
     private final String FILE_PATH = "data/productos_especiales.json";
+    // Serializa las escrituras del archivo; no es el candado de las mutaciones,
+    // que no deben esperar al disco
+    private final Object snapshotLock = new Object();
     private int nextId = 1;
+    // Índices de intervalos [fechaInicio, fechaFin]: global y por idProducto; se consultan sin candado
+    private final IndiceVigencia<ProductoEspecial> vigencia = new IndiceVigencia<>(productosEspeciales,
+            ProductoEspecial::getFechaInicio, ProductoEspecial::getFechaFin, ProductoEspecial::getIdProducto);
 
     private AllProductosEspeciales() {
         loadFromFile();
     }
 
     public static AllProductosEspeciales getInstance() {
-        if (instance == null) {
-            instance = new AllProductosEspeciales();
-        }
-        return instance;
+        return carga.obtener();
+    }
+
+    /**
+     * Arranca la carga del archivo en segundo plano (ver Main)
+     */
+    public static CompletableFuture<AllProductosEspeciales> cargarAsync(Executor executor) {
+        return carga.iniciar(executor);
     }
 
-    public void addProductoEspecial(ProductoEspecial productoEspecial) {
+    /**
+     * Se completa cuando los datos ya están en memoria
+     */
+    public static CompletableFuture<AllProductosEspeciales> listo() {
+        return carga.futuro();
+    }
+
+    public synchronized void addProductoEspecial(ProductoEspecial productoEspecial) {
         if (productoEspecial.getId() == 0) {
             productoEspecial.setId(nextId++);
         }
-        productosEspeciales.add(productoEspecial);
-        saveToFile();
+        productosEspeciales.agregar(productoEspecial);
+        guardarDespues();
     }
 
-    public void updateProductoEspecial(ProductoEspecial nuevo) {
-        for (int idx = 0; idx < productosEspeciales.size(); idx++) {
-            if (productosEspeciales.get(idx).getId() == nuevo.getId()) {
-                productosEspeciales.set(idx, nuevo);
-                saveToFile();
-                return;
-            }
+    public synchronized void updateProductoEspecial(ProductoEspecial nuevo) {
+        if (productosEspeciales.actualizar(nuevo)) {
+            guardarDespues();
         }
     }
 
-    public void removeProductoEspecial(int id) {
-        productosEspeciales.removeIf(pe -> pe.getId() == id);
-        saveToFile();
+    public synchronized void removeProductoEspecial(int id) {
+        productosEspeciales.eliminar(id);
+        guardarDespues();
+    }
+
+    /**
+     * Suscribe un oyente a los cambios de productos especiales; el Runnable devuelto lo da de baja
+     */
+    public Runnable suscribir(Consumer<List<Cambio<ProductoEspecial>>> oyente) {
+        return productosEspeciales.suscribir(oyente);
     }
 
     public ProductoEspecial getById(int id) {
-        return productosEspeciales.stream()
-                .filter(pe -> pe.getId() == id)
-                .findFirst()
-                .orElse(null);
+        return productosEspeciales.obtener(id);
     }
 
     public List<ProductoEspecial> getByProducto(int idProducto) {
-        return productosEspeciales.stream()
-                .filter(pe -> pe.getIdProducto() == idProducto)
-                .collect(Collectors.toList());
+        return especialesPorProducto.obtener(idProducto);
     }
 
     public List<ProductoEspecial> getEspecialesParaFecha(LocalDateTime fechaHora) {
-        return productosEspeciales.stream()
-                .filter(pe -> pe.estaActivoParaFechaHora(fechaHora))
+        return vigencia.todos().enInstante(fechaHora).stream()
+                .filter(ProductoEspecial::isActivo)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Especiales cuyo periodo se traslapa con [inicio, fin]
+     */
+    public List<ProductoEspecial> getEspecialesPorRango(LocalDateTime inicio, LocalDateTime fin) {
+        return vigencia.todos().enRango(inicio, fin);
+    }
+
     public List<ProductoEspecial> getEspecialesVigentes() {
         return getEspecialesParaFecha(LocalDateTime.now());
     }
 
     public ProductoEspecial getEspecialParaProductoYFecha(int idProducto, LocalDateTime fechaHora) {
-        return productosEspeciales.stream()
-                .filter(pe -> pe.getIdProducto() == idProducto && pe.estaActivoParaFechaHora(fechaHora))
-                .findFirst()
-                .orElse(null);
+        for (ProductoEspecial pe : vigencia.delGrupo(idProducto).enInstante(fechaHora)) {
+            if (pe.isActivo()) return pe;
+        }
+        return null;
     }
 
     public List<ProductoEspecial> getEspecialesActivos() {
@@ -91,7 +120,7 @@ public class AllProductosEspeciales {
     }
 
     public List<ProductoEspecial> getAll() {
-        return new ArrayList<>(productosEspeciales);
+        return productosEspeciales.getAll();
     }
 
     // Método para verificar si un producto tiene precio especial en una fecha y hora
@@ -114,21 +143,16 @@ public class AllProductosEspeciales {
                 return;
             }
 
-            String content = Files.readString(file.toPath());
-            if (content.isBlank()) return;
-
-            JSONArray array = new JSONArray(content);
-            productosEspeciales.clear();
+            // Lectura en streaming: cada objeto se convierte a ProductoEspecial al terminar de leerse
+            List<ProductoEspecial> cargados = ArchivoDatos.leer(file.getPath(), ProductoEspecial::new);
 
             int maxId = 0;
-            for (int i = 0; i < array.length(); i++) {
-                JSONObject obj = array.getJSONObject(i);
-                ProductoEspecial pe = new ProductoEspecial(obj);
-                productosEspeciales.add(pe);
+            for (ProductoEspecial pe : cargados) {
                 if (pe.getId() > maxId) {
                     maxId = pe.getId();
                 }
             }
+            productosEspeciales.cargar(cargados);
             nextId = maxId + 1;
 
         } catch (Exception e) {
@@ -137,29 +161,25 @@ public class AllProductosEspeciales {
         }
     }
 
+    // Agenda la escritura en el hilo de E/S; varias mutaciones seguidas se guardan juntas
+    private void guardarDespues() {
+        PlanificadorGuardado.getInstance().marcarSucio(FILE_PATH, this::saveToFile);
+    }
+
     public void saveToFile() {
-        try {
-            JSONArray array = new JSONArray();
-            for (ProductoEspecial pe : productosEspeciales) {
-                array.put(pe.toJson());
+        synchronized (snapshotLock) {
+            try {
+                ArchivoDatos.escribir(FILE_PATH, productosEspeciales.elementos(), ProductoEspecial::toJson);
+            } catch (Exception e) {
+                //System.err.println("Error guardando productos especiales en archivo:");
+                e.printStackTrace();
             }
-
-            File file = new File(FILE_PATH);
-            file.getParentFile().mkdirs();
-
-            FileWriter writer = new FileWriter(file);
-            writer.write(array.toString(4)); // JSON legible
-            writer.close();
-
-        } catch (Exception e) {
-            //System.err.println("Error guardando productos especiales en archivo:");
-            e.printStackTrace();
         }
     }
 
     // Método para obtener estadísticas
     public String getEstadisticas() {
-        int total = productosEspeciales.size();
+        int total = productosEspeciales.tamano();
         int activos = (int) productosEspeciales.stream().filter(ProductoEspecial::isActivo).count();
         int vigentes = getEspecialesVigentes().size();
         
@@ -168,16 +188,16 @@ public class AllProductosEspeciales {
     }
 
     // Método para limpiar especiales expirados (más de 30 días)
-    public void limpiarExpirados() {
+    public synchronized void limpiarExpirados() {
         LocalDateTime limite = LocalDateTime.now().minusDays(30);
         int removidos = (int) productosEspeciales.stream()
                 .filter(pe -> pe.getFechaFin().isBefore(limite))
                 .count();
         
-        productosEspeciales.removeIf(pe -> pe.getFechaFin().isBefore(limite));
+        productosEspeciales.eliminarSi(pe -> pe.getFechaFin().isBefore(limite));
         
         if (removidos > 0) {
-            saveToFile();
+            guardarDespues();
             //System.out.println("Se removieron " + removidos + " productos especiales expirados");
         }
     }
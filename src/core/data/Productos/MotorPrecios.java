@@ -0,0 +1,465 @@
+package core.data.Productos;
+
+import core.data.Repositorio.Cambio;
+import core.data.Repositorio.RepositorioIndexado;
+
+import java.io.File;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Precio final de un producto: base o tamaño, precio especial vigente y costo
+ * extra de las sustituciones.
+ *
+ * Reglas:
+ * - Sin tamaño (idTamano = 0) se cobra precioBase; con tamaño, el precio del tamaño.
+ * - Un especial vigente reemplaza a precioBase; los tamaños conservan su
+ *   diferencia sobre precioBase (nunca por debajo de 0). Si se traslapan varios
+ *   especiales, gana el precio más bajo.
+ * - Cada sustitución suma el costoExtra del Sustituto de ese ingrediente.
+ *
+ * Cada producto se compila a una TablaPrecios inmutable: tamaños y sustituciones
+ * en arreglos, y los especiales como tramos de tiempo sin traslape ordenados por
+ * inicio (búsqueda binaria por instante). Las tablas se compilan al primer uso y
+ * se descartan solo para el producto que cambió (evento de AllProductos o de
+ * AllProductosEspeciales); la versión evita guardar una tabla compilada durante
+ * un cambio.
+ */
+public class MotorPrecios {
+    private static MotorPrecios instance;
+
+    private final ConcurrentHashMap<Integer, TablaPrecios> tablas = new ConcurrentHashMap<>();
+    // Producto al que pertenecía cada especial cuando se compiló su tabla. El evento
+    // de un especial editado en sitio trae el mismo objeto como anterior y nuevo,
+    // así que el producto de donde se movió solo se conoce por aquí.
+    private final ConcurrentHashMap<Integer, Integer> productoDeEspecial = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong();
+    private final AllProductos allProductos = AllProductos.getInstance();
+    private final AllProductosEspeciales allEspeciales = AllProductosEspeciales.getInstance();
+
+    private MotorPrecios() {
+        allProductos.suscribir(this::productosCambiados);
+        allEspeciales.suscribir(this::especialesCambiados);
+    }
+
+    public static synchronized MotorPrecios getInstance() {
+        if (instance == null) {
+            instance = new MotorPrecios();
+        }
+        return instance;
+    }
+
+    /**
+     * Ingrediente original del producto → ingrediente que lo sustituye
+     */
+    public static final class Sustitucion {
+        private final int idIngrediente;
+        private final int idSustituto;
+
+        public Sustitucion(int idIngrediente, int idSustituto) {
+            this.idIngrediente = idIngrediente;
+            this.idSustituto = idSustituto;
+        }
+
+        public int getIdIngrediente() { return idIngrediente; }
+        public int getIdSustituto() { return idSustituto; }
+    }
+
+    /**
+     * Precio final, o -1 si el producto o el tamaño no existen.
+     * Una sustitución que el producto no admite no suma nada.
+     */
+    public double precio(int idProducto, int idTamano, List<Sustitucion> sustituciones, LocalDateTime momento) {
+        TablaPrecios tabla = tabla(idProducto);
+        if (tabla == null) return -1;
+
+        double precio = tabla.precio(idTamano, instante(momento));
+        if (precio < 0) return -1;
+        if (sustituciones != null) {
+            for (Sustitucion s : sustituciones) {
+                precio += tabla.costoSustitucion(s.idIngrediente, s.idSustituto);
+            }
+        }
+        return precio;
+    }
+
+    public double precio(int idProducto, int idTamano, LocalDateTime momento) {
+        return precio(idProducto, idTamano, null, momento);
+    }
+
+    /**
+     * true si a esa hora el producto tiene un especial vigente
+     */
+    public boolean tieneEspecial(int idProducto, LocalDateTime momento) {
+        TablaPrecios tabla = tabla(idProducto);
+        return tabla != null && tabla.tramo(instante(momento)) >= 0;
+    }
+
+    public String getEstadisticas() {
+        return String.format("Tablas de precios compiladas: %d", tablas.size());
+    }
+
+    /**
+     * Medición del precio de un menú completo:
+     *   MotorPrecios [productos] [especialesPorProducto] [rondas]   (por defecto 200 4 2000)
+     * Crea productos y especiales sintéticos en data/, así que se niega a correr si
+     * data/ ya existe: hay que correrlo en un directorio vacío. Cada ronda pone
+     * precio a todo el menú (cada producto sin tamaño, con cada tamaño y con una
+     * sustitución) a una hora distinta, y se compara contra el cálculo directo
+     * (especiales, tamaños y sustitutos del producto recorridos en cada llamada).
+     * Sale con 1 si algún precio difiere o si un cambio descarta tablas de más.
+     */
+    public static void main(String[] args) {
+        int productos = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int especialesPorProducto = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int rondas = args.length > 2 ? Integer.parseInt(args[2]) : 2_000;
+        if (new File("data").exists()) {
+            System.out.println("data/ ya existe; corra la medición en un directorio vacío");
+            System.exit(2);
+        }
+
+        AllProductos allProductos = AllProductos.getInstance();
+        AllProductosEspeciales allEspeciales = AllProductosEspeciales.getInstance();
+        LocalDateTime base = LocalDateTime.of(2025, 3, 3, 8, 0);
+        for (int i = 1; i <= productos; i++) {
+            Producto producto = new Producto(i, "Producto " + i, "", 40 + i % 60, "Comidas", 300, 500, "", true);
+            producto.agregarTamano(new TamanoProducto(i * 10 + 1, "Chico", "", 0, 200, 0, 30 + i % 60, 1, true));
+            producto.agregarTamano(new TamanoProducto(i * 10 + 2, "Grande", "", 0, 450, 0, 55 + i % 60, 2, true));
+            for (int j = 1; j <= 6; j++) {
+                ProductoIngrediente pi = new ProductoIngrediente(j, "Ingrediente " + j, 50, true, j % 2 == 0, j);
+                if (pi.isSustituible()) pi.agregarSustituto(new Sustituto(100 + j, "Sustituto " + j, 5 + j, true));
+                producto.agregarIngrediente(pi);
+            }
+            allProductos.addProducto(producto);
+            for (int k = 0; k < especialesPorProducto; k++) {
+                LocalDateTime inicio = base.plusHours((i + 7L * k) % 48);
+                allEspeciales.addProductoEspecial(new ProductoEspecial(0, i, inicio, inicio.plusHours(3 + k),
+                        "Especial " + k, 25 + (i + k) % 30, k % 5 != 4));
+            }
+        }
+
+        MotorPrecios motor = getInstance();
+        List<Producto> menu = allProductos.getAll();
+        List<Sustitucion> sustitucion = List.of(new Sustitucion(2, 102));
+        LocalDateTime[] horas = new LocalDateTime[rondas];
+        for (int r = 0; r < rondas; r++) horas[r] = base.plusMinutes(r * 37L % (60 * 60));
+        int preciosPorMenu = menu.size() * 4;
+
+        long inicio = System.nanoTime();
+        menu.forEach(p -> motor.precio(p.getId(), 0, horas[0]));
+        double frioMs = (System.nanoTime() - inicio) / 1e6;
+
+        int diferencias = 0;
+        for (int r = 0; r < Math.min(rondas, 200); r++) {
+            for (Producto p : menu) {
+                for (int idTamano : new int[]{0, p.getId() * 10 + 1, p.getId() * 10 + 2}) {
+                    if (motor.precio(p.getId(), idTamano, horas[r]) != precioDirecto(allEspeciales, p, idTamano, null, horas[r])) diferencias++;
+                }
+                if (motor.precio(p.getId(), 0, sustitucion, horas[r]) != precioDirecto(allEspeciales, p, 0, sustitucion, horas[r])) diferencias++;
+            }
+        }
+
+        // Una vuelta de calentamiento y luego vueltas alternadas de cada cálculo
+        double suma = preciarHoras(motor, null, menu, sustitucion, horas)
+                + preciarHoras(null, allEspeciales, menu, sustitucion, horas);
+        double[] motorUs = new double[VUELTAS];
+        double[] directoUs = new double[VUELTAS];
+        for (int v = 0; v < VUELTAS; v++) {
+            inicio = System.nanoTime();
+            suma += preciarHoras(motor, null, menu, sustitucion, horas);
+            motorUs[v] = (System.nanoTime() - inicio) / 1e3 / rondas;
+            inicio = System.nanoTime();
+            suma += preciarHoras(null, allEspeciales, menu, sustitucion, horas);
+            directoUs[v] = (System.nanoTime() - inicio) / 1e3 / rondas;
+        }
+
+        // Cambiar un especial (o el producto, si no hay especiales) solo descarta la tabla de ese producto
+        if (especialesPorProducto > 0) {
+            ProductoEspecial cambiado = new ProductoEspecial(allEspeciales.getByProducto(1).get(0).toJson());
+            cambiado.setPrecioEspecial(cambiado.getPrecioEspecial() - 1);
+            allEspeciales.updateProductoEspecial(cambiado);
+        } else {
+            Producto cambiado = new Producto(allProductos.getById(1).toJson());
+            cambiado.setPrecioBase(cambiado.getPrecioBase() - 1);
+            allProductos.updateProducto(cambiado);
+        }
+        int compiladas = motor.tablas.size();
+
+        System.out.printf("Menú de %d productos, %d especiales por producto, %d precios por menú%n",
+                menu.size(), especialesPorProducto, preciosPorMenu);
+        System.out.printf("Primera pasada (compila las tablas): %.1f ms%n", frioMs);
+        imprimir("Motor de precios", motorUs);
+        imprimir("Cálculo directo ", directoUs);
+        System.out.printf("Tablas tras un cambio: %d de %d%n", compiladas, menu.size());
+        System.out.printf("Precios distintos entre los dos cálculos: %d (suma de control %.0f)%n", diferencias, suma);
+        System.exit(diferencias == 0 && compiladas == menu.size() - 1 ? 0 : 1);
+    }
+
+    private static final int VUELTAS = 5;
+
+    private static double preciarHoras(MotorPrecios motor, AllProductosEspeciales especiales, List<Producto> menu,
+                                       List<Sustitucion> sustitucion, LocalDateTime[] horas) {
+        double suma = 0;
+        for (LocalDateTime hora : horas) suma += preciarMenu(motor, especiales, menu, sustitucion, hora);
+        return suma;
+    }
+
+    // Media ± desviación de las vueltas, en microsegundos por menú
+    private static void imprimir(String nombre, double[] microsPorMenu) {
+        double media = 0;
+        for (double x : microsPorMenu) media += x / microsPorMenu.length;
+        double varianza = 0;
+        for (double x : microsPorMenu) varianza += (x - media) * (x - media) / microsPorMenu.length;
+        System.out.printf("%s: %.1f ± %.1f µs por menú (%,.0f menús/s)%n",
+                nombre, media, Math.sqrt(varianza), 1e6 / media);
+    }
+
+    // Todo el menú a una hora, con el motor o (si motor es null) con el cálculo directo
+    private static double preciarMenu(MotorPrecios motor, AllProductosEspeciales especiales, List<Producto> menu,
+                                      List<Sustitucion> sustitucion, LocalDateTime hora) {
+        double suma = 0;
+        for (Producto p : menu) {
+            int chico = p.getId() * 10 + 1;
+            int grande = p.getId() * 10 + 2;
+            if (motor != null) {
+                suma += motor.precio(p.getId(), 0, hora) + motor.precio(p.getId(), chico, hora)
+                        + motor.precio(p.getId(), grande, hora) + motor.precio(p.getId(), 0, sustitucion, hora);
+            } else {
+                suma += precioDirecto(especiales, p, 0, null, hora) + precioDirecto(especiales, p, chico, null, hora)
+                        + precioDirecto(especiales, p, grande, null, hora) + precioDirecto(especiales, p, 0, sustitucion, hora);
+            }
+        }
+        return suma;
+    }
+
+    // Las mismas reglas sin tablas, recorriendo especiales, tamaños y sustitutos
+    private static double precioDirecto(AllProductosEspeciales especiales, Producto producto, int idTamano,
+                                        List<Sustitucion> sustituciones, LocalDateTime momento) {
+        double mejor = Double.MAX_VALUE;
+        for (ProductoEspecial pe : especiales.getByProducto(producto.getId())) {
+            if (pe.isActivo() && !momento.isBefore(pe.getFechaInicio()) && !momento.isAfter(pe.getFechaFin())) {
+                mejor = Math.min(mejor, pe.getPrecioEspecial());
+            }
+        }
+        double precio = mejor == Double.MAX_VALUE ? producto.getPrecioBase() : mejor;
+        if (idTamano != 0) {
+            TamanoProducto tamano = null;
+            for (TamanoProducto t : producto.getTamanos()) {
+                if (t.getId() == idTamano) tamano = t;
+            }
+            if (tamano == null) return -1;
+            precio = Math.max(0, precio + (tamano.getPrecio() - producto.getPrecioBase()));
+        }
+        if (sustituciones != null) {
+            for (Sustitucion s : sustituciones) {
+                for (ProductoIngrediente pi : producto.getIngredientes()) {
+                    if (pi.getIdIngrediente() != s.idIngrediente || !pi.isSustituible()) continue;
+                    for (Sustituto sus : pi.getSustitutos()) {
+                        if (sus.getIdIngrediente() == s.idSustituto && sus.isDisponible()) precio += sus.getCostoExtra();
+                    }
+                }
+            }
+        }
+        return precio;
+    }
+
+    // ---- Tablas ----
+
+    private TablaPrecios tabla(int idProducto) {
+        TablaPrecios tabla = tablas.get(idProducto);
+        if (tabla != null) return tabla;
+
+        long versionInicial = version.get();
+        Producto producto = allProductos.getById(idProducto);
+        if (producto == null) return null;
+        List<ProductoEspecial> especiales = allEspeciales.getByProducto(idProducto);
+        // Antes de guardar la tabla, para que un cambio posterior sepa descartarla
+        for (ProductoEspecial pe : especiales) productoDeEspecial.put(pe.getId(), idProducto);
+        tabla = compilar(producto, especiales);
+        // Si algo cambió mientras se compilaba, se usa esta vez pero no se guarda
+        if (version.get() == versionInicial) {
+            tablas.put(idProducto, tabla);
+            if (version.get() != versionInicial) tablas.remove(idProducto, tabla);
+        }
+        return tabla;
+    }
+
+    private void productosCambiados(List<Cambio<Producto>> cambios) {
+        version.incrementAndGet();
+        for (Cambio<Producto> cambio : cambios) {
+            if (cambio.getId() == RepositorioIndexado.TODOS) {
+                tablas.clear();
+                return;
+            }
+            tablas.remove(cambio.getId());
+        }
+    }
+
+    private void especialesCambiados(List<Cambio<ProductoEspecial>> cambios) {
+        version.incrementAndGet();
+        for (Cambio<ProductoEspecial> cambio : cambios) {
+            if (cambio.getId() == RepositorioIndexado.TODOS) {
+                tablas.clear();
+                productoDeEspecial.clear();
+                return;
+            }
+            // El especial pudo moverse de producto: se descartan el de antes y el de ahora
+            Integer compilado = cambio.getNuevo() != null
+                    ? productoDeEspecial.put(cambio.getId(), cambio.getNuevo().getIdProducto())
+                    : productoDeEspecial.remove(cambio.getId());
+            if (compilado != null) tablas.remove(compilado);
+            if (cambio.getAnterior() != null) tablas.remove(cambio.getAnterior().getIdProducto());
+            if (cambio.getNuevo() != null) tablas.remove(cambio.getNuevo().getIdProducto());
+        }
+    }
+
+    private static long instante(LocalDateTime momento) {
+        return momento.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    static TablaPrecios compilar(Producto producto, List<ProductoEspecial> especiales) {
+        List<TamanoProducto> tamanos = producto.getTamanos();
+        int[] idsTamano = new int[tamanos.size()];
+        double[] preciosTamano = new double[tamanos.size()];
+        for (int i = 0; i < tamanos.size(); i++) {
+            idsTamano[i] = tamanos.get(i).getId();
+            preciosTamano[i] = tamanos.get(i).getPrecio();
+        }
+
+        List<Long> llaves = new ArrayList<>();
+        List<Double> costos = new ArrayList<>();
+        for (ProductoIngrediente pi : producto.getIngredientes()) {
+            if (!pi.isSustituible()) continue;
+            for (Sustituto s : pi.getSustitutos()) {
+                if (!s.isDisponible()) continue;
+                llaves.add(llaveSustitucion(pi.getIdIngrediente(), s.getIdIngrediente()));
+                costos.add(s.getCostoExtra());
+            }
+        }
+        long[] llavesSustitucion = new long[llaves.size()];
+        double[] costosSustitucion = new double[llaves.size()];
+        for (int i = 0; i < llaves.size(); i++) {
+            llavesSustitucion[i] = llaves.get(i);
+            costosSustitucion[i] = costos.get(i);
+        }
+
+        List<long[]> tramos = new ArrayList<>();
+        List<Double> preciosTramo = new ArrayList<>();
+        tramosEspeciales(especiales, tramos, preciosTramo);
+        long[] inicios = new long[tramos.size()];
+        long[] fines = new long[tramos.size()];
+        double[] preciosEspecial = new double[tramos.size()];
+        for (int i = 0; i < tramos.size(); i++) {
+            inicios[i] = tramos.get(i)[0];
+            fines[i] = tramos.get(i)[1];
+            preciosEspecial[i] = preciosTramo.get(i);
+        }
+
+        return new TablaPrecios(producto.getPrecioBase(), idsTamano, preciosTamano,
+                llavesSustitucion, costosSustitucion, inicios, fines, preciosEspecial);
+    }
+
+    /**
+     * Convierte los especiales activos (que pueden traslaparse) en tramos
+     * [inicio, fin] sin traslape, cada uno con el precio más bajo que aplica
+     */
+    private static void tramosEspeciales(List<ProductoEspecial> especiales, List<long[]> tramos, List<Double> precios) {
+        List<ProductoEspecial> activos = new ArrayList<>();
+        for (ProductoEspecial pe : especiales) {
+            if (pe.isActivo() && !pe.getFechaFin().isBefore(pe.getFechaInicio())) activos.add(pe);
+        }
+        if (activos.isEmpty()) return;
+
+        // Fronteras: cada inicio y el segundo siguiente a cada fin (los fines son inclusivos)
+        long[] fronteras = new long[activos.size() * 2];
+        for (int i = 0; i < activos.size(); i++) {
+            fronteras[2 * i] = instante(activos.get(i).getFechaInicio());
+            fronteras[2 * i + 1] = instante(activos.get(i).getFechaFin()) + 1;
+        }
+        Arrays.sort(fronteras);
+
+        for (int i = 0; i + 1 < fronteras.length; i++) {
+            long desde = fronteras[i];
+            long hasta = fronteras[i + 1] - 1;
+            if (hasta < desde) continue;
+            double mejor = Double.MAX_VALUE;
+            for (ProductoEspecial pe : activos) {
+                if (instante(pe.getFechaInicio()) <= desde && instante(pe.getFechaFin()) >= hasta) {
+                    mejor = Math.min(mejor, pe.getPrecioEspecial());
+                }
+            }
+            if (mejor == Double.MAX_VALUE) continue;
+            // Tramos contiguos con el mismo precio se unen
+            int ultimo = tramos.size() - 1;
+            if (ultimo >= 0 && tramos.get(ultimo)[1] + 1 == desde && precios.get(ultimo) == mejor) {
+                tramos.get(ultimo)[1] = hasta;
+            } else {
+                tramos.add(new long[]{desde, hasta});
+                precios.add(mejor);
+            }
+        }
+    }
+
+    private static long llaveSustitucion(int idIngrediente, int idSustituto) {
+        return ((long) idIngrediente << 32) | (idSustituto & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Precios compilados de un producto; inmutable, se lee sin bloqueo
+     */
+    static final class TablaPrecios {
+        private final double precioBase;
+        private final int[] idsTamano;
+        private final double[] preciosTamano;
+        private final long[] llavesSustitucion;
+        private final double[] costosSustitucion;
+        private final long[] inicios;   // tramos de especiales, ordenados
+        private final long[] fines;
+        private final double[] preciosEspecial;
+
+        TablaPrecios(double precioBase, int[] idsTamano, double[] preciosTamano,
+                     long[] llavesSustitucion, double[] costosSustitucion,
+                     long[] inicios, long[] fines, double[] preciosEspecial) {
+            this.precioBase = precioBase;
+            this.idsTamano = idsTamano;
+            this.preciosTamano = preciosTamano;
+            this.llavesSustitucion = llavesSustitucion;
+            this.costosSustitucion = costosSustitucion;
+            this.inicios = inicios;
+            this.fines = fines;
+            this.preciosEspecial = preciosEspecial;
+        }
+
+        // Índice del tramo de especial que contiene al instante, o -1
+        int tramo(long instante) {
+            int i = Arrays.binarySearch(inicios, instante);
+            if (i < 0) i = -i - 2; // último tramo que empieza antes
+            return i >= 0 && instante <= fines[i] ? i : -1;
+        }
+
+        double precio(int idTamano, long instante) {
+            int t = tramo(instante);
+            double base = t >= 0 ? preciosEspecial[t] : precioBase;
+            if (idTamano == 0) return base;
+            for (int i = 0; i < idsTamano.length; i++) {
+                if (idsTamano[i] == idTamano) {
+                    return Math.max(0, base + (preciosTamano[i] - precioBase));
+                }
+            }
+            return -1;
+        }
+
+        double costoSustitucion(int idIngrediente, int idSustituto) {
+            long llave = llaveSustitucion(idIngrediente, idSustituto);
+            for (int i = 0; i < llavesSustitucion.length; i++) {
+                if (llavesSustitucion[i] == llave) return costosSustitucion[i];
+            }
+            return 0;
+        }
+    }
+}
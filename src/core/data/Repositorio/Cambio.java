@@ -0,0 +1,41 @@
+package core.data.Repositorio;
+
+/**
+ * Un cambio en un RepositorioIndexado: qué pasó, a qué ID, y el elemento antes y
+ * después (anterior es null en AGREGADO, nuevo es null en ELIMINADO).
+ * RECARGADO significa que se reemplazó todo el contenido (id = TODOS).
+ * Si la entidad se modificó en memoria antes de actualizarla, anterior y nuevo
+ * pueden ser el mismo objeto.
+ */
+public final class Cambio<T> {
+    public enum Tipo { AGREGADO, ACTUALIZADO, ELIMINADO, RECARGADO }
+
+    private final Tipo tipo;
+    private final int id;
+    private final T anterior;
+    private final T nuevo;
+
+    Cambio(Tipo tipo, int id, T anterior, T nuevo) {
+        this.tipo = tipo;
+        this.id = id;
+        this.anterior = anterior;
+        this.nuevo = nuevo;
+    }
+
+    /**
+     * Cambio RECARGADO: hay que volver a leer todo el repositorio
+     */
+    public static <T> Cambio<T> recarga() {
+        return new Cambio<>(Tipo.RECARGADO, RepositorioIndexado.TODOS, null, null);
+    }
+
+    public Tipo getTipo() { return tipo; }
+    public int getId() { return id; }
+    public T getAnterior() { return anterior; }
+    public T getNuevo() { return nuevo; }
+
+    @Override
+    public String toString() {
+        return tipo + "(" + id + ")";
+    }
+}
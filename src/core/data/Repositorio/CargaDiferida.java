@@ -0,0 +1,58 @@
+package core.data.Repositorio;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Singleton con carga diferida para los repositorios All*.
+ * La carga puede arrancarse en segundo plano con iniciar(); obtener() devuelve la
+ * instancia y solo bloquea si todavía se está cargando. Si nadie la inició, la
+ * carga ocurre en el hilo que llama. El CompletableFuture garantiza la publicación
+ * segura de la instancia entre hilos.
+ */
+public class CargaDiferida<T> {
+    private final Supplier<T> crear;
+    private final CompletableFuture<T> futuro = new CompletableFuture<>();
+    private final AtomicBoolean iniciada = new AtomicBoolean(false);
+
+    public CargaDiferida(Supplier<T> crear) {
+        this.crear = crear;
+    }
+
+    /**
+     * Arranca la carga en el executor dado (si no había empezado ya)
+     */
+    public CompletableFuture<T> iniciar(Executor executor) {
+        if (iniciada.compareAndSet(false, true)) {
+            executor.execute(this::cargar);
+        }
+        return futuro;
+    }
+
+    public T obtener() {
+        T instancia = futuro.getNow(null);
+        if (instancia != null) return instancia;
+
+        if (iniciada.compareAndSet(false, true)) {
+            cargar();
+        }
+        return futuro.join();
+    }
+
+    /**
+     * Se completa cuando la instancia terminó de cargarse
+     */
+    public CompletableFuture<T> futuro() {
+        return futuro;
+    }
+
+    private void cargar() {
+        try {
+            futuro.complete(crear.get());
+        } catch (Throwable t) {
+            futuro.completeExceptionally(t);
+        }
+    }
+}
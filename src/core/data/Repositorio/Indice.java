@@ -0,0 +1,28 @@
+package core.data.Repositorio;
+
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.ToIntFunction;
+
+/**
+ * Base de los índices que un RepositorioIndexado mantiene al día en cada mutación.
+ * Las modificaciones llegan con el bloqueo de escritura del repositorio tomado;
+ * las consultas de cada índice usan el mismo bloqueo para leer.
+ */
+abstract class Indice<T> {
+    protected ToIntFunction<T> clave;
+    protected StampedLock lock = new StampedLock();
+
+    // Lo asigna el repositorio al registrar el índice
+    void vincular(ToIntFunction<T> clave, StampedLock lock) {
+        this.clave = clave;
+        this.lock = lock;
+    }
+
+    abstract void agregar(T elemento);
+
+    abstract void eliminar(int id);
+
+    abstract void actualizar(T nuevo);
+
+    abstract void limpiar();
+}
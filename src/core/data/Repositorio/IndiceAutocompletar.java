@@ -0,0 +1,134 @@
+package core.data.Repositorio;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Autocompletado por prefijo sobre un nombre (p. ej. Ingrediente::getNombre).
+ *
+ * Guarda un arreglo ordenado con el nombre normalizado (sin acentos, minúsculas)
+ * a partir de cada palabra: "Queso Oaxaca" aparece como "queso oaxaca" y como
+ * "oaxaca", así "oax" también lo encuentra. Una consulta es una búsqueda binaria
+ * del prefijo y un recorrido de las entradas que comparten ese prefijo, sin copiar
+ * ni recorrer el repositorio. Los IDs a excluir (ya seleccionados) se pasan como
+ * BitSet. Las coincidencias al inicio del nombre van primero, luego las de otra
+ * palabra, cada grupo en orden alfabético.
+ *
+ * El arreglo se reconstruye en la primera consulta después de una mutación.
+ */
+public class IndiceAutocompletar<T> extends Indice<T> {
+    private final Function<T, String> nombre;
+    private final IntHashMap<T> elementos = new IntHashMap<>();
+    private volatile Entrada[] ordenadas; // null = se reconstruye en la siguiente consulta
+
+    private static final class Entrada {
+        final String clave;
+        final int id;
+        final boolean inicio; // la clave empieza donde empieza el nombre
+
+        Entrada(String clave, int id, boolean inicio) {
+            this.clave = clave;
+            this.id = id;
+            this.inicio = inicio;
+        }
+    }
+
+    public IndiceAutocompletar(Function<T, String> nombre) {
+        this.nombre = nombre;
+    }
+
+    @Override
+    void agregar(T elemento) {
+        elementos.put(clave.applyAsInt(elemento), elemento);
+        ordenadas = null;
+    }
+
+    @Override
+    void eliminar(int id) {
+        elementos.remove(id);
+        ordenadas = null;
+    }
+
+    @Override
+    void actualizar(T nuevo) {
+        agregar(nuevo);
+    }
+
+    @Override
+    void limpiar() {
+        elementos.clear();
+        ordenadas = null;
+    }
+
+    /**
+     * Hasta limite elementos cuyo nombre (o alguna palabra del nombre) empieza con
+     * el prefijo, sin los IDs marcados en excluidos (puede ser null)
+     */
+    public List<T> sugerencias(String prefijo, int limite, BitSet excluidos) {
+        String buscado = IndiceInvertido.normalizar(prefijo).trim();
+        List<T> resultado = new ArrayList<>();
+        if (buscado.isEmpty() || limite <= 0) return resultado;
+
+        long stamp = lock.readLock();
+        try {
+            Entrada[] entradas = ordenadas;
+            if (entradas == null) {
+                entradas = construir();
+                ordenadas = entradas;
+            }
+
+            int desde = primeraPosicion(entradas, buscado);
+            List<T> otrasPalabras = new ArrayList<>();
+            BitSet vistos = new BitSet();
+            for (int i = desde; i < entradas.length && entradas[i].clave.startsWith(buscado); i++) {
+                Entrada e = entradas[i];
+                if (vistos.get(e.id) || (excluidos != null && excluidos.get(e.id))) continue;
+                vistos.set(e.id);
+                if (e.inicio) {
+                    resultado.add(elementos.get(e.id));
+                    if (resultado.size() == limite) return resultado;
+                } else if (otrasPalabras.size() < limite) {
+                    otrasPalabras.add(elementos.get(e.id));
+                }
+            }
+            for (T elemento : otrasPalabras) {
+                if (resultado.size() == limite) break;
+                resultado.add(elemento);
+            }
+            return resultado;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private Entrada[] construir() {
+        List<Entrada> lista = new ArrayList<>(elementos.size() * 2);
+        elementos.forEach((id, elemento) -> {
+            String normalizado = IndiceInvertido.normalizar(nombre.apply(elemento)).trim();
+            if (normalizado.isEmpty()) return;
+            lista.add(new Entrada(normalizado, id, true));
+            for (int i = 1; i < normalizado.length(); i++) {
+                if (!Character.isLetterOrDigit(normalizado.charAt(i - 1)) && Character.isLetterOrDigit(normalizado.charAt(i))) {
+                    lista.add(new Entrada(normalizado.substring(i), id, false));
+                }
+            }
+        });
+        Entrada[] arreglo = lista.toArray(new Entrada[0]);
+        Arrays.sort(arreglo, (a, b) -> a.clave.compareTo(b.clave));
+        return arreglo;
+    }
+
+    // Primera entrada con clave >= buscado
+    private static int primeraPosicion(Entrada[] entradas, String buscado) {
+        int bajo = 0, alto = entradas.length;
+        while (bajo < alto) {
+            int medio = (bajo + alto) >>> 1;
+            if (entradas[medio].clave.compareTo(buscado) < 0) bajo = medio + 1;
+            else alto = medio;
+        }
+        return bajo;
+    }
+}
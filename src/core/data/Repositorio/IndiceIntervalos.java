@@ -0,0 +1,119 @@
+package core.data.Repositorio;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Árbol de intervalos estático sobre [inicio, fin] (ambos inclusive).
+ * Los intervalos se ordenan por inicio y se guardan en un arreglo que funciona
+ * como árbol binario balanceado implícito (la raíz de cada rango es su punto medio);
+ * cada nodo guarda el fin máximo de su subárbol para podar ramas completas.
+ * Consultas "activo en t" y "se traslapa con [a, b]" en O(log n + k log k):
+ * los resultados salen en el orden de la colección original (el de inserción
+ * del repositorio), como los daba el recorrido lineal. Las fechas se comparan
+ * con precisión de nanosegundos, igual que estaActivoParaFechaHora.
+ *
+ * Es inmutable: los repositorios lo reconstruyen (O(n log n)) la primera vez que
+ * se consulta después de una mutación.
+ */
+public class IndiceIntervalos<T> {
+    private final Object[] elementos;
+    private final long[] inicios;
+    private final long[] fines;
+    private final long[] maxFin; // fin máximo del subárbol con raíz en i
+    private final int[] posiciones; // posición de cada elemento en la colección original
+
+    public IndiceIntervalos(Collection<T> fuente, Function<T, LocalDateTime> inicio, Function<T, LocalDateTime> fin) {
+        List<T> validos = new ArrayList<>();
+        List<Integer> ordenados = new ArrayList<>();
+        for (T elemento : fuente) {
+            if (inicio.apply(elemento) != null && fin.apply(elemento) != null) {
+                ordenados.add(validos.size());
+                validos.add(elemento);
+            }
+        }
+        ordenados.sort(Comparator.comparing(i -> inicio.apply(validos.get(i))));
+
+        int n = ordenados.size();
+        elementos = new Object[n];
+        inicios = new long[n];
+        fines = new long[n];
+        maxFin = new long[n];
+        posiciones = new int[n];
+        for (int i = 0; i < n; i++) {
+            T elemento = validos.get(ordenados.get(i));
+            elementos[i] = elemento;
+            inicios[i] = aNanos(inicio.apply(elemento));
+            fines[i] = aNanos(fin.apply(elemento));
+            posiciones[i] = ordenados.get(i);
+        }
+        Arrays.fill(maxFin, Long.MIN_VALUE);
+        construir(0, n - 1);
+    }
+
+    private long construir(int desde, int hasta) {
+        if (desde > hasta) return Long.MIN_VALUE;
+        int medio = (desde + hasta) >>> 1;
+        long max = Math.max(fines[medio], Math.max(construir(desde, medio - 1), construir(medio + 1, hasta)));
+        maxFin[medio] = max;
+        return max;
+    }
+
+    // Nanosegundos desde 1970; fuera de los años 1678-2262 se satura
+    private static long aNanos(LocalDateTime fecha) {
+        long segundos = fecha.toEpochSecond(ZoneOffset.UTC);
+        if (segundos >= Long.MAX_VALUE / 1_000_000_000L) return Long.MAX_VALUE;
+        if (segundos <= Long.MIN_VALUE / 1_000_000_000L) return Long.MIN_VALUE;
+        return segundos * 1_000_000_000L + fecha.getNano();
+    }
+
+    /**
+     * Elementos cuyo intervalo contiene el instante dado, en orden de inserción
+     */
+    public List<T> enInstante(LocalDateTime instante) {
+        long t = aNanos(instante);
+        return buscar(t, t);
+    }
+
+    /**
+     * Elementos cuyo intervalo se traslapa con [desde, hasta], en orden de inserción
+     */
+    public List<T> enRango(LocalDateTime desde, LocalDateTime hasta) {
+        return buscar(aNanos(desde), aNanos(hasta));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<T> buscar(long a, long b) {
+        List<Integer> nodos = new ArrayList<>();
+        buscar(0, elementos.length - 1, a, b, nodos);
+        nodos.sort(Comparator.comparingInt(i -> posiciones[i]));
+        List<T> resultado = new ArrayList<>(nodos.size());
+        for (int i : nodos) resultado.add((T) elementos[i]);
+        return resultado;
+    }
+
+    private void buscar(int desde, int hasta, long a, long b, List<Integer> resultado) {
+        if (desde > hasta) return;
+        int medio = (desde + hasta) >>> 1;
+        // Ningún intervalo de este subárbol termina después de a
+        if (maxFin[medio] < a) return;
+
+        buscar(desde, medio - 1, a, b, resultado);
+        // Todo lo que sigue empieza después de b
+        if (inicios[medio] > b) return;
+        if (fines[medio] >= a) {
+            resultado.add(medio);
+        }
+        buscar(medio + 1, hasta, a, b, resultado);
+    }
+
+    public int tamano() {
+        return elementos.length;
+    }
+}
@@ -0,0 +1,175 @@
+package core.data.Repositorio;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Índice de texto completo (término → elementos) para las búsquedas de las listas.
+ *
+ * Los textos se normalizan sin acentos y en minúsculas ("Café" y "cafe" son el
+ * mismo término) y se parten en palabras. Los términos viven en un TreeMap, así
+ * cada palabra de la consulta se resuelve como prefijo con un subMap ("plat"
+ * encuentra "plátano"). Todas las palabras de la consulta deben coincidir; el
+ * resultado se ordena por relevancia: peso del campo donde aparece y si la
+ * coincidencia es exacta o solo de prefijo.
+ *
+ * Lo mantiene el RepositorioIndexado en cada agregar/actualizar/eliminar.
+ */
+public class IndiceInvertido<T> extends Indice<T> {
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADORES = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final int BONO_EXACTO = 2;
+
+    private final List<Function<T, String>> campos = new ArrayList<>();
+    private final List<Integer> pesos = new ArrayList<>();
+
+    private final NavigableMap<String, IntHashMap<Integer>> terminos = new TreeMap<>(); // término → id → peso
+    private final IntHashMap<List<String>> terminosPorId = new IntHashMap<>();
+    private final IntHashMap<T> elementos = new IntHashMap<>();
+
+    /**
+     * Agrega un campo de texto con su peso en la relevancia
+     */
+    public IndiceInvertido<T> campo(Function<T, String> extraer, int peso) {
+        campos.add(extraer);
+        pesos.add(peso);
+        return this;
+    }
+
+    /**
+     * Minúsculas y sin acentos: "Plátano" → "platano"
+     */
+    public static String normalizar(String texto) {
+        if (texto == null) return "";
+        String sinMarcas = MARCAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        return sinMarcas.toLowerCase(Locale.ROOT);
+    }
+
+    public static List<String> tokenizar(String texto) {
+        List<String> tokens = new ArrayList<>();
+        for (String token : SEPARADORES.split(normalizar(texto))) {
+            if (!token.isEmpty()) tokens.add(token);
+        }
+        return tokens;
+    }
+
+    @Override
+    void agregar(T elemento) {
+        int id = clave.applyAsInt(elemento);
+        List<String> propios = new ArrayList<>();
+        for (int c = 0; c < campos.size(); c++) {
+            int peso = pesos.get(c);
+            for (String token : tokenizar(campos.get(c).apply(elemento))) {
+                IntHashMap<Integer> postings = terminos.computeIfAbsent(token, t -> new IntHashMap<>(4));
+                Integer previo = postings.put(id, peso);
+                if (previo == null) {
+                    propios.add(token);
+                } else {
+                    postings.put(id, previo + peso);
+                }
+            }
+        }
+        terminosPorId.put(id, propios);
+        elementos.put(id, elemento);
+    }
+
+    @Override
+    void eliminar(int id) {
+        List<String> propios = terminosPorId.remove(id);
+        elementos.remove(id);
+        if (propios == null) return;
+        for (String token : propios) {
+            IntHashMap<Integer> postings = terminos.get(token);
+            if (postings == null) continue;
+            postings.remove(id);
+            if (postings.isEmpty()) terminos.remove(token);
+        }
+    }
+
+    @Override
+    void actualizar(T nuevo) {
+        eliminar(clave.applyAsInt(nuevo));
+        agregar(nuevo);
+    }
+
+    @Override
+    void limpiar() {
+        terminos.clear();
+        terminosPorId.clear();
+        elementos.clear();
+    }
+
+    /**
+     * Elementos que contienen todas las palabras de la consulta (como palabra o
+     * prefijo de palabra), de más a menos relevante. Consulta vacía → lista vacía.
+     */
+    public List<T> buscar(String consulta) {
+        List<String> tokens = tokenizar(consulta);
+        if (tokens.isEmpty()) return new ArrayList<>();
+
+        long stamp = lock.readLock();
+        try {
+            IntHashMap<Integer> puntajes = null;
+            for (String token : tokens) {
+                IntHashMap<Integer> delToken = puntajesDeToken(token);
+                puntajes = puntajes == null ? delToken : intersectar(puntajes, delToken);
+                if (puntajes.isEmpty()) return new ArrayList<>();
+            }
+
+            List<int[]> ordenados = new ArrayList<>(puntajes.size());
+            puntajes.forEach((id, puntaje) -> ordenados.add(new int[]{id, puntaje}));
+            ordenados.sort(Comparator.<int[]>comparingInt(p -> -p[1]).thenComparingInt(p -> p[0]));
+
+            List<T> resultado = new ArrayList<>(ordenados.size());
+            for (int[] p : ordenados) {
+                resultado.add(elementos.get(p[0]));
+            }
+            return resultado;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public int getNumeroTerminos() {
+        long stamp = lock.readLock();
+        try {
+            return terminos.size();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // Mejor coincidencia de cada elemento para una palabra de la consulta
+    private IntHashMap<Integer> puntajesDeToken(String token) {
+        IntHashMap<Integer> puntajes = new IntHashMap<>();
+        for (Map.Entry<String, IntHashMap<Integer>> termino
+                : terminos.subMap(token, true, token + Character.MAX_VALUE, false).entrySet()) {
+            int bono = termino.getKey().equals(token) ? BONO_EXACTO : 1;
+            termino.getValue().forEach((id, peso) -> {
+                int puntaje = peso * bono;
+                Integer actual = puntajes.get(id);
+                if (actual == null || actual < puntaje) puntajes.put(id, puntaje);
+            });
+        }
+        return puntajes;
+    }
+
+    private static IntHashMap<Integer> intersectar(IntHashMap<Integer> a, IntHashMap<Integer> b) {
+        IntHashMap<Integer> chico = a.size() <= b.size() ? a : b;
+        IntHashMap<Integer> grande = chico == a ? b : a;
+        IntHashMap<Integer> resultado = new IntHashMap<>(chico.size());
+        chico.forEach((id, puntaje) -> {
+            Integer otro = grande.get(id);
+            if (otro != null) resultado.put(id, puntaje + otro);
+        });
+        return resultado;
+    }
+}
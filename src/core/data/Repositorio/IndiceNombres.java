@@ -0,0 +1,65 @@
+package core.data.Repositorio;
+
+import java.util.function.Function;
+
+/**
+ * Tabla ID → nombre vigente, mantenida por el RepositorioIndexado.
+ *
+ * Las copias del nombre que guardan otras entidades (NombreIngrediente,
+ * NombreSeccion, NombreProducto) pueden quedar viejas; al mostrar se resuelve
+ * el nombre actual aquí por ID. Los nombres se internan, así la tabla y las
+ * copias que se actualizan desde ella comparten la misma cadena. Conserva el
+ * nombre con el que se indexó cada ID, por lo que antes de un update sigue
+ * devolviendo el nombre anterior (así se detecta un renombre).
+ */
+public class IndiceNombres<T> extends Indice<T> {
+    private final Function<T, String> extraerNombre;
+    private final IntHashMap<String> nombres = new IntHashMap<>();
+
+    public IndiceNombres(Function<T, String> extraerNombre) {
+        this.extraerNombre = extraerNombre;
+    }
+
+    @Override
+    void agregar(T elemento) {
+        String nombre = extraerNombre.apply(elemento);
+        if (nombre == null) return;
+        nombres.put(clave.applyAsInt(elemento), nombre.intern());
+    }
+
+    @Override
+    void eliminar(int id) {
+        nombres.remove(id);
+    }
+
+    @Override
+    void actualizar(T nuevo) {
+        eliminar(clave.applyAsInt(nuevo));
+        agregar(nuevo);
+    }
+
+    @Override
+    void limpiar() {
+        nombres.clear();
+    }
+
+    /**
+     * Nombre vigente del ID, o null si no existe
+     */
+    public String obtener(int id) {
+        long stamp = lock.readLock();
+        try {
+            return nombres.get(id);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Nombre vigente del ID o, si ya no existe, la copia que traía la entidad
+     */
+    public String obtener(int id, String respaldo) {
+        String nombre = obtener(id);
+        return nombre != null ? nombre : respaldo;
+    }
+}
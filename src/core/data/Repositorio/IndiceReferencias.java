@@ -0,0 +1,98 @@
+package core.data.Repositorio;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.IntConsumer;
+
+/**
+ * Índice inverso de referencias: ID referido → elementos que lo usan
+ * (p. ej. ingrediente → productos que lo llevan, sección → menús que la incluyen).
+ * Con él un cambio en la entidad referida (un renombre) toca solo a quienes la
+ * referencian, sin recorrer todo el repositorio.
+ *
+ * Guarda los IDs que referenciaba cada elemento al indexarlo, así que funciona
+ * aunque la entidad se haya modificado en memoria antes del update.
+ */
+public class IndiceReferencias<T> extends Indice<T> {
+    private final BiConsumer<T, IntConsumer> referencias;
+    private final IntHashMap<IntHashMap<T>> usosPorReferido = new IntHashMap<>(); // referido → id → elemento
+    private final IntHashMap<int[]> referidosPorId = new IntHashMap<>();
+
+    /**
+     * referencias recibe el elemento y entrega cada ID que referencia
+     * (los repetidos se cuentan una vez)
+     */
+    public IndiceReferencias(BiConsumer<T, IntConsumer> referencias) {
+        this.referencias = referencias;
+    }
+
+    @Override
+    void agregar(T elemento) {
+        int id = clave.applyAsInt(elemento);
+        IntHashMap<Boolean> vistos = new IntHashMap<>(8);
+        referencias.accept(elemento, referido -> vistos.put(referido, Boolean.TRUE));
+
+        int[] referidos = new int[vistos.size()];
+        int[] n = {0};
+        vistos.forEach((referido, v) -> {
+            referidos[n[0]++] = referido;
+            IntHashMap<T> usos = usosPorReferido.get(referido);
+            if (usos == null) {
+                usos = new IntHashMap<>(4);
+                usosPorReferido.put(referido, usos);
+            }
+            usos.put(id, elemento);
+        });
+        referidosPorId.put(id, referidos);
+    }
+
+    @Override
+    void eliminar(int id) {
+        int[] referidos = referidosPorId.remove(id);
+        if (referidos == null) return;
+        for (int referido : referidos) {
+            IntHashMap<T> usos = usosPorReferido.get(referido);
+            if (usos == null) continue;
+            usos.remove(id);
+            if (usos.isEmpty()) usosPorReferido.remove(referido);
+        }
+    }
+
+    @Override
+    void actualizar(T nuevo) {
+        eliminar(clave.applyAsInt(nuevo));
+        agregar(nuevo);
+    }
+
+    @Override
+    void limpiar() {
+        usosPorReferido.clear();
+        referidosPorId.clear();
+    }
+
+    /**
+     * Elementos que referencian al ID dado
+     */
+    public List<T> obtener(int referido) {
+        long stamp = lock.readLock();
+        try {
+            IntHashMap<T> usos = usosPorReferido.get(referido);
+            List<T> resultado = new ArrayList<>(usos == null ? 0 : usos.size());
+            if (usos != null) usos.forEachValue(resultado::add);
+            return resultado;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public int contar(int referido) {
+        long stamp = lock.readLock();
+        try {
+            IntHashMap<T> usos = usosPorReferido.get(referido);
+            return usos == null ? 0 : usos.size();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+}
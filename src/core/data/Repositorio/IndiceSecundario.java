@@ -0,0 +1,132 @@
+package core.data.Repositorio;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * Índice secundario llave → elementos, mantenido por un RepositorioIndexado en
+ * cada agregar/actualizar/eliminar. Guarda la llave con la que se indexó cada ID,
+ * así que si la entidad se modifica en memoria antes de llamar a update el
+ * elemento se saca del grupo correcto.
+ * Las consultas toman el bloqueo de lectura del repositorio dueño; las
+ * modificaciones ya llegan con su bloqueo de escritura tomado.
+ */
+public class IndiceSecundario<K, T> extends Indice<T> {
+    private final Function<T, K> extraerLlave;
+    private final Map<K, List<T>> grupos;
+    private final IntHashMap<K> llavePorId = new IntHashMap<>();
+
+    private IndiceSecundario(Function<T, K> extraerLlave, Map<K, List<T>> grupos) {
+        this.extraerLlave = extraerLlave;
+        this.grupos = grupos;
+    }
+
+    /**
+     * Índice hash, para búsquedas por igualdad
+     */
+    public static <K, T> IndiceSecundario<K, T> hash(Function<T, K> extraerLlave) {
+        return new IndiceSecundario<>(extraerLlave, new HashMap<>());
+    }
+
+    /**
+     * Índice ordenado por llave, que además admite consultas por rango
+     */
+    public static <K extends Comparable<? super K>, T> IndiceSecundario<K, T> ordenado(Function<T, K> extraerLlave) {
+        return new IndiceSecundario<>(extraerLlave, new TreeMap<>());
+    }
+
+    @Override
+    void agregar(T elemento) {
+        K llave = extraerLlave.apply(elemento);
+        if (llave == null) return;
+        llavePorId.put(clave.applyAsInt(elemento), llave);
+        grupos.computeIfAbsent(llave, k -> new ArrayList<>()).add(elemento);
+    }
+
+    @Override
+    void eliminar(int id) {
+        K llave = llavePorId.remove(id);
+        if (llave == null) return;
+        List<T> grupo = grupos.get(llave);
+        if (grupo == null) return;
+        grupo.removeIf(e -> clave.applyAsInt(e) == id);
+        if (grupo.isEmpty()) {
+            grupos.remove(llave);
+        }
+    }
+
+    @Override
+    void actualizar(T nuevo) {
+        int id = clave.applyAsInt(nuevo);
+        K llaveAnterior = llavePorId.get(id);
+        K llaveNueva = extraerLlave.apply(nuevo);
+        if (llaveAnterior != null && llaveAnterior.equals(llaveNueva)) {
+            // Misma llave: reemplazo en su lugar para conservar el orden del grupo
+            List<T> grupo = grupos.get(llaveAnterior);
+            for (int i = 0; i < grupo.size(); i++) {
+                if (clave.applyAsInt(grupo.get(i)) == id) {
+                    grupo.set(i, nuevo);
+                    return;
+                }
+            }
+        }
+        eliminar(id);
+        agregar(nuevo);
+    }
+
+    @Override
+    void limpiar() {
+        grupos.clear();
+        llavePorId.clear();
+    }
+
+    /**
+     * Elementos con la llave dada, en orden de inserción
+     */
+    public List<T> obtener(K llave) {
+        long stamp = lock.readLock();
+        try {
+            List<T> grupo = grupos.get(llave);
+            return grupo == null ? new ArrayList<>() : new ArrayList<>(grupo);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public T primero(K llave) {
+        long stamp = lock.readLock();
+        try {
+            List<T> grupo = grupos.get(llave);
+            return grupo == null || grupo.isEmpty() ? null : grupo.get(0);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Elementos con llave en [desde, hasta], ordenados por llave.
+     * Solo disponible en índices creados con ordenado().
+     */
+    @SuppressWarnings("unchecked")
+    public List<T> rango(K desde, K hasta) {
+        if (!(grupos instanceof NavigableMap)) {
+            throw new UnsupportedOperationException("El índice no es ordenado");
+        }
+        List<T> resultado = new ArrayList<>();
+        if (((Comparable<? super K>) desde).compareTo(hasta) > 0) return resultado;
+        long stamp = lock.readLock();
+        try {
+            for (List<T> grupo : ((NavigableMap<K, List<T>>) grupos).subMap(desde, true, hasta, true).values()) {
+                resultado.addAll(grupo);
+            }
+            return resultado;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+}
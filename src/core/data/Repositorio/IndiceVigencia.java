@@ -0,0 +1,110 @@
+package core.data.Repositorio;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * Índices de intervalos [inicio, fin] de un RepositorioIndexado (uno global y,
+ * opcionalmente, uno por grupo, p. ej. por idProducto) que se consultan sin
+ * tomar ningún candado.
+ *
+ * Cada versión se arma sobre la copia inmutable que devuelve elementos(), y esa
+ * copia solo cambia de identidad después de una escritura: si la copia actual no
+ * es la de la versión publicada, el lector arma una nueva con la copia actual y
+ * la publica en un campo volatile. Los repositorios ya no tienen que invalidar
+ * nada al mutar, y ninguna consulta espera a un escritor ni al guardado a disco.
+ * Dos lectores pueden armar la misma versión a la vez; gana cualquiera.
+ */
+public class IndiceVigencia<T> {
+    private final RepositorioIndexado<T> repositorio;
+    private final Function<T, LocalDateTime> inicio;
+    private final Function<T, LocalDateTime> fin;
+    private final ToIntFunction<T> grupo; // null = sin índices por grupo
+    private volatile Version<T> actual;
+
+    public IndiceVigencia(RepositorioIndexado<T> repositorio, Function<T, LocalDateTime> inicio,
+                          Function<T, LocalDateTime> fin) {
+        this(repositorio, inicio, fin, null);
+    }
+
+    public IndiceVigencia(RepositorioIndexado<T> repositorio, Function<T, LocalDateTime> inicio,
+                          Function<T, LocalDateTime> fin, ToIntFunction<T> grupo) {
+        this.repositorio = repositorio;
+        this.inicio = inicio;
+        this.fin = fin;
+        this.grupo = grupo;
+    }
+
+    /**
+     * Índice sobre todos los elementos
+     */
+    public IndiceIntervalos<T> todos() {
+        return version().todos();
+    }
+
+    /**
+     * Índice sobre los elementos del grupo (vacío si no hay ninguno)
+     */
+    public IndiceIntervalos<T> delGrupo(int llave) {
+        return version().delGrupo(llave);
+    }
+
+    private Version<T> version() {
+        List<T> fuente = repositorio.elementos();
+        Version<T> version = actual;
+        if (version == null || version.fuente != fuente) {
+            version = new Version<>(fuente, this);
+            actual = version;
+        }
+        return version;
+    }
+
+    /**
+     * Índices armados sobre una misma copia; cada uno se construye al primer uso
+     */
+    private static final class Version<T> {
+        final List<T> fuente;
+        final IndiceVigencia<T> dueno;
+        volatile IndiceIntervalos<T> todos;
+        volatile Map<Integer, List<T>> porGrupo;
+        final ConcurrentHashMap<Integer, IndiceIntervalos<T>> indicesGrupo = new ConcurrentHashMap<>();
+
+        Version(List<T> fuente, IndiceVigencia<T> dueno) {
+            this.fuente = fuente;
+            this.dueno = dueno;
+        }
+
+        IndiceIntervalos<T> todos() {
+            IndiceIntervalos<T> indice = todos;
+            if (indice == null) {
+                indice = new IndiceIntervalos<>(fuente, dueno.inicio, dueno.fin);
+                todos = indice;
+            }
+            return indice;
+        }
+
+        IndiceIntervalos<T> delGrupo(int llave) {
+            return indicesGrupo.computeIfAbsent(llave, k -> new IndiceIntervalos<>(
+                    grupos().getOrDefault(k, new ArrayList<>()), dueno.inicio, dueno.fin));
+        }
+
+        // Una sola pasada agrupa toda la copia, conservando el orden de inserción
+        private Map<Integer, List<T>> grupos() {
+            Map<Integer, List<T>> grupos = porGrupo;
+            if (grupos == null) {
+                grupos = new HashMap<>();
+                for (T elemento : fuente) {
+                    grupos.computeIfAbsent(dueno.grupo.applyAsInt(elemento), k -> new ArrayList<>()).add(elemento);
+                }
+                porGrupo = grupos;
+            }
+            return grupos;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package core.data.Repositorio;
+
+import java.util.function.Consumer;
+
+/**
+ * Mapa hash con llaves int primitivas (sin Integer boxing).
+ * Direccionamiento abierto con sondeo lineal y borrado por desplazamiento hacia atrás,
+ * de modo que no se acumulan lápidas tras muchas eliminaciones.
+ * No es thread-safe; la sincronización es responsabilidad de quien lo contiene.
+ */
+public class IntHashMap<V> {
+    private static final float FACTOR_CARGA = 0.5f;
+
+    private int[] llaves;
+    private Object[] valores; // null = casilla libre
+    private int tamano = 0;
+    private int mascara;
+
+    public IntHashMap() {
+        this(16);
+    }
+
+    public IntHashMap(int capacidadInicial) {
+        int capacidad = Integer.highestOneBit(Math.max(4, (int) (capacidadInicial / FACTOR_CARGA)) - 1) << 1;
+        llaves = new int[capacidad];
+        valores = new Object[capacidad];
+        mascara = capacidad - 1;
+    }
+
+    private static int mezclar(int llave) {
+        int h = llave * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(int llave) {
+        int i = mezclar(llave) & mascara;
+        while (valores[i] != null) {
+            if (llaves[i] == llave) return (V) valores[i];
+            i = (i + 1) & mascara;
+        }
+        return null;
+    }
+
+    public boolean containsKey(int llave) {
+        return get(llave) != null;
+    }
+
+    /**
+     * Asocia el valor a la llave y devuelve el anterior (o null)
+     */
+    @SuppressWarnings("unchecked")
+    public V put(int llave, V valor) {
+        if (valor == null) throw new IllegalArgumentException("IntHashMap no admite valores null");
+
+        int i = mezclar(llave) & mascara;
+        while (valores[i] != null) {
+            if (llaves[i] == llave) {
+                V anterior = (V) valores[i];
+                valores[i] = valor;
+                return anterior;
+            }
+            i = (i + 1) & mascara;
+        }
+        llaves[i] = llave;
+        valores[i] = valor;
+        if (++tamano > llaves.length * FACTOR_CARGA) {
+            redimensionar(llaves.length << 1);
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V remove(int llave) {
+        int i = mezclar(llave) & mascara;
+        while (valores[i] != null) {
+            if (llaves[i] == llave) {
+                V anterior = (V) valores[i];
+                desplazarHaciaAtras(i);
+                tamano--;
+                return anterior;
+            }
+            i = (i + 1) & mascara;
+        }
+        return null;
+    }
+
+    /**
+     * Rellena el hueco dejado en i moviendo hacia atrás las entradas de la misma
+     * corrida cuya posición ideal queda antes del hueco
+     */
+    private void desplazarHaciaAtras(int hueco) {
+        int i = hueco;
+        while (true) {
+            i = (i + 1) & mascara;
+            if (valores[i] == null) break;
+            int ideal = mezclar(llaves[i]) & mascara;
+            boolean mover = hueco <= i
+                    ? (ideal <= hueco || ideal > i)
+                    : (ideal <= hueco && ideal > i);
+            if (mover) {
+                llaves[hueco] = llaves[i];
+                valores[hueco] = valores[i];
+                hueco = i;
+            }
+        }
+        valores[hueco] = null;
+    }
+
+    private void redimensionar(int capacidad) {
+        int[] viejasLlaves = llaves;
+        Object[] viejosValores = valores;
+        llaves = new int[capacidad];
+        valores = new Object[capacidad];
+        mascara = capacidad - 1;
+        for (int j = 0; j < viejasLlaves.length; j++) {
+            if (viejosValores[j] == null) continue;
+            int i = mezclar(viejasLlaves[j]) & mascara;
+            while (valores[i] != null) {
+                i = (i + 1) & mascara;
+            }
+            llaves[i] = viejasLlaves[j];
+            valores[i] = viejosValores[j];
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEachValue(Consumer<V> accion) {
+        for (Object v : valores) {
+            if (v != null) accion.accept((V) v);
+        }
+    }
+
+    /**
+     * Recorre las entradas llave/valor (sin boxing de la llave)
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(ConsumidorEntrada<V> accion) {
+        for (int j = 0; j < valores.length; j++) {
+            if (valores[j] != null) accion.aceptar(llaves[j], (V) valores[j]);
+        }
+    }
+
+    @FunctionalInterface
+    public interface ConsumidorEntrada<V> {
+        void aceptar(int llave, V valor);
+    }
+
+    public int size() {
+        return tamano;
+    }
+
+    public boolean isEmpty() {
+        return tamano == 0;
+    }
+
+    public void clear() {
+        java.util.Arrays.fill(valores, null);
+        tamano = 0;
+    }
+}
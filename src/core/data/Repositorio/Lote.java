@@ -0,0 +1,56 @@
+package core.data.Repositorio;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Altas, cambios y bajas que se aplican juntas con RepositorioIndexado.aplicar:
+ * bajo un solo bloqueo de escritura (ningún lector ve el lote a medias) y con
+ * una sola notificación a los oyentes. Las operaciones se aplican en el orden
+ * en que se agregaron.
+ */
+public class Lote<T> {
+    public enum Tipo { AGREGAR, ACTUALIZAR, ELIMINAR }
+
+    public static final class Operacion<T> {
+        private final Tipo tipo;
+        private final T elemento; // null en ELIMINAR
+        private final int id;     // solo ELIMINAR
+
+        Operacion(Tipo tipo, T elemento, int id) {
+            this.tipo = tipo;
+            this.elemento = elemento;
+            this.id = id;
+        }
+
+        public Tipo getTipo() { return tipo; }
+        public T getElemento() { return elemento; }
+        public int getId() { return id; }
+    }
+
+    private final List<Operacion<T>> operaciones = new ArrayList<>();
+
+    public Lote<T> agregar(T elemento) {
+        operaciones.add(new Operacion<>(Tipo.AGREGAR, elemento, 0));
+        return this;
+    }
+
+    public Lote<T> actualizar(T elemento) {
+        operaciones.add(new Operacion<>(Tipo.ACTUALIZAR, elemento, 0));
+        return this;
+    }
+
+    public Lote<T> eliminar(int id) {
+        operaciones.add(new Operacion<>(Tipo.ELIMINAR, null, id));
+        return this;
+    }
+
+    public List<Operacion<T>> getOperaciones() {
+        return Collections.unmodifiableList(operaciones);
+    }
+
+    public boolean isVacio() {
+        return operaciones.isEmpty();
+    }
+}
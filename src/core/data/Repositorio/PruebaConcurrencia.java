@@ -0,0 +1,164 @@
+package core.data.Repositorio;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Prueba de estrés de RepositorioIndexado, su IndiceSecundario y un IndiceVigencia
+ * con escritores y lectores simultáneos:
+ *   PruebaConcurrencia [escritores] [lectores] [elementosPorEscritor]
+ *
+ * Cada escritor agrega sus propios IDs (uno por uno y en lotes), los actualiza y
+ * elimina los impares, mientras los lectores recorren las copias, buscan por ID y
+ * consultan los índices. Falla (código de salida 1) si algún lector ve una
+ * ConcurrentModificationException u otro error, si un lector ve un elemento en el
+ * grupo equivocado, o si al final falta o sobra algún elemento o actualización.
+ */
+public final class PruebaConcurrencia {
+    private PruebaConcurrencia() {}
+
+    private static final class Registro {
+        final int id;
+        final int grupo;
+        final int version;
+        final LocalDateTime inicio;
+        final LocalDateTime fin;
+
+        Registro(int id, int version) {
+            this.id = id;
+            this.grupo = id % 16;
+            this.version = version;
+            this.inicio = BASE.plusMinutes(id % 500);
+            this.fin = inicio.plusMinutes(30 + id % 90);
+        }
+    }
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 1, 1, 8, 0);
+
+    public static void main(String[] args) throws InterruptedException {
+        int escritores = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int lectores = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int porEscritor = args.length > 2 ? Integer.parseInt(args[2]) : 10_000;
+
+        RepositorioIndexado<Registro> repositorio = new RepositorioIndexado<>(r -> r.id);
+        IndiceSecundario<Integer, Registro> porGrupo = repositorio.agregarIndice(IndiceSecundario.hash(r -> r.grupo));
+        IndiceVigencia<Registro> vigencia = new IndiceVigencia<>(repositorio, r -> r.inicio, r -> r.fin, r -> r.grupo);
+
+        AtomicBoolean escribiendo = new AtomicBoolean(true);
+        AtomicLong lecturas = new AtomicLong();
+        AtomicInteger errores = new AtomicInteger();
+        CountDownLatch salida = new CountDownLatch(1);
+        List<Thread> hilos = new ArrayList<>();
+
+        for (int w = 0; w < escritores; w++) {
+            int desde = w * porEscritor + 1;
+            hilos.add(new Thread(() -> {
+                esperar(salida);
+                int mitad = porEscritor / 2;
+                for (int id = desde; id < desde + mitad; id++) {
+                    repositorio.agregar(new Registro(id, 0));
+                }
+                Lote<Registro> lote = new Lote<>();
+                for (int id = desde + mitad; id < desde + porEscritor; id++) {
+                    lote.agregar(new Registro(id, 0));
+                    if (lote.getOperaciones().size() == 64) {
+                        repositorio.aplicar(lote);
+                        lote = new Lote<>();
+                    }
+                }
+                repositorio.aplicar(lote);
+                for (int id = desde; id < desde + porEscritor; id++) {
+                    repositorio.actualizar(new Registro(id, 1));
+                }
+                for (int id = desde; id < desde + porEscritor; id++) {
+                    if (id % 2 == 1) repositorio.eliminar(id);
+                }
+            }, "escritor-" + w));
+        }
+
+        int maxId = escritores * porEscritor;
+        for (int r = 0; r < lectores; r++) {
+            hilos.add(new Thread(() -> {
+                esperar(salida);
+                ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+                while (escribiendo.get()) {
+                    try {
+                        long suma = 0;
+                        for (Registro registro : repositorio.elementos()) suma += registro.version;
+                        suma += repositorio.stream().filter(x -> x.version == 1).count();
+                        repositorio.obtener(aleatorio.nextInt(1, maxId + 1));
+
+                        int grupo = aleatorio.nextInt(16);
+                        for (Registro registro : porGrupo.obtener(grupo)) {
+                            if (registro.grupo != grupo) errores.incrementAndGet();
+                        }
+                        LocalDateTime instante = BASE.plusMinutes(aleatorio.nextInt(600));
+                        for (Registro registro : vigencia.delGrupo(grupo).enInstante(instante)) {
+                            if (registro.grupo != grupo || registro.inicio.isAfter(instante)
+                                    || registro.fin.isBefore(instante)) errores.incrementAndGet();
+                        }
+                        vigencia.todos().enRango(instante, instante.plusMinutes(15));
+                        if (suma < 0) errores.incrementAndGet();
+                        lecturas.incrementAndGet();
+                    } catch (ConcurrentModificationException e) {
+                        System.out.println("ConcurrentModificationException en " + Thread.currentThread().getName());
+                        errores.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        e.printStackTrace();
+                        errores.incrementAndGet();
+                    }
+                }
+            }, "lector-" + r));
+        }
+
+        long inicio = System.nanoTime();
+        for (Thread hilo : hilos) hilo.start();
+        salida.countDown();
+        for (int i = 0; i < escritores; i++) hilos.get(i).join();
+        escribiendo.set(false);
+        for (int i = escritores; i < hilos.size(); i++) hilos.get(i).join();
+        long ms = (System.nanoTime() - inicio) / 1_000_000;
+
+        // Estado final: quedan los pares de cada escritor, todos en su versión 1
+        int esperados = 0;
+        int faltantes = 0;
+        for (int id = 1; id <= maxId; id++) {
+            Registro registro = repositorio.obtener(id);
+            if (id % 2 == 0) {
+                esperados++;
+                if (registro == null || registro.version != 1) faltantes++;
+            } else if (registro != null) {
+                faltantes++;
+            }
+        }
+        int enGrupos = 0;
+        for (int grupo = 0; grupo < 16; grupo++) enGrupos += porGrupo.obtener(grupo).size();
+        boolean consistente = repositorio.tamano() == esperados && enGrupos == esperados
+                && vigencia.todos().tamano() == esperados;
+
+        System.out.printf("%d escritores, %d lectores: %,d escrituras y %,d rondas de lectura en %d ms%n",
+                escritores, lectores, escritores * porEscritor * 3L - maxId / 2, lecturas.get(), ms);
+        System.out.printf("Elementos: %d (esperados %d), en índice por grupo: %d, en índice de vigencia: %d%n",
+                repositorio.tamano(), esperados, enGrupos, vigencia.todos().tamano());
+        System.out.printf("Errores de lectura: %d, actualizaciones perdidas o de más: %d%n", errores.get(), faltantes);
+
+        boolean correcto = errores.get() == 0 && faltantes == 0 && consistente;
+        System.out.println(correcto ? "OK" : "FALLA");
+        System.exit(correcto ? 0 : 1);
+    }
+
+    private static void esperar(CountDownLatch salida) {
+        try {
+            salida.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,370 @@
+package core.data.Repositorio;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+import java.util.stream.Stream;
+
+/**
+ * Núcleo compartido de los repositorios All*: conserva los elementos en orden
+ * de inserción (lo que devuelve getAll()) y mantiene un índice hash por ID
+ * primario para que getById sea O(1) en lugar de recorrer la lista.
+ * Los índices secundarios registrados se actualizan en cada mutación.
+ *
+ * Concurrencia: las escrituras se serializan con el bloqueo de escritura de un
+ * StampedLock. Los recorridos (getAll, elementos, stream) leen una copia inmutable
+ * publicada en un campo volatile, que se rehace solo después de una escritura;
+ * las búsquedas por ID usan lectura optimista y caen al bloqueo de lectura si
+ * hubo una escritura a la mitad. Así los hilos de los controladores y el hilo de
+ * JavaFX pueden leer mientras otro escribe sin ConcurrentModificationException.
+ *
+ * Los oyentes (suscribir) reciben la lista de Cambios de cada mutación (uno
+ * solo, o todos los de un Lote juntos), ya fuera del bloqueo y en el hilo que
+ * hizo el cambio.
+ */
+public class RepositorioIndexado<T> {
+    private final List<T> elementos = new ArrayList<>();
+    private final IntHashMap<T> indice = new IntHashMap<>();
+    private final List<Indice<T>> indices = new ArrayList<>();
+    private final ToIntFunction<T> clave;
+    private final StampedLock lock = new StampedLock();
+    private volatile List<T> vista; // copia inmutable de elementos, null = hay que rehacerla
+    private final List<Consumer<List<Cambio<T>>>> oyentes = new CopyOnWriteArrayList<>();
+
+    /**
+     * ID que reciben los oyentes cuando cambió todo el contenido (cargar)
+     */
+    public static final int TODOS = -1;
+
+    public RepositorioIndexado(ToIntFunction<T> clave) {
+        this.clave = clave;
+    }
+
+    /**
+     * Registra un índice secundario y lo llena con el contenido actual
+     */
+    public <K> IndiceSecundario<K, T> agregarIndice(IndiceSecundario<K, T> indiceSecundario) {
+        registrar(indiceSecundario);
+        return indiceSecundario;
+    }
+
+    /**
+     * Registra un índice de texto completo y lo llena con el contenido actual
+     */
+    public IndiceInvertido<T> agregarIndice(IndiceInvertido<T> indiceTexto) {
+        registrar(indiceTexto);
+        return indiceTexto;
+    }
+
+    /**
+     * Registra un índice de autocompletado por prefijo y lo llena con el contenido actual
+     */
+    public IndiceAutocompletar<T> agregarIndice(IndiceAutocompletar<T> autocompletar) {
+        registrar(autocompletar);
+        return autocompletar;
+    }
+
+    /**
+     * Registra un índice de referencias inversas y lo llena con el contenido actual
+     */
+    public IndiceReferencias<T> agregarIndice(IndiceReferencias<T> referencias) {
+        registrar(referencias);
+        return referencias;
+    }
+
+    /**
+     * Registra una tabla ID → nombre y la llena con el contenido actual
+     */
+    public IndiceNombres<T> agregarIndice(IndiceNombres<T> nombres) {
+        registrar(nombres);
+        return nombres;
+    }
+
+    /**
+     * Registra un oyente de cambios; el Runnable devuelto lo da de baja
+     */
+    public Runnable suscribir(Consumer<List<Cambio<T>>> oyente) {
+        oyentes.add(oyente);
+        return () -> oyentes.remove(oyente);
+    }
+
+    /**
+     * Registra un oyente que solo recibe el ID de cada elemento que cambia, o TODOS
+     */
+    public Runnable alCambiar(IntConsumer oyente) {
+        return suscribir(cambios -> {
+            for (Cambio<T> cambio : cambios) oyente.accept(cambio.getId());
+        });
+    }
+
+    private void notificar(Cambio.Tipo tipo, int id, T anterior, T nuevo) {
+        if (oyentes.isEmpty()) return;
+        notificar(Collections.singletonList(new Cambio<>(tipo, id, anterior, nuevo)));
+    }
+
+    private void notificar(List<Cambio<T>> cambios) {
+        if (cambios.isEmpty()) return;
+        for (Consumer<List<Cambio<T>>> oyente : oyentes) {
+            try {
+                oyente.accept(cambios);
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private void registrar(Indice<T> indice) {
+        long stamp = lock.writeLock();
+        try {
+            indice.vincular(clave, lock);
+            for (T elemento : elementos) {
+                indice.agregar(elemento);
+            }
+            indices.add(indice);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public void agregar(T elemento) {
+        T anterior;
+        long stamp = lock.writeLock();
+        try {
+            anterior = agregarSinBloqueo(elemento);
+        } finally {
+            vista = null;
+            lock.unlockWrite(stamp);
+        }
+        notificar(anterior == null ? Cambio.Tipo.AGREGADO : Cambio.Tipo.ACTUALIZADO,
+                clave.applyAsInt(elemento), anterior, elemento);
+    }
+
+    /**
+     * Reemplaza el elemento con el mismo ID. Devuelve false si no existía.
+     */
+    public boolean actualizar(T nuevo) {
+        int id = clave.applyAsInt(nuevo);
+        T anterior;
+        long stamp = lock.writeLock();
+        try {
+            anterior = indice.get(id);
+            if (anterior == null) return false;
+
+            indice.put(id, nuevo);
+            if (anterior != nuevo) {
+                elementos.set(posicion(anterior), nuevo);
+            }
+            for (Indice<T> indice : indices) indice.actualizar(nuevo);
+        } finally {
+            vista = null;
+            lock.unlockWrite(stamp);
+        }
+        notificar(Cambio.Tipo.ACTUALIZADO, id, anterior, nuevo);
+        return true;
+    }
+
+    /**
+     * Elimina por ID y devuelve el elemento eliminado (o null)
+     */
+    public T eliminar(int id) {
+        T eliminado;
+        long stamp = lock.writeLock();
+        try {
+            eliminado = eliminarSinBloqueo(id);
+        } finally {
+            vista = null;
+            lock.unlockWrite(stamp);
+        }
+        if (eliminado != null) notificar(Cambio.Tipo.ELIMINADO, id, eliminado, null);
+        return eliminado;
+    }
+
+    /**
+     * Aplica todas las operaciones del lote bajo un solo bloqueo de escritura y
+     * avisa a los oyentes una sola vez. Actualizar o eliminar un ID que no existe
+     * se omite. Devuelve los cambios que sí se aplicaron, en orden.
+     */
+    public List<Cambio<T>> aplicar(Lote<T> lote) {
+        List<Cambio<T>> cambios = new ArrayList<>(lote.getOperaciones().size());
+        long stamp = lock.writeLock();
+        try {
+            for (Lote.Operacion<T> operacion : lote.getOperaciones()) {
+                switch (operacion.getTipo()) {
+                    case AGREGAR: {
+                        T elemento = operacion.getElemento();
+                        T anterior = agregarSinBloqueo(elemento);
+                        cambios.add(new Cambio<>(anterior == null ? Cambio.Tipo.AGREGADO : Cambio.Tipo.ACTUALIZADO,
+                                clave.applyAsInt(elemento), anterior, elemento));
+                        break;
+                    }
+                    case ACTUALIZAR: {
+                        T elemento = operacion.getElemento();
+                        int id = clave.applyAsInt(elemento);
+                        T anterior = indice.get(id);
+                        if (anterior == null) break;
+                        agregarSinBloqueo(elemento);
+                        cambios.add(new Cambio<>(Cambio.Tipo.ACTUALIZADO, id, anterior, elemento));
+                        break;
+                    }
+                    case ELIMINAR: {
+                        T anterior = eliminarSinBloqueo(operacion.getId());
+                        if (anterior != null) {
+                            cambios.add(new Cambio<>(Cambio.Tipo.ELIMINADO, operacion.getId(), anterior, null));
+                        }
+                        break;
+                    }
+                }
+            }
+        } finally {
+            vista = null;
+            lock.unlockWrite(stamp);
+        }
+        notificar(cambios);
+        return cambios;
+    }
+
+    public boolean eliminarSi(Predicate<T> filtro) {
+        List<Cambio<T>> removidos = new ArrayList<>();
+        long stamp = lock.writeLock();
+        try {
+            for (T elemento : new ArrayList<>(elementos)) {
+                if (filtro.test(elemento)) {
+                    int id = clave.applyAsInt(elemento);
+                    eliminarSinBloqueo(id);
+                    removidos.add(new Cambio<>(Cambio.Tipo.ELIMINADO, id, elemento, null));
+                }
+            }
+        } finally {
+            vista = null;
+            lock.unlockWrite(stamp);
+        }
+        notificar(removidos);
+        return !removidos.isEmpty();
+    }
+
+    public T obtener(int id) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                T encontrado = indice.get(id);
+                if (lock.validate(stamp)) return encontrado;
+            } catch (RuntimeException e) {
+                // Lectura a la mitad de una escritura; se repite con bloqueo
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return indice.get(id);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public boolean contiene(int id) {
+        return obtener(id) != null;
+    }
+
+    /**
+     * Reemplaza todo el contenido (usado al cargar desde archivo)
+     */
+    public void cargar(Collection<T> nuevos) {
+        long stamp = lock.writeLock();
+        try {
+            elementos.clear();
+            indice.clear();
+            for (Indice<T> indice : indices) indice.limpiar();
+            for (T elemento : nuevos) {
+                agregarSinBloqueo(elemento);
+            }
+        } finally {
+            vista = null;
+            lock.unlockWrite(stamp);
+        }
+        notificar(Cambio.Tipo.RECARGADO, TODOS, null, null);
+    }
+
+    public int maxId() {
+        int max = 0;
+        for (T elemento : vista()) {
+            max = Math.max(max, clave.applyAsInt(elemento));
+        }
+        return max;
+    }
+
+    /**
+     * Copia de los elementos en orden de inserción
+     */
+    public List<T> getAll() {
+        return new ArrayList<>(vista());
+    }
+
+    /**
+     * Copia inmutable del contenido actual, para recorrer sin copiar otra vez
+     */
+    public List<T> elementos() {
+        return vista();
+    }
+
+    public Stream<T> stream() {
+        return vista().stream();
+    }
+
+    public int tamano() {
+        return vista().size();
+    }
+
+    private List<T> vista() {
+        List<T> actual = vista;
+        if (actual != null) return actual;
+
+        long stamp = lock.readLock();
+        try {
+            actual = vista;
+            if (actual == null) {
+                actual = Collections.unmodifiableList(new ArrayList<>(elementos));
+                vista = actual;
+            }
+            return actual;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // Devuelve el elemento que tenía el mismo ID, si había uno
+    private T agregarSinBloqueo(T elemento) {
+        T anterior = indice.put(clave.applyAsInt(elemento), elemento);
+        if (anterior != null) {
+            // ID duplicado: el nuevo reemplaza al anterior en su misma posición
+            elementos.set(posicion(anterior), elemento);
+            for (Indice<T> indice : indices) indice.actualizar(elemento);
+            return anterior;
+        }
+        elementos.add(elemento);
+        for (Indice<T> indice : indices) indice.agregar(elemento);
+        return null;
+    }
+
+    private T eliminarSinBloqueo(int id) {
+        T anterior = indice.remove(id);
+        if (anterior != null) {
+            elementos.remove(posicion(anterior));
+            for (Indice<T> indice : indices) indice.eliminar(id);
+        }
+        return anterior;
+    }
+
+    // Búsqueda por identidad: los elementos no redefinen equals()
+    private int posicion(T elemento) {
+        for (int i = elementos.size() - 1; i >= 0; i--) {
+            if (elementos.get(i) == elemento) return i;
+        }
+        return -1;
+    }
+}
@@ -1,23 +1,45 @@
 package core.data.Users;
 
+import core.data.Persistencia.ArchivoDatos;
+import core.data.Persistencia.PlanificadorGuardado;
+import core.data.Repositorio.CargaDiferida;
+import org.json.JSONObject;
+
 import java.io.*;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
-import org.json.JSONArray;
-import org.json.JSONObject;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
 
 /**
  * Clase Singleton para gestionar todos los usuarios.
  * Carga los datos desde un archivo JSON al iniciar y los guarda automáticamente al cerrar.
  */
 public class AllUsers {
-    private static AllUsers instance;
-    private List<User> users;
+    private static final CargaDiferida<AllUsers> carga = new CargaDiferida<>(AllUsers::new);
+    // Copy-on-write: pocas altas y muchas lecturas (login, búsquedas), que
+    // pueden recorrer la lista desde cualquier hilo sin bloquear
+    private final List<User> users = new CopyOnWriteArrayList<>();
+    // Índices hash sin distinguir mayúsculas (clave, username, correo → usuario).
+    // Se leen sin bloqueo; las escrituras van sincronizadas. Si dos usuarios
+    // comparten llave gana el primero, como en la búsqueda lineal de antes.
+    private final Map<String, User> porClave = new ConcurrentHashMap<>();
+    private final Map<String, User> porUsername = new ConcurrentHashMap<>();
+    private final Map<String, User> porEmail = new ConcurrentHashMap<>();
+    // Llaves con las que se indexó cada usuario, para sacarlo aunque se haya editado en memoria
+    private final Map<User, String[]> llavesIndexadas = new IdentityHashMap<>();
+    private final Object snapshotLock = new Object(); // serializa escrituras del archivo
     private static final String FILE_NAME = "data/users.json";
 
     // Constructor privado
     private AllUsers() {
-        users = new ArrayList<>();
         loadUsers(); // intenta cargar desde archivo
 
         if (users.isEmpty()) {
@@ -27,6 +49,7 @@ public class AllUsers {
             testUser.setClave("U001");
             testUser.setAdmin(true);
             users.add(testUser);
+            indexar(testUser);
             saveUsers(); // crea el archivo si no existía
         }
 
@@ -39,47 +62,107 @@ public class AllUsers {
 
     // Obtener instancia única
     public static AllUsers getInstance() {
-        if (instance == null) {
-            instance = new AllUsers();
+        return carga.obtener();
+    }
+
+    /**
+     * Arranca la carga del archivo en segundo plano (ver Main)
+     */
+    public static CompletableFuture<AllUsers> cargarAsync(Executor executor) {
+        return carga.iniciar(executor);
+    }
+
+    /**
+     * Se completa cuando los datos ya están en memoria
+     */
+    public static CompletableFuture<AllUsers> listo() {
+        return carga.futuro();
+    }
+
+    /**
+     * Agregar usuario (si trae el NIP en claro, se guarda su hash). Regresa false,
+     * sin agregarlo, si su clave ya está registrada; la revisión se repite bajo el
+     * mismo candado del alta, así dos registros a la vez no pasan los dos. El hash
+     * se calcula antes de tomar el candado, para no detener las demás altas y
+     * ediciones; por lo mismo, no se debe llamar desde el hilo de JavaFX.
+     */
+    public boolean addUser(User user) {
+        if (getUserByClave(user.getClave()) != null) return false;
+        if (!HashNip.esHash(user.getPassword())) {
+            user.setPassword(HashNip.hashear(user.getPassword()));
+        }
+        synchronized (this) {
+            if (getUserByClave(user.getClave()) != null) return false;
+            users.add(user);
+            indexar(user);
+            guardarDespues();
+            return true;
         }
-        return instance;
     }
 
-    // Agregar usuario
-    public void addUser(User user) {
-        users.add(user);
-        saveUsers();
+    /**
+     * Reindexa un usuario editado en memoria (clave, username o correo) y agenda el guardado
+     */
+    public synchronized void updateUser(User user) {
+        if (!llavesIndexadas.containsKey(user)) return;
+        desindexar(user);
+        indexar(user);
+        guardarDespues();
     }
 
-    // Obtener todos los usuarios
+    // Eliminar usuario
+    public synchronized void removeUser(User user) {
+        if (!users.remove(user)) return;
+        desindexar(user);
+        guardarDespues();
+    }
+
+    // Obtener todos los usuarios (solo lectura: las altas, cambios y bajas pasan por AllUsers)
     public List<User> getUsers() {
-        return users;
+        return Collections.unmodifiableList(users);
     }
 
     // Buscar usuario por nombre de usuario
     public User getUserByUsername(String username) {
-        for (User user : users) {
-            if (user.getUsername().equalsIgnoreCase(username)) {
-                return user;
-            }
-        }
-        return null;
+        return buscar(porUsername, username);
     }
 
     // Buscar usuario por clave
     public User getUserByClave(String clave) {
-        for (User user : users) {
-            if (user.getClave() != null && user.getClave().equalsIgnoreCase(clave)) {
-                return user;
-            }
-        }
-        return null;
+        return buscar(porClave, clave);
+    }
+
+    // Buscar usuario por correo
+    public User getUserByEmail(String email) {
+        return buscar(porEmail, email);
     }
 
     // Validar credenciales
     public boolean validateCredentials(String clave, String password) {
         User user = getUserByClave(clave);
-        return user != null && user.getPassword().equals(password);
+        return user != null && verificarNip(user, password);
+    }
+
+    /**
+     * Verifica el NIP del usuario. Si lo guardado aún es texto plano, o un hash con
+     * menos iteraciones que las vigentes, en este login correcto se reemplaza por
+     * un hash nuevo y se agenda el guardado. El hash no se calcula bajo el candado;
+     * como addUser, no se debe llamar desde el hilo de JavaFX.
+     */
+    public boolean verificarNip(User user, String nip) {
+        String guardado = user.getPassword();
+        if (!HashNip.verificar(nip, guardado)) return false;
+        if (HashNip.requiereRehash(guardado)) {
+            String nuevo = HashNip.hashear(nip);
+            synchronized (this) {
+                // Otro login pudo migrarlo mientras tanto
+                if (user.getPassword() == guardado) {
+                    user.setPassword(nuevo);
+                    guardarDespues();
+                }
+            }
+        }
+        return true;
     }
 
     // Cargar usuarios desde JSON
@@ -92,17 +175,18 @@ public class AllUsers {
             return;
         }
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            StringBuilder jsonText = new StringBuilder();
-            String line;
-            while ((line = reader.readLine()) != null) {
-                jsonText.append(line);
-            }
-
-            JSONArray array = new JSONArray(jsonText.toString());
-            users.clear();
-            for (int i = 0; i < array.length(); i++) {
-                users.add(User.fromJSON(array.getJSONObject(i)));
+        try {
+            List<User> cargados = ArchivoDatos.leer(FILE_NAME, User::fromJSON);
+            synchronized (this) {
+                users.clear();
+                users.addAll(cargados);
+                porClave.clear();
+                porUsername.clear();
+                porEmail.clear();
+                llavesIndexadas.clear();
+                for (User user : cargados) {
+                    indexar(user);
+                }
             }
 
             //System.out.println("✅ Usuarios cargados desde " + FILE_NAME + ": " + users.size());
@@ -111,18 +195,62 @@ public class AllUsers {
         }
     }
 
-    // Guardar usuarios en JSON
-    public synchronized void saveUsers() {
-        JSONArray array = new JSONArray();
-        for (User u : users) {
-            array.put(u.toJSON());
+    private static String plegar(String llave) {
+        return llave == null ? null : llave.toLowerCase(Locale.ROOT);
+    }
+
+    private static User buscar(Map<String, User> indice, String llave) {
+        return llave == null ? null : indice.get(plegar(llave));
+    }
+
+    private void indexar(User user) {
+        String[] llaves = { plegar(user.getClave()), plegar(user.getUsername()), plegar(user.getEmail()) };
+        if (llaves[0] != null) porClave.putIfAbsent(llaves[0], user);
+        if (llaves[1] != null) porUsername.putIfAbsent(llaves[1], user);
+        if (llaves[2] != null) porEmail.putIfAbsent(llaves[2], user);
+        llavesIndexadas.put(user, llaves);
+    }
+
+    private void desindexar(User user) {
+        String[] llaves = llavesIndexadas.remove(user);
+        if (llaves == null) return;
+        quitar(porClave, llaves[0], user, User::getClave);
+        quitar(porUsername, llaves[1], user, User::getUsername);
+        quitar(porEmail, llaves[2], user, User::getEmail);
+    }
+
+    // Si otro usuario comparte la llave, pasa a ocupar el índice (solo en bajas y ediciones)
+    private void quitar(Map<String, User> indice, String llave, User user, Function<User, String> campo) {
+        if (llave == null || !indice.remove(llave, user)) return;
+        for (User otro : users) {
+            if (otro != user && llave.equals(plegar(campo.apply(otro)))) {
+                indice.put(llave, otro);
+                return;
+            }
         }
+    }
 
-        try (FileWriter writer = new FileWriter(FILE_NAME)) {
-            writer.write(array.toString(4)); // formato bonito
-            //System.out.println("💾 Usuarios guardados en " + FILE_NAME);
-        } catch (Exception e) {
-            //System.err.println("⚠️ Error al guardar usuarios: " + e.getMessage());
+    // Agenda la escritura en el hilo de E/S; varias altas seguidas se guardan juntas
+    private void guardarDespues() {
+        PlanificadorGuardado.getInstance().marcarSucio(FILE_NAME, this::saveUsers);
+    }
+
+    // Guardar usuarios en JSON. Bajo el candado solo se toma la copia (los usuarios
+    // se editan en memoria, p. ej. la migración del NIP); la escritura va fuera
+    public void saveUsers() {
+        synchronized (snapshotLock) {
+            List<JSONObject> copia = new ArrayList<>();
+            synchronized (this) {
+                for (User user : users) {
+                    copia.add(user.toJSON());
+                }
+            }
+            try {
+                ArchivoDatos.escribir(FILE_NAME, copia, json -> json);
+                //System.out.println("💾 Usuarios guardados en " + FILE_NAME);
+            } catch (Exception e) {
+                //System.err.println("⚠️ Error al guardar usuarios: " + e.getMessage());
+            }
         }
     }
 }
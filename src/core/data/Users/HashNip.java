@@ -0,0 +1,204 @@
+package core.data.Users;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Hash de NIPs con PBKDF2 (HMAC-SHA256) y sal aleatoria por usuario.
+ *
+ * Formato guardado en users.json: pbkdf2$iteraciones$sal$hash (sal y hash en Base64).
+ * Las iteraciones (factor de trabajo) se configuran con -Dcafi.nip.iteraciones;
+ * un hash con menos iteraciones que las vigentes se rehace en el siguiente login.
+ *
+ * Guarda además una caché acotada (LRU) de verificaciones exitosas, para que los
+ * logins repetidos en el kiosco a la hora de la comida no paguen el hash completo
+ * cada vez. La llave es un SHA-256 del hash guardado y el NIP, nunca el NIP en
+ * claro, y cambia sola si el hash guardado cambia.
+ */
+public final class HashNip {
+    private static final String PREFIJO = "pbkdf2";
+    private static final String ALGORITMO = "PBKDF2WithHmacSHA256";
+    private static final int ITERACIONES = Integer.getInteger("cafi.nip.iteraciones", 120_000);
+    private static final int BYTES_SAL = 16;
+    private static final int BITS_HASH = 256;
+    private static final int MAX_CACHE = 256;
+
+    private static final SecureRandom aleatorio = new SecureRandom();
+    private static final Map<String, Boolean> verificados = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > MAX_CACHE;
+        }
+    };
+
+    private HashNip() {}
+
+    /**
+     * Hash nuevo, con sal aleatoria y las iteraciones vigentes
+     */
+    public static String hashear(String nip) {
+        return hashear(nip, ITERACIONES);
+    }
+
+    private static String hashear(String nip, int iteraciones) {
+        byte[] sal = new byte[BYTES_SAL];
+        aleatorio.nextBytes(sal);
+        Base64.Encoder b64 = Base64.getEncoder();
+        return PREFIJO + "$" + iteraciones + "$" + b64.encodeToString(sal) + "$"
+                + b64.encodeToString(pbkdf2(nip, sal, iteraciones));
+    }
+
+    /**
+     * true si lo guardado es un hash de este formato (y no un NIP en texto plano)
+     */
+    public static boolean esHash(String guardado) {
+        return guardado != null && guardado.startsWith(PREFIJO + "$") && guardado.split("\\$").length == 4;
+    }
+
+    /**
+     * true si el hash se hizo con menos iteraciones que las vigentes
+     */
+    public static boolean requiereRehash(String guardado) {
+        if (!esHash(guardado)) return true;
+        try {
+            return Integer.parseInt(guardado.split("\\$")[1]) < ITERACIONES;
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
+
+    /**
+     * Compara el NIP contra lo guardado: un hash, o texto plano en usuarios aún
+     * no migrados. La comparación es de tiempo constante.
+     */
+    public static boolean verificar(String nip, String guardado) {
+        if (nip == null || guardado == null || guardado.isEmpty()) return false;
+        if (!esHash(guardado)) {
+            return MessageDigest.isEqual(nip.getBytes(StandardCharsets.UTF_8),
+                    guardado.getBytes(StandardCharsets.UTF_8));
+        }
+
+        String llave = llaveCache(nip, guardado);
+        synchronized (verificados) {
+            if (verificados.containsKey(llave)) return true;
+        }
+
+        String[] partes = guardado.split("\\$");
+        boolean valido;
+        try {
+            int iteraciones = Integer.parseInt(partes[1]);
+            byte[] sal = Base64.getDecoder().decode(partes[2]);
+            byte[] esperado = Base64.getDecoder().decode(partes[3]);
+            valido = MessageDigest.isEqual(esperado, pbkdf2(nip, sal, iteraciones));
+        } catch (IllegalArgumentException e) {
+            // Número o Base64 inválido: el hash guardado está dañado
+            //System.err.println("Hash de NIP inválido: " + e.getMessage());
+            return false;
+        }
+
+        // Solo se recuerdan los aciertos: un NIP incorrecto siempre paga el hash completo
+        if (valido) {
+            synchronized (verificados) {
+                verificados.put(llave, Boolean.TRUE);
+            }
+        }
+        return valido;
+    }
+
+    public static int getIteraciones() {
+        return ITERACIONES;
+    }
+
+    /**
+     * Medición del costo del login con distintos factores de trabajo:
+     *   HashNip [hilos] [iteraciones...]   (por defecto 1 hilo; 10000 60000 120000 310000)
+     * Por cada factor, tras una ronda de calentamiento, hace 5 rondas de 1 s de cada
+     * operación: NIP incorrecto (paga siempre el hash completo, igual que el primer
+     * login), login repetido (acierto en la caché) y hash nuevo (alta o migración).
+     * Imprime operaciones por segundo (media ± desviación entre rondas).
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int hilos = args.length > 0 ? Integer.parseInt(args[0]) : 1;
+        List<Integer> factores = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) factores.add(Integer.parseInt(args[i]));
+        if (factores.isEmpty()) factores = List.of(10_000, 60_000, 120_000, 310_000);
+
+        System.out.printf("%d hilo(s); factor vigente: %,d iteraciones%n", hilos, ITERACIONES);
+        for (int iteraciones : factores) {
+            String guardado = hashear("1234", iteraciones);
+            System.out.printf("%,d iteraciones%n", iteraciones);
+            medir("  NIP incorrecto     ", hilos, () -> verificar("0000", guardado));
+            medir("  login repetido     ", hilos, () -> verificar("1234", guardado));
+            medir("  hash nuevo         ", hilos, () -> esHash(hashear("1234", iteraciones)));
+        }
+    }
+
+    private static final int RONDAS = 5;
+
+    private static void medir(String nombre, int hilos, BooleanSupplier operacion) throws InterruptedException {
+        ronda(hilos, operacion); // calentamiento
+        double[] porSegundo = new double[RONDAS];
+        double media = 0;
+        for (int i = 0; i < RONDAS; i++) {
+            porSegundo[i] = ronda(hilos, operacion);
+            media += porSegundo[i] / RONDAS;
+        }
+        double varianza = 0;
+        for (double x : porSegundo) varianza += (x - media) * (x - media) / RONDAS;
+        System.out.printf("%s %,14.1f ops/s ± %,.1f  (%.3f ms por operación)%n",
+                nombre, media, Math.sqrt(varianza), hilos * 1000.0 / media);
+    }
+
+    // Todos los hilos repiten la operación durante un segundo; devuelve operaciones por segundo
+    private static double ronda(int hilos, BooleanSupplier operacion) throws InterruptedException {
+        LongAdder operaciones = new LongAdder();
+        long inicio = System.nanoTime();
+        long fin = inicio + 1_000_000_000L;
+        Thread[] trabajadores = new Thread[hilos];
+        for (int i = 0; i < hilos; i++) {
+            trabajadores[i] = new Thread(() -> {
+                while (System.nanoTime() < fin) {
+                    operacion.getAsBoolean();
+                    operaciones.increment();
+                }
+            });
+            trabajadores[i].start();
+        }
+        for (Thread trabajador : trabajadores) trabajador.join();
+        return operaciones.sum() * 1e9 / (System.nanoTime() - inicio);
+    }
+
+    private static byte[] pbkdf2(String nip, byte[] sal, int iteraciones) {
+        PBEKeySpec spec = new PBEKeySpec(nip.toCharArray(), sal, iteraciones, BITS_HASH);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITMO).generateSecret(spec).getEncoded();
+        } catch (Exception e) {
+            // PBKDF2WithHmacSHA256 viene en todo JDK desde la versión 8
+            throw new IllegalStateException("PBKDF2 no disponible", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+    private static String llaveCache(String nip, String guardado) {
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            sha.update(guardado.getBytes(StandardCharsets.UTF_8));
+            sha.update((byte) 0);
+            sha.update(nip.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(sha.digest());
+        } catch (Exception e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+}
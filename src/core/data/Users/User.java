@@ -45,6 +45,11 @@ public class User {
         return password;
     }
 
+    // Guarda el hash del NIP (ver HashNip), no el NIP en claro
+    public void setPassword(String password) {
+        this.password = password;
+    }
+
     public String getClave() {
         return clave;
     }